@@ -1,12 +0,0 @@
-package org.examples.agency;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class AgencyApplication {
-  public static void main(String[] args) {
-    SpringApplication.run(AgencyApplication.class, args);
-  }
-}
-
@@ -1,23 +0,0 @@
-package org.examples.agency.graphql;
-
-import graphql.scalars.ExtendedScalars;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.graphql.execution.RuntimeWiringConfigurer;
-
-/**
- * Configuration GraphQL - Enregistrement des scalaires personnalisés
- * Nécessaire pour les types Date, DateTime et Long utilisés dans les schémas GraphQL
- */
-@Configuration
-public class GraphQLScalarConfiguration {
-
-    @Bean
-    public RuntimeWiringConfigurer runtimeWiringConfigurer() {
-        return wiringBuilder -> wiringBuilder
-                .scalar(ExtendedScalars.Date)
-                .scalar(ExtendedScalars.DateTime)
-                .scalar(ExtendedScalars.GraphQLLong);
-    }
-}
-
@@ -0,0 +1,12 @@
+package org.examples.agency;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Agences hébergées par le processus, déclarées en configuration.
+ */
+@Configuration
+@EnableConfigurationProperties(AgencyProfileProperties.class)
+public class AgencyProfileConfig {
+}
@@ -0,0 +1,55 @@
+package org.examples.agency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Agences hébergées par ce processus ({@code agency.profiles.<id>.*}) : chacune a son nom, son
+ * port TCP et sa remise, et toutes partagent l'annuaire des hôtels, les connexions, la réplique
+ * des catalogues et les caches. Ajouter une agence ne demande qu'une entrée de configuration.
+ */
+@ConfigurationProperties(prefix = "agency")
+public class AgencyProfileProperties {
+
+  private Map<String, Profile> profiles = new LinkedHashMap<>();
+
+  public Map<String, Profile> getProfiles() { return profiles; }
+  public void setProfiles(Map<String, Profile> profiles) { this.profiles = profiles; }
+
+  /**
+   * Profil d'une agence hébergée, par nom (ou identifiant de profil).
+   *
+   * @throws IllegalArgumentException si l'agence n'est pas hébergée par ce processus
+   */
+  public Profile profile(String agencyName) {
+    for (Map.Entry<String, Profile> entry : profiles.entrySet()) {
+      if (entry.getKey().equals(agencyName) || Objects.equals(entry.getValue().getName(), agencyName)) {
+        return entry.getValue();
+      }
+    }
+    throw new IllegalArgumentException("Unknown agency: " + agencyName);
+  }
+
+  public static class Profile {
+    /** Nom transmis aux hôtels (réservations, holds) ; l'identifiant du profil par défaut */
+    private String name;
+    private int tcpPort;
+    /** Remise appliquée aux prix des hôtels (0.10 = 10 %) */
+    private double discountRate = 0.10;
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public int getTcpPort() { return tcpPort; }
+    public void setTcpPort(int tcpPort) { this.tcpPort = tcpPort; }
+    public double getDiscountRate() { return discountRate; }
+    public void setDiscountRate(double discountRate) { this.discountRate = discountRate; }
+
+    @Override
+    public String toString() {
+      return name + " (port " + tcpPort + ", -" + Math.round(discountRate * 100) + "%)";
+    }
+  }
+}
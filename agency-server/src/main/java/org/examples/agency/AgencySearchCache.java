@@ -0,0 +1,179 @@
+package org.examples.agency;
+
+import org.examples.agency.graphql.AvailabilityFeedClient;
+import org.examples.agency.graphql.HotelAvailabilityEvent;
+import org.examples.agency.graphql.HotelCityIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache des offres brutes des hôtels (avant remise de l'agence) pour offers.search.
+ * <p>
+ * Clé : ville normalisée (accents, casse), dates, nombre de personnes et agence. Les entrées vivent
+ * {@code agency.search-cache.ttl-ms} et le cache garde au plus {@code agency.search-cache.max-entries}
+ * recherches, les moins récemment servies étant évincées (LRU). Une recherche bornée n'est gardée
+ * que pour ses premières offres : elle ne sert ensuite qu'aux recherches de même borne ou moins.
+ * <p>
+ * Une réservation, un hold ou une libération passés par cette agence, ou annoncés par le flux de
+ * disponibilité des hôtels ({@link HotelAvailabilityEvent}), évincent les recherches de l'hôtel
+ * concerné (ou de sa ville) dont le séjour chevauche les dates touchées. Tant que le flux couvre
+ * tous les hôtels sains, les recherches sont gardées {@code agency.search-cache.feed-ttl-ms}.
+ */
+@Component
+public class AgencySearchCache {
+  private static final Logger log = LoggerFactory.getLogger(AgencySearchCache.class);
+
+  @Value("${agency.search-cache.ttl-ms:10000}")
+  private long ttlMs;
+
+  @Value("${agency.search-cache.feed-ttl-ms:300000}")
+  private long feedTtlMs;
+
+  @Value("${agency.search-cache.max-entries:500}")
+  private int maxEntries;
+
+  @Autowired
+  private AvailabilityFeedClient availabilityFeed;
+
+  @Autowired
+  private HotelCityIndex cityIndex;
+
+  // Incrémenté à chaque invalidation : un résultat calculé avant une invalidation n'est pas mis en cache
+  private final AtomicLong version = new AtomicLong();
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+
+  private static final class CachedSearch {
+    final List<Map<String,Object>> offers;
+    // Nombre d'offres demandé : la liste est complète si elle en contient moins
+    final int limit;
+    final Set<String> hotels;
+    // Ville normalisée de la recherche ("" : toutes les villes)
+    final String city;
+    final LocalDate from;
+    final LocalDate to;
+    final long expiresAt;
+
+    CachedSearch(List<Map<String,Object>> offers, int limit, Set<String> hotels, String city, LocalDate from,
+                 LocalDate to, long expiresAt) {
+      this.offers = offers;
+      this.limit = limit;
+      this.hotels = hotels;
+      this.city = city;
+      this.from = from;
+      this.to = to;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  // Ordre d'accès : l'entrée la plus ancienne est la moins récemment servie
+  private final LinkedHashMap<String, CachedSearch> entries = new LinkedHashMap<String, CachedSearch>(64, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, CachedSearch> eldest) {
+      return size() > maxEntries;
+    }
+  };
+
+  public static String key(String ville, LocalDate from, LocalDate to, int nb, String agencyId) {
+    return HotelCityIndex.normalize(ville) + '|' + from + '|' + to + '|' + nb + '|' + (agencyId == null ? "" : agencyId);
+  }
+
+  /**
+   * Offres brutes en cache (non modifiables, au plus {@code limit}), ou null si aucune entrée ne couvre
+   * les {@code limit} premières offres
+   */
+  public synchronized List<Map<String,Object>> get(String key, int limit) {
+    CachedSearch entry = entries.get(key);
+    if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+      if (entry != null) entries.remove(key);
+      misses.incrementAndGet();
+      return null;
+    }
+    if (entry.limit < limit && entry.offers.size() >= entry.limit) {
+      // Préfixe trop court : la recherche plus large remplacera l'entrée
+      misses.incrementAndGet();
+      return null;
+    }
+    hits.incrementAndGet();
+    return entry.offers.size() > limit ? entry.offers.subList(0, limit) : entry.offers;
+  }
+
+  /**
+   * Version à relever avant d'interroger les hôtels, puis à passer à {@link #put}.
+   */
+  public long version() {
+    return version.get();
+  }
+
+  /**
+   * @param limit nombre d'offres demandé aux hôtels ({@link Integer#MAX_VALUE} : toutes)
+   */
+  public synchronized void put(String key, LocalDate from, LocalDate to, List<Map<String,Object>> offers, int limit,
+                               long computedAtVersion) {
+    if (version.get() != computedAtVersion) {
+      return;
+    }
+    // Sans flux de disponibilité, seule l'expiration protège des changements faits hors de l'agence
+    long ttl = availabilityFeed.allLive() ? feedTtlMs : ttlMs;
+    entries.put(key, new CachedSearch(Collections.unmodifiableList(new ArrayList<>(offers)), limit, hotelsOf(offers),
+                                      key.substring(0, key.indexOf('|')), from, to, System.currentTimeMillis() + ttl));
+  }
+
+  @EventListener
+  public void onAvailabilityChanged(HotelAvailabilityEvent event) {
+    invalidate(event.getHotelCode(), event.getFrom(), event.getTo());
+  }
+
+  /**
+   * Évince les recherches de l'hôtel dont le séjour chevauche [from, to) ; toutes ses recherches
+   * si les dates sont inconnues. Les recherches de sa ville sont visées même si l'hôtel n'y avait
+   * aucune offre : une chambre libérée peut en faire apparaître une.
+   */
+  public synchronized void invalidate(String hotelCode, LocalDate from, LocalDate to) {
+    if (hotelCode == null) return;
+    version.incrementAndGet();
+    String hotel = hotelCode.toLowerCase(Locale.ROOT);
+    String city = cityIndex.cityOf(hotel) != null ? HotelCityIndex.normalize(cityIndex.cityOf(hotel)) : null;
+    int evicted = 0;
+    for (Iterator<CachedSearch> it = entries.values().iterator(); it.hasNext(); ) {
+      CachedSearch entry = it.next();
+      boolean overlaps = from == null || to == null || (entry.from.isBefore(to) && from.isBefore(entry.to));
+      boolean concerned = entry.hotels.contains(hotel) || entry.city.isEmpty() || entry.city.equals(city);
+      if (overlaps && concerned) {
+        it.remove();
+        evicted++;
+      }
+    }
+    if (evicted > 0) {
+      log.info("[SEARCH-CACHE] {} {} -> {}: {} cached searches evicted", hotelCode, from, to, evicted);
+    }
+  }
+
+  public synchronized Map<String,Object> stats() {
+    Map<String,Object> stats = new LinkedHashMap<>();
+    stats.put("entries", entries.size());
+    stats.put("hits", hits.get());
+    stats.put("misses", misses.get());
+    return stats;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<String> hotelsOf(List<Map<String,Object>> offers) {
+    Set<String> hotels = new HashSet<>();
+    for (Map<String,Object> offer : offers) {
+      Map<String,Object> hotel = (Map<String,Object>) offer.get("hotel");
+      if (hotel != null && hotel.get("id") != null) {
+        hotels.add(String.valueOf(hotel.get("id")).toLowerCase(Locale.ROOT));
+      }
+    }
+    return hotels;
+  }
+}
@@ -1,13 +1,20 @@
 package org.examples.agency;
 
 import dto.*;
+import org.examples.agency.graphql.AvailabilityFeedClient;
+import org.examples.agency.graphql.HotelCatalogReplica;
 import org.examples.agency.graphql.HotelGraphQLClient;
+import org.examples.agency.graphql.HotelOffers;
+import org.examples.agency.graphql.HotelRegistry;
+import org.examples.server.util.OfferToken;
+import org.examples.server.util.OfferTokenCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -22,103 +29,173 @@ public class AgencyService {
   @Autowired
   private HotelGraphQLClient graphqlClient;
 
-  @Value("${agency.discount.rate:0.10}")
-  private double discountRate;
+  @Autowired
+  private HotelRegistry hotelRegistry;
+
+  @Autowired
+  private AgencySearchCache searchCache;
+
+  @Autowired
+  private HotelCatalogReplica catalogReplica;
+
+  @Autowired
+  private AvailabilityFeedClient availabilityFeed;
+
+  @Autowired
+  private AgencyStatsRecorder statsRecorder;
+
+  @Value("${agency.request.default-timeout-ms:15000}")
+  private long defaultTimeoutMs;
+
+  @Value("${offer.token.secret}")
+  private String offerTokenSecret;
 
-  @Value("${agency.name:Unknown Agency}")
-  private String agencyName;
+  private OfferTokenCodec offerTokenCodec;
 
-  // Les hôtels partenaires sont maintenant gérés par HotelGrpcClient
-  // Ports gRPC : opera=9090, rivage=9091
+  @PostConstruct
+  public void init() {
+    offerTokenCodec = new OfferTokenCodec(offerTokenSecret);
+  }
+
+  // Les hôtels partenaires sont dans l'annuaire HotelRegistry (configuration + auto-enregistrement)
 
-  public String handleRequest(String jsonLine) {
+  /**
+   * Traite une requête reçue sur le port TCP de {@code agency} : nom transmis aux hôtels et remise
+   * sont ceux de ce profil, tout le reste (hôtels, caches, réplique) est commun aux agences.
+   */
+  public String handleRequest(String jsonLine, AgencyProfileProperties.Profile agency) {
     try {
-      log.info("[AGENCY-REQ] raw={}", jsonLine);
       Map<String,Object> req = Json.minParse(jsonLine);
       String op = (String) req.get("op");
+      // Le secret d'enregistrement d'un hôtel n'est pas journalisé
+      log.info("[AGENCY-REQ] raw={}", "hotel.register".equals(op) ? "(hotel.register)" : jsonLine);
+      // Budget restant du client (ms) : au-delà, l'agence et les hôtels abandonnent la requête
+      long timeoutMs = req.containsKey("timeoutMs") ? num(req.get("timeoutMs"), 0) : defaultTimeoutMs;
+      Deadline.start(timeoutMs);
+      Deadline.check("op " + op);
       if ("ping".equals(op)) return Json.ok(Collections.singletonMap("pong", true));
       if ("catalog.get".equals(op)) { log.info("[AGENCY] op=catalog.get"); return Json.ok(getCatalog()); }
-      if ("offers.search".equals(op)) { log.info("[AGENCY] op=offers.search payload={}", req.get("payload")); return Json.ok(searchOffers((Map<String,Object>) req.get("payload"))); }
+      if ("offers.search".equals(op)) { log.info("[AGENCY] op=offers.search payload={}", req.get("payload")); return Json.ok(searchOffers((Map<String,Object>) req.get("payload"), agency)); }
       if ("reservation.make".equals(op)) { Map<String,Object> p=(Map<String,Object>)req.get("payload");
         String masked = p!=null && p.get("carte")!=null? maskCard(String.valueOf(p.get("carte"))) : null;
         log.info("[AGENCY] op=reservation.make payload={{hotelCode={}, offerId={}, agencyId={}, nom={}, prenom={}, carte={}}}",
                  p!=null? p.get("hotelCode"):null, p!=null? p.get("offerId"):null, p!=null? p.get("agencyId"):null,
                  p!=null? p.get("nom"):null, p!=null? p.get("prenom"):null, masked);
-        return Json.ok(makeReservation(p)); }
+        return Json.ok(makeReservation(p, agency)); }
+      if ("offer.hold".equals(op)) { log.info("[AGENCY] op=offer.hold payload={}", req.get("payload")); return Json.ok(holdOffer((Map<String,Object>) req.get("payload"), agency)); }
+      if ("offer.release".equals(op)) { log.info("[AGENCY] op=offer.release payload={}", req.get("payload")); return Json.ok(releaseHold((Map<String,Object>) req.get("payload"))); }
+      if ("hotel.register".equals(op)) { Map<String,Object> p=(Map<String,Object>)req.get("payload");
+        log.info("[AGENCY] op=hotel.register payload={{hotelId={}, url={}}}", p!=null? p.get("hotelId"):null, p!=null? p.get("url"):null);
+        return Json.ok(registerHotel(p)); }
+      if ("hotels.status".equals(op)) return Json.ok(hotelRegistry.status());
+      if ("agency.metrics".equals(op)) return Json.ok(metrics(agency));
       return Json.error("unknown op");
+    } catch (DeadlineExceededException e) {
+      log.warn("[AGENCY] {}", e.getMessage());
+      return Json.error(DeadlineExceededException.CODE, e.getMessage());
     } catch (Exception e) {
       log.warn("[AGENCY] handle error: {}", e.toString());
       return Json.error(e.getMessage());
+    } finally {
+      Deadline.clear();
     }
   }
 
+  /**
+   * Catalogue servi depuis la réplique locale (HotelCatalogReplica) : aucun appel aux hôtels,
+   * sauf tant que la réplique est vide (démarrage), et les hôtels injoignables y restent.
+   */
   private Map<String,Object> getCatalog() {
+    if (catalogReplica.hotels().isEmpty()) {
+      catalogReplica.syncAll();
+    }
     Set<String> cities = new LinkedHashSet<>();
-
-    // Récupérer les catalogues via GraphQL
-    try {
-      Map<String, Object> operaCatalog = graphqlClient.getCatalog("opera");
-      Map<String, Object> rivageCatalog = graphqlClient.getCatalog("rivage");
-
-      log.info("[AGENCY] Got catalogs via GraphQL");
-
-      // Extraire les villes des catalogues
-      @SuppressWarnings("unchecked")
-      Map<String, Object> operaHotel = (Map<String, Object>) operaCatalog.get("hotel");
-      if (operaHotel != null) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> address = (Map<String, Object>) operaHotel.get("address");
-        if (address != null && address.get("city") != null) {
-          cities.add((String) address.get("city"));
-        }
-      }
-
-      @SuppressWarnings("unchecked")
-      Map<String, Object> rivageHotel = (Map<String, Object>) rivageCatalog.get("hotel");
-      if (rivageHotel != null) {
-        @SuppressWarnings("unchecked")
-        Map<String, Object> address = (Map<String, Object>) rivageHotel.get("address");
-        if (address != null && address.get("city") != null) {
-          cities.add((String) address.get("city"));
-        }
+    List<Map<String,Object>> hotels = catalogReplica.summary();
+    for (Map<String,Object> hotel : hotels) {
+      if (hotel.get("city") != null) {
+        cities.add((String) hotel.get("city"));
       }
-    } catch (Exception e) {
-      log.warn("[AGENCY-CALL] getCatalog via GraphQL failed: {}", e.toString());
-      // Fallback sur données par défaut
-      cities.add("Montpellier");
     }
+    log.info("[AGENCY] Catalog from replica - {} hotels, {} cities", hotels.size(), cities.size());
 
     Map<String,Object> data = new LinkedHashMap<>();
     data.put("name", "Agence Centrale");
     data.put("cities", new ArrayList<>(cities));
     data.put("agencies", new ArrayList<>());
+    data.put("hotels", hotels);
     return data;
   }
 
-  private Map<String,Object> searchOffers(Map<String,Object> payload) throws Exception {
+  /**
+   * Auto-enregistrement d'un hôtel : {hotelId, url, secret} (url du endpoint GraphQL,
+   * secret partagé agency.registry.secret).
+   */
+  private Map<String,Object> registerHotel(Map<String,Object> payload) {
+    if (payload == null) throw new IllegalArgumentException("payload required");
+    String hotelId = str(payload.get("hotelId"));
+    hotelRegistry.selfRegister(hotelId, str(payload.get("url")), str(payload.get("secret")));
+    Map<String,Object> data = new LinkedHashMap<>();
+    data.put("hotelId", hotelId);
+    data.put("registered", true);
+    return data;
+  }
+
+  private Map<String,Object> searchOffers(Map<String,Object> payload, AgencyProfileProperties.Profile agency) throws Exception {
     String ville = str(payload.get("ville"));
     String arrivee = str(payload.get("arrivee"));
     String depart = str(payload.get("depart"));
     int nb = num(payload.get("nbPersonnes"), 1);
     String agencyId = str(payload.get("agencyId"));
+    // Optionnel : les offres arrivent triées par prix, la lecture s'arrête aux maxResults premières
+    int maxResults = num(payload.get("maxResults"), 0);
+    int limit = maxResults > 0 ? maxResults : Integer.MAX_VALUE;
     log.info("[AGENCY] searchOffers ville='{}' arrivee='{}' depart='{}' nbPersonnes={} agencyId='{}'", ville, arrivee, depart, nb, agencyId);
 
     LocalDate from = LocalDate.parse(arrivee);
     LocalDate to = LocalDate.parse(depart);
+    statsRecorder.searchPerformed(agency.getName());
 
     List<Map<String,Object>> offers = new ArrayList<>();
+    // Hôtels écartés (échec, disjoncteur ouvert, serveur saturé) : signalés au client, pas masqués
+    List<Map<String,Object>> hotelErrors = new ArrayList<>();
 
-    // Utiliser GraphQL pour rechercher sur tous les hôtels
+    // Offres brutes des hôtels : cache de l'agence, sinon GraphQL ; la remise est appliquée ci-dessous
     try {
-      log.info("[AGENCY] Calling graphqlClient.searchOffers...");
-      List<Map<String, Object>> allOffers = graphqlClient.searchOffers(ville, from, to, nb, agencyId);
-      log.info("[AGENCY] Got {} offers via GraphQL", allOffers.size());
+      String cacheKey = AgencySearchCache.key(ville, from, to, nb, agencyId);
+      List<Map<String, Object>> allOffers = searchCache.get(cacheKey, limit);
+      if (allOffers != null) {
+        log.info("[AGENCY] Got {} offers from the search cache", allOffers.size());
+      } else {
+        long cacheVersion = searchCache.version();
+        log.info("[AGENCY] Calling graphqlClient.searchOffers...");
+        List<HotelOffers> perHotel = graphqlClient.searchOffers(ville, from, to, nb, agencyId, limit);
+        // Les pages suivantes ne sont lues que si la fusion les atteint : erreurs relevées après elle
+        allOffers = HotelGraphQLClient.byTotalPrice(perHotel, limit);
+        for (HotelOffers result : perHotel) {
+          if (result.isFailed()) {
+            Map<String,Object> error = new LinkedHashMap<>();
+            error.put("hotelId", result.getHotelCode());
+            error.put("error", result.getError());
+            hotelErrors.add(error);
+          }
+        }
+        // Un résultat partiel n'est pas mis en cache : les offres d'un hôtel en échec seraient masquées
+        if (hotelErrors.isEmpty()) {
+          searchCache.put(cacheKey, from, to, allOffers, limit, cacheVersion);
+        } else {
+          log.info("[AGENCY] Partial result not cached, failed hotel(s): {}", hotelErrors);
+        }
+        log.info("[AGENCY] Got {} offers via GraphQL", allOffers.size());
+      }
 
       if (allOffers.isEmpty()) {
         log.warn("[AGENCY] ⚠️  No offers received from GraphQL - check hotel servers and GraphQL client logs");
       }
 
       for (Map<String, Object> offerData : allOffers) {
+        if (maxResults > 0 && offers.size() >= maxResults) {
+          break;
+        }
         log.debug("[AGENCY] Processing offer: {}", offerData);
         // Extraire le prix total
         Object totalPriceObj = offerData.get("totalPrice");
@@ -130,10 +207,10 @@ public class AgencyService {
         }
 
         // Appliquer la remise de l'agence
-        double discountedPrice = originalPrice * (1 - discountRate);
+        double discountedPrice = originalPrice * (1 - agency.getDiscountRate());
 
         log.debug("[AGENCY] Applying discount: {} -> {} ({}% off)",
-                 originalPrice, discountedPrice, (int)(discountRate * 100));
+                 originalPrice, discountedPrice, (int)(agency.getDiscountRate() * 100));
 
         // Construire l'offre pour le client TCP
         Map<String,Object> m = new LinkedHashMap<>();
@@ -167,7 +244,8 @@ public class AgencyService {
             try {
               roomNumero = Integer.parseInt((String) roomId);
             } catch (NumberFormatException e) {
-              log.warn("[AGENCY] Cannot parse room ID: {}", roomId);
+              // Offre par type de chambre ("T2-220") : l'hôtel attribue la chambre à la réservation
+              m.put("typeChambre", roomId);
             }
           }
 
@@ -190,12 +268,15 @@ public class AgencyService {
 
           log.debug("[AGENCY] Final offer room object: {}", r);
           m.put("nbLits", room.get("capacity"));
+          m.put("disponibles", room.get("availableCount"));
         }
 
         m.put("prixTotal", (int) discountedPrice);
         m.put("offerId", offerData.get("offerId"));
         offers.add(m);
       }
+    } catch (DeadlineExceededException e) {
+      throw e;
     } catch (Exception e) {
       log.error("[AGENCY-CALL] searchOffers via GraphQL failed: {}", e.getMessage(), e);
       // L'exception est catchée mais on continue avec une liste vide
@@ -203,16 +284,19 @@ public class AgencyService {
 
     Map<String,Object> data = new LinkedHashMap<>();
     data.put("offers", offers);
+    data.put("hotelErrors", hotelErrors);
     return data;
   }
 
-  private Map<String,Object> makeReservation(Map<String,Object> payload) throws Exception {
+  private Map<String,Object> makeReservation(Map<String,Object> payload, AgencyProfileProperties.Profile agency) throws Exception {
     String hotelCode = str(payload.get("hotelCode"));
     String offerId = str(payload.get("offerId"));
     String agencyId = str(payload.get("agencyId"));
     String nom = str(payload.get("nom"));
     String prenom = str(payload.get("prenom"));
     String carte = str(payload.get("carte"));
+    String idempotencyKey = str(payload.get("idempotencyKey"));
+    String holdId = str(payload.get("holdId"));
     String arriveeStr = str(payload.get("arrivee"));
     String departStr = str(payload.get("depart"));
 
@@ -222,19 +306,25 @@ public class AgencyService {
     log.info("[AGENCY] makeReservation REÇU depuis TCP - hotelCode='{}' offerId='{}' agencyId='{}' nom='{}' prenom='{}' carte='{}' arrivee='{}' depart='{}' nbPersonnes={}",
              hotelCode, offerId, agencyId, nom, prenom, maskCard(carte), arriveeStr, departStr, nbPersonnes);
 
-    // Extraire hotelCode et roomId de l'offerId (format: opera-201-timestamp)
-    String roomId = null;
-    if (offerId != null && offerId.contains("-")) {
-      String[] parts = offerId.split("-");
-      if (parts.length >= 2) {
-        if (hotelCode == null || hotelCode.isEmpty()) {
-          hotelCode = parts[0];
-          log.info("[AGENCY] hotelCode extrait de offerId: '{}'", hotelCode);
-        }
-        roomId = parts[1];
-        log.info("[AGENCY] roomId extrait de offerId: '{}'", roomId);
-      }
+    // Jeton d'offre signé : hôtel, chambre, dates et personnes sont lus (et vérifiés) sans découpage de chaîne
+    OfferToken offer;
+    try {
+      offer = offerTokenCodec.decode(offerId);
+    } catch (IllegalArgumentException e) {
+      log.warn("[AGENCY] ❌ Offre rejetée: {}", e.getMessage());
+      Map<String,Object> errorData = new LinkedHashMap<>();
+      errorData.put("success", false);
+      errorData.put("message", "Invalid offer: " + e.getMessage());
+      return errorData;
     }
+    if (hotelCode != null && !hotelCode.isEmpty() && !hotelCode.equalsIgnoreCase(offer.getHotelId())) {
+      log.warn("[AGENCY] hotelCode '{}' ignoré, l'offre a été émise par '{}'", hotelCode, offer.getHotelId());
+    }
+    hotelCode = offer.getHotelId();
+    String roomId = offer.getRoomId();
+    if (arriveeStr == null || arriveeStr.isEmpty()) arriveeStr = offer.getArrivalDate().toString();
+    if (departStr == null || departStr.isEmpty()) departStr = offer.getDepartureDate().toString();
+    if (payload.get("nbPersonnes") == null) nbPersonnes = offer.getNumPersons();
 
     log.info("[AGENCY] makeReservation APRÈS extraction - hotelCode='{}' roomId='{}'", hotelCode, roomId);
 
@@ -258,33 +348,22 @@ public class AgencyService {
       return errorData;
     }
 
-    // Vérifier que les données obligatoires sont présentes
-    if (hotelCode == null || hotelCode.isEmpty()) {
-      log.error("[AGENCY] ❌ hotelCode manquant");
-      Map<String,Object> errorData = new LinkedHashMap<>();
-      errorData.put("success", false);
-      errorData.put("message", "hotelCode is required");
-      return errorData;
-    }
-
-    if (roomId == null || roomId.isEmpty()) {
-      log.error("[AGENCY] ❌ roomId manquant");
-      Map<String,Object> errorData = new LinkedHashMap<>();
-      errorData.put("success", false);
-      errorData.put("message", "roomId is required");
-      return errorData;
-    }
-
     // Appeler le service GraphQL pour faire la réservation
     try {
       log.info("[AGENCY] Calling GraphQL makeReservation: hotel={}, room={}, client={} {}, dates={} to {}, persons={}, agency={}",
-               hotelCode, roomId, prenom, nom, arrivee, depart, nbPersonnes, agencyName);
+               hotelCode, roomId, prenom, nom, arrivee, depart, nbPersonnes, agency.getName());
 
       Map<String, Object> confirmation = graphqlClient.makeReservation(
-        hotelCode, roomId, nom, prenom, carte, arrivee, depart, nbPersonnes, agencyName
+        hotelCode, roomId, nom, prenom, carte, arrivee, depart, nbPersonnes, agency.getName(),
+        scopeIdempotencyKey(agency, idempotencyKey), holdId, offerId
       );
 
       log.info("[AGENCY] ✅ Reservation completed via GraphQL: reference={}", confirmation.get("confirmationCode"));
+      searchCache.invalidate(hotelCode, arrivee, depart);
+      if (confirmation.get("totalPrice") instanceof Number) {
+        statsRecorder.reservationConfirmed(agency.getName(), hotelCode, str(confirmation.get("confirmationCode")),
+                                           ((Number) confirmation.get("totalPrice")).doubleValue());
+      }
 
       Map<String,Object> data = new LinkedHashMap<>();
       data.put("success", true);
@@ -293,8 +372,16 @@ public class AgencyService {
       data.put("reservationId", confirmation.get("reservationId"));
       data.put("totalPrice", confirmation.get("totalPrice"));
       data.put("status", confirmation.get("status"));
+      // Chambre attribuée par l'hôtel (l'offre pouvait porter sur un type de chambre)
+      @SuppressWarnings("unchecked")
+      Map<String, Object> room = (Map<String, Object>) confirmation.get("room");
+      if (room != null) {
+        data.put("numero", room.get("id"));
+      }
 
       return data;
+    } catch (DeadlineExceededException e) {
+      throw e;
     } catch (Exception e) {
       log.warn("[AGENCY] ❌ Reservation failed: {}", e.getMessage());
 
@@ -308,6 +395,84 @@ public class AgencyService {
   }
 
 
+  /**
+   * Bloque la chambre de l'offre sélectionnée le temps que le client saisisse ses informations.
+   */
+  private Map<String,Object> holdOffer(Map<String,Object> payload, AgencyProfileProperties.Profile agency) {
+    String hotelCode = str(payload.get("hotelCode"));
+    String offerId = str(payload.get("offerId"));
+    String arrivee = str(payload.get("arrivee"));
+    String depart = str(payload.get("depart"));
+    int nb = num(payload.get("nbPersonnes"), 0);
+
+    Map<String,Object> data = new LinkedHashMap<>();
+    OfferToken offer;
+    try {
+      offer = offerTokenCodec.decode(offerId);
+    } catch (IllegalArgumentException e) {
+      data.put("success", false);
+      data.put("message", "Invalid offer: " + e.getMessage());
+      return data;
+    }
+    hotelCode = offer.getHotelId();
+    String roomId = offer.getRoomId();
+
+    try {
+      LocalDate from = arrivee != null && !arrivee.isEmpty() ? LocalDate.parse(arrivee) : offer.getArrivalDate();
+      LocalDate to = depart != null && !depart.isEmpty() ? LocalDate.parse(depart) : offer.getDepartureDate();
+      Map<String,Object> hold = graphqlClient.holdOffer(hotelCode, roomId, from, to, nb, agency.getName(), offerId);
+      log.info("[AGENCY] ✅ Hold placed: holdId={} hotel={} room={}", hold.get("holdId"), hotelCode, roomId);
+      searchCache.invalidate(hotelCode, from, to);
+      data.put("success", true);
+      data.put("holdId", hold.get("holdId"));
+      data.put("hotelId", hotelCode);
+      data.put("expiresAt", hold.get("expiresAt"));
+      data.put("ttlSeconds", hold.get("ttlSeconds"));
+    } catch (DeadlineExceededException e) {
+      throw e;
+    } catch (Exception e) {
+      log.warn("[AGENCY] ❌ Hold failed: {}", e.getMessage());
+      data.put("success", false);
+      data.put("message", "Hold failed: " + e.getMessage());
+    }
+    return data;
+  }
+
+  private Map<String,Object> releaseHold(Map<String,Object> payload) {
+    String hotelCode = str(payload.get("hotelCode"));
+    String holdId = str(payload.get("holdId"));
+    Map<String,Object> data = new LinkedHashMap<>();
+    boolean released = hotelCode != null && holdId != null && graphqlClient.releaseHold(hotelCode, holdId);
+    if (released) {
+      // Dates du hold inconnues ici : toutes les recherches de l'hôtel sont évincées
+      searchCache.invalidate(hotelCode, null, null);
+    }
+    data.put("success", released);
+    return data;
+  }
+
+  /**
+   * Compteurs de l'agence (op agency.metrics).
+   */
+  private Map<String,Object> metrics(AgencyProfileProperties.Profile agency) {
+    Map<String,Object> data = new LinkedHashMap<>();
+    data.put("searchCache", searchCache.stats());
+    data.put("coalescing", graphqlClient.coalescingStats());
+    data.put("catalogReplica", catalogReplica.stats());
+    data.put("availabilityFeed", availabilityFeed.stats());
+    data.put("agencyStats", statsRecorder.stats(agency.getName(), null, null, false));
+    return data;
+  }
+
+  /**
+   * Préfixe la clé du client par le nom de l'agence : deux agences ne peuvent pas
+   * entrer en collision sur la même clé côté hôtel.
+   */
+  private String scopeIdempotencyKey(AgencyProfileProperties.Profile agency, String clientKey) {
+    if (clientKey == null || clientKey.isEmpty()) return null;
+    return agency.getName() + ":" + clientKey;
+  }
+
   private static String str(Object o){ return o==null? null : String.valueOf(o); }
   private static int num(Object o, int d){ try { return o==null? d : Integer.parseInt(String.valueOf(o)); } catch(Exception e){ return d; } }
   private static String maskCard(String c) { if (c==null) return null; String n=c.replaceAll("[^0-9]", ""); if (n.length()<4) return "****"; return "**** **** **** "+n.substring(n.length()-4); }
@@ -0,0 +1,336 @@
+package org.examples.agency;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistiques de l'agence (agencyStats), tenues à jour à chaque recherche et réservation.
+ * <p>
+ * Compteurs {@link LongAdder} par agence et par hôtel (montants en centimes), cumulés et par jour
+ * d'activité : l'enregistrement ne prend aucun verrou et la lecture coûte O(hôtels), ou
+ * O(hôtels × jours) pour une période, quel que soit le trafic passé. Les compteurs
+ * sont écrits dans {@code agency.stats.snapshot-file} toutes les {@code agency.stats.snapshot-interval-ms}
+ * et à l'arrêt, puis relus au démarrage ; un arrêt brutal perd au plus un intervalle.
+ * <p>
+ * Une réservation rejouée (même clé d'idempotence) revient de l'hôtel avec le même code de
+ * confirmation : les {@code agency.stats.recorded-codes} derniers codes comptés sont gardés (et
+ * sauvegardés avec les compteurs) pour ne la compter qu'une fois.
+ * <p>
+ * Seules les agences configurées ({@link AgencyProfileProperties}) ont des compteurs : un nom inconnu
+ * est refusé, il n'ajoute pas d'entrée.
+ */
+@Component
+public class AgencyStatsRecorder {
+  private static final Logger log = LoggerFactory.getLogger(AgencyStatsRecorder.class);
+
+  @Value("${agency.stats.snapshot-file:agency-stats.json}")
+  private String snapshotFile;
+
+  @Value("${agency.stats.snapshot-interval-ms:60000}")
+  private long snapshotIntervalMs;
+
+  @Value("${agency.commission.rate:0.10}")
+  private double commissionRate;
+
+  @Value("${agency.stats.recorded-codes:10000}")
+  private int maxRecordedCodes;
+
+  @Autowired
+  private AgencyProfileProperties profileProperties;
+
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private static final class HotelCounters {
+    final LongAdder reservations = new LongAdder();
+    final LongAdder revenueCents = new LongAdder();
+    final LongAdder commissionCents = new LongAdder();
+  }
+
+  /** Compteurs d'une agence sur une période (cumul ou journée) */
+  private static final class Counters {
+    final LongAdder searches = new LongAdder();
+    final Map<String, HotelCounters> hotels = new ConcurrentHashMap<>();
+
+    HotelCounters hotel(String hotelCode) {
+      return hotels.computeIfAbsent(hotelCode.toLowerCase(Locale.ROOT), code -> new HotelCounters());
+    }
+  }
+
+  private static final class AgencyCounters {
+    final Counters total = new Counters();
+    final Map<LocalDate, Counters> days = new ConcurrentHashMap<>();
+
+    Counters day(LocalDate date) {
+      return days.computeIfAbsent(date, d -> new Counters());
+    }
+  }
+
+  private final Map<String, AgencyCounters> agencies = new ConcurrentHashMap<>();
+  // Réservations déjà comptées (hôtel|code de confirmation), les plus anciennes évincées d'abord
+  private final LinkedHashMap<String, Boolean> recordedCodes = new LinkedHashMap<String, Boolean>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+      return size() > maxRecordedCodes;
+    }
+  };
+  private ScheduledExecutorService snapshotter;
+
+  @PostConstruct
+  public void start() {
+    load();
+    snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "stats-snapshot");
+      t.setDaemon(true);
+      return t;
+    });
+    snapshotter.scheduleWithFixedDelay(this::snapshot, snapshotIntervalMs, snapshotIntervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  @PreDestroy
+  public void stop() {
+    if (snapshotter != null) snapshotter.shutdownNow();
+    snapshot();
+  }
+
+  /**
+   * @throws IllegalArgumentException si l'agence n'est pas configurée
+   */
+  public void searchPerformed(String agency) {
+    AgencyCounters counters = counters(agency);
+    counters.total.searches.increment();
+    counters.day(LocalDate.now()).searches.increment();
+  }
+
+  /**
+   * Réservation confirmée par l'hôtel, au prix total du séjour ; ignorée si ce code de confirmation
+   * a déjà été compté (rejeu idempotent).
+   *
+   * @throws IllegalArgumentException si l'agence n'est pas configurée
+   */
+  public void reservationConfirmed(String agency, String hotelCode, String confirmationCode, double totalPrice) {
+    if (hotelCode == null) return;
+    AgencyCounters counters = counters(agency);
+    if (confirmationCode != null && !firstRecord(hotelCode, confirmationCode)) {
+      log.debug("[STATS] Replayed reservation {} not counted again", confirmationCode);
+      return;
+    }
+    long revenueCents = Math.round(totalPrice * 100);
+    long commissionCents = Math.round(revenueCents * commissionRate);
+    for (Counters period : Arrays.asList(counters.total, counters.day(LocalDate.now()))) {
+      HotelCounters hotel = period.hotel(hotelCode);
+      hotel.reservations.increment();
+      hotel.revenueCents.add(revenueCents);
+      hotel.commissionCents.add(commissionCents);
+    }
+  }
+
+  /**
+   * Agrégats d'une agence (type AgencyStats) ; zéros si elle n'a encore rien fait.
+   * Sans période ({@code from} null), totaux depuis la première mise en service ; sinon, activité
+   * des jours {@code from} à {@code to} inclus.
+   *
+   * @throws IllegalArgumentException si la période est inversée ou l'agence n'est pas configurée
+   */
+  public Map<String,Object> stats(String agency, LocalDate from, LocalDate to, boolean includeHotelBreakdown) {
+    if (from != null && (to == null || to.isBefore(from))) {
+      throw new IllegalArgumentException("Invalid dateRange: " + from + " - " + to);
+    }
+    AgencyCounters counters = agencies.get(key(agency));
+    List<Counters> periods = new ArrayList<>();
+    if (counters != null && from == null) {
+      periods.add(counters.total);
+    } else if (counters != null) {
+      // Jours de la période, ou jours enregistrés s'ils sont moins nombreux
+      if (ChronoUnit.DAYS.between(from, to) < counters.days.size()) {
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+          Counters daily = counters.days.get(day);
+          if (daily != null) periods.add(daily);
+        }
+      } else {
+        for (Map.Entry<LocalDate, Counters> day : counters.days.entrySet()) {
+          if (!day.getKey().isBefore(from) && !day.getKey().isAfter(to)) periods.add(day.getValue());
+        }
+      }
+    }
+    long searches = 0;
+    long reservations = 0;
+    long revenueCents = 0;
+    long commissionCents = 0;
+    // hôtel -> réservations, revenu
+    Map<String, long[]> byHotel = new TreeMap<>();
+    for (Counters period : periods) {
+      searches += period.searches.sum();
+      for (Map.Entry<String, HotelCounters> entry : period.hotels.entrySet()) {
+        HotelCounters hotel = entry.getValue();
+        long hotelReservations = hotel.reservations.sum();
+        long hotelRevenueCents = hotel.revenueCents.sum();
+        reservations += hotelReservations;
+        revenueCents += hotelRevenueCents;
+        commissionCents += hotel.commissionCents.sum();
+        long[] totals = byHotel.computeIfAbsent(entry.getKey(), code -> new long[2]);
+        totals[0] += hotelReservations;
+        totals[1] += hotelRevenueCents;
+      }
+    }
+    List<Map<String,Object>> reservationsByHotel = new ArrayList<>();
+    List<Map<String,Object>> revenueByHotel = new ArrayList<>();
+    if (includeHotelBreakdown) {
+      for (Map.Entry<String, long[]> hotel : byHotel.entrySet()) {
+        reservationsByHotel.add(hotelEntry(hotel.getKey(), "count", hotel.getValue()[0]));
+        revenueByHotel.add(hotelEntry(hotel.getKey(), "revenue", hotel.getValue()[1] / 100.0));
+      }
+    }
+    Map<String,Object> stats = new LinkedHashMap<>();
+    stats.put("agencyName", agency);
+    stats.put("totalSearches", searches);
+    stats.put("totalReservations", reservations);
+    stats.put("totalRevenue", revenueCents / 100.0);
+    stats.put("totalCommission", commissionCents / 100.0);
+    stats.put("reservationsByHotel", reservationsByHotel);
+    stats.put("revenueByHotel", revenueByHotel);
+    stats.put("averageReservationValue", reservations > 0 ? revenueCents / 100.0 / reservations : 0.0);
+    stats.put("conversionRate", searches > 0 ? (double) reservations / searches : 0.0);
+    return stats;
+  }
+
+  /** Écrit les compteurs dans un fichier temporaire, puis le renomme sur le snapshot */
+  public synchronized void snapshot() {
+    ObjectNode root = mapper.createObjectNode();
+    root.put("savedAt", System.currentTimeMillis());
+    ObjectNode agenciesNode = root.putObject("agencies");
+    for (Map.Entry<String, AgencyCounters> agency : agencies.entrySet()) {
+      ObjectNode agencyNode = agenciesNode.putObject(agency.getKey());
+      write(agency.getValue().total, agencyNode);
+      ObjectNode daysNode = agencyNode.putObject("days");
+      for (Map.Entry<LocalDate, Counters> day : agency.getValue().days.entrySet()) {
+        write(day.getValue(), daysNode.putObject(day.getKey().toString()));
+      }
+    }
+    ArrayNode codesNode = root.putArray("recordedCodes");
+    synchronized (recordedCodes) {
+      recordedCodes.keySet().forEach(codesNode::add);
+    }
+    Path target = Paths.get(snapshotFile).toAbsolutePath();
+    try {
+      Path tmp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+      mapper.writeValue(tmp.toFile(), root);
+      Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      log.debug("[STATS] Snapshot written to {}", target);
+    } catch (IOException e) {
+      log.warn("[STATS] Snapshot to {} failed: {}", target, e.toString());
+    }
+  }
+
+  private void load() {
+    Path path = Paths.get(snapshotFile).toAbsolutePath();
+    if (!Files.exists(path)) {
+      log.info("[STATS] No snapshot at {} - starting from zero", path);
+      return;
+    }
+    try {
+      JsonNode root = mapper.readTree(path.toFile());
+      JsonNode agenciesNode = root.path("agencies");
+      for (Iterator<Map.Entry<String, JsonNode>> it = agenciesNode.fields(); it.hasNext(); ) {
+        Map.Entry<String, JsonNode> agency = it.next();
+        if (!configured(agency.getKey())) {
+          // Agence retirée de la configuration : ses compteurs ne sont plus lisibles
+          log.warn("[STATS] Snapshot counters of unknown agency '{}' dropped", agency.getKey());
+          continue;
+        }
+        AgencyCounters counters = agencies.computeIfAbsent(key(agency.getKey()), name -> new AgencyCounters());
+        read(agency.getValue(), counters.total);
+        for (Iterator<Map.Entry<String, JsonNode>> days = agency.getValue().path("days").fields(); days.hasNext(); ) {
+          Map.Entry<String, JsonNode> day = days.next();
+          read(day.getValue(), counters.day(LocalDate.parse(day.getKey())));
+        }
+      }
+      synchronized (recordedCodes) {
+        for (JsonNode code : root.path("recordedCodes")) {
+          recordedCodes.put(code.asText(), Boolean.TRUE);
+        }
+      }
+      log.info("[STATS] Snapshot loaded from {}: {} agency(ies)", path, agencies.size());
+    } catch (IOException | DateTimeParseException e) {
+      log.warn("[STATS] Snapshot {} unreadable, starting from zero: {}", path, e.toString());
+    }
+  }
+
+  private static void write(Counters counters, ObjectNode node) {
+    node.put("searches", counters.searches.sum());
+    ObjectNode hotelsNode = node.putObject("hotels");
+    for (Map.Entry<String, HotelCounters> hotel : counters.hotels.entrySet()) {
+      ObjectNode hotelNode = hotelsNode.putObject(hotel.getKey());
+      hotelNode.put("reservations", hotel.getValue().reservations.sum());
+      hotelNode.put("revenueCents", hotel.getValue().revenueCents.sum());
+      hotelNode.put("commissionCents", hotel.getValue().commissionCents.sum());
+    }
+  }
+
+  private static void read(JsonNode node, Counters counters) {
+    counters.searches.add(node.path("searches").asLong());
+    for (Iterator<Map.Entry<String, JsonNode>> hotels = node.path("hotels").fields(); hotels.hasNext(); ) {
+      Map.Entry<String, JsonNode> hotel = hotels.next();
+      HotelCounters hotelCounters = counters.hotel(hotel.getKey());
+      hotelCounters.reservations.add(hotel.getValue().path("reservations").asLong());
+      hotelCounters.revenueCents.add(hotel.getValue().path("revenueCents").asLong());
+      hotelCounters.commissionCents.add(hotel.getValue().path("commissionCents").asLong());
+    }
+  }
+
+  private boolean firstRecord(String hotelCode, String confirmationCode) {
+    synchronized (recordedCodes) {
+      return recordedCodes.put(hotelCode.toLowerCase(Locale.ROOT) + '|' + confirmationCode, Boolean.TRUE) == null;
+    }
+  }
+
+  private AgencyCounters counters(String agency) {
+    return agencies.computeIfAbsent(key(agency), name -> new AgencyCounters());
+  }
+
+  /** Nom de l'agence configurée ; IllegalArgumentException si elle ne l'est pas */
+  private String key(String agency) {
+    String name = profileProperties.profile(agency).getName();
+    // Nom pas encore renseigné par le TcpServer : c'est l'identifiant du profil
+    return name != null ? name : agency;
+  }
+
+  private boolean configured(String agency) {
+    try {
+      profileProperties.profile(agency);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static Map<String,Object> hotelEntry(String hotelId, String name, Object value) {
+    Map<String,Object> entry = new LinkedHashMap<>();
+    entry.put("hotelId", hotelId);
+    entry.put(name, value);
+    return entry;
+  }
+}
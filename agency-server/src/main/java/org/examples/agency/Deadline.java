@@ -0,0 +1,49 @@
+package org.examples.agency;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Échéance de la requête TCP en cours de traitement sur ce thread.
+ * <p>
+ * Le client envoie son budget restant ({@code "timeoutMs"}) avec chaque requête ; l'agence en déduit
+ * une échéance, la transmet aux hôtels (en-tête {@value #HEADER}, budget restant en ms) et
+ * abandonne le traitement dès qu'elle est dépassée ({@link DeadlineExceededException}).
+ */
+public final class Deadline {
+
+  /** En-tête HTTP portant le budget restant (ms) vers les hôtels */
+  public static final String HEADER = "X-Deadline-Ms";
+
+  private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+  private Deadline() {}
+
+  /** Ouvre l'échéance de la requête courante : maintenant + {@code budgetMs} */
+  public static void start(long budgetMs) {
+    CURRENT.set(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs));
+  }
+
+  public static void clear() {
+    CURRENT.remove();
+  }
+
+  /** Échéance courante en {@link System#nanoTime()}, ou null si la requête n'en a pas */
+  public static Long current() {
+    return CURRENT.get();
+  }
+
+  /** Budget restant en ms jusqu'à {@code deadlineNanos} (négatif si dépassé) */
+  public static long remainingMs(long deadlineNanos) {
+    return TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+  }
+
+  /**
+   * @throws DeadlineExceededException si l'échéance de la requête courante est dépassée
+   */
+  public static void check(String step) {
+    Long deadline = CURRENT.get();
+    if (deadline != null && deadline - System.nanoTime() <= 0) {
+      throw new DeadlineExceededException("Deadline exceeded before " + step);
+    }
+  }
+}
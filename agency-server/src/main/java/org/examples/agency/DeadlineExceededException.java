@@ -0,0 +1,12 @@
+package org.examples.agency;
+
+/**
+ * Budget de la requête épuisé : le traitement est abandonné et l'appelant reçoit DEADLINE_EXCEEDED.
+ */
+public class DeadlineExceededException extends RuntimeException {
+  public static final String CODE = "DEADLINE_EXCEEDED";
+
+  public DeadlineExceededException(String message) {
+    super(message);
+  }
+}
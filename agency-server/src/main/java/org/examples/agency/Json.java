@@ -10,6 +10,10 @@ public class Json {
   public static String error(String msg) {
     return "{\"status\":\"error\",\"error\":" + toJson(msg) + "}";
   }
+  // Erreur avec code (ErrorCode du schéma GraphQL, ex. DEADLINE_EXCEEDED)
+  public static String error(String code, String msg) {
+    return "{\"status\":\"error\",\"code\":" + toJson(code) + ",\"error\":" + toJson(msg) + "}";
+  }
 
   @SuppressWarnings("unchecked")
   public static Map<String,Object> minParse(String s) {
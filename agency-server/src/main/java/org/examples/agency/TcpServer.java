@@ -3,7 +3,6 @@ package org.examples.agency;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
@@ -12,22 +11,29 @@ import java.io.*;
 import java.net.ServerSocket;
 import java.net.Socket;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
+/**
+ * Serveur TCP ligne-JSON : un port par agence hébergée ({@link AgencyProfileProperties}),
+ * les connexions de toutes les agences étant servies par le même pool de threads.
+ */
 @Component
 public class TcpServer {
   private static final Logger log = LoggerFactory.getLogger(TcpServer.class);
 
-  @Value("${agency.tcp.port:7070}")
-  private int port;
-
-  private ServerSocket server;
+  private final List<ServerSocket> servers = new ArrayList<>();
   private ExecutorService pool;
   private volatile boolean running = true;
 
   @Autowired
   private AgencyService agencyService;
 
+  @Autowired
+  private AgencyProfileProperties profileProperties;
+
 
   public TcpServer() {
     // Constructor sans arguments pour Spring
@@ -35,33 +41,47 @@ public class TcpServer {
 
   @PostConstruct
   public void start() {
+    if (profileProperties.getProfiles().isEmpty()) {
+      throw new IllegalStateException("No agency configured (agency.profiles.<id>.tcp-port)");
+    }
+    pool = Executors.newCachedThreadPool();
+    for (Map.Entry<String, AgencyProfileProperties.Profile> entry : profileProperties.getProfiles().entrySet()) {
+      AgencyProfileProperties.Profile profile = entry.getValue();
+      if (profile.getName() == null || profile.getName().isEmpty()) {
+        profile.setName(entry.getKey());
+      }
+      listen(profile);
+    }
+  }
+
+  private void listen(AgencyProfileProperties.Profile profile) {
     try {
-      server = new ServerSocket(port);
-      pool = Executors.newCachedThreadPool();
-      Thread acceptor = new Thread(this::acceptLoop, "agency-acceptor");
+      ServerSocket server = new ServerSocket(profile.getTcpPort());
+      servers.add(server);
+      Thread acceptor = new Thread(() -> acceptLoop(server, profile), "agency-acceptor-" + profile.getName());
       // Important: ne pas mettre en daemon pour empêcher l'arrêt du processus Spring Boot
       acceptor.setDaemon(false);
       acceptor.start();
 
-      log.info("[AGENCY-INIT] TCP server listening on port {} using gRPC backend", port);
+      log.info("[AGENCY-INIT] TCP server listening on port {} for {}", profile.getTcpPort(), profile);
     } catch (IOException e) {
-      throw new RuntimeException("Failed to bind TCP port " + port, e);
+      throw new RuntimeException("Failed to bind TCP port " + profile.getTcpPort() + " for " + profile.getName(), e);
     }
   }
 
-  private void acceptLoop() {
+  private void acceptLoop(ServerSocket server, AgencyProfileProperties.Profile profile) {
     while (running) {
       try {
         Socket s = server.accept();
         s.setSoTimeout(15000);
-        pool.submit(() -> handle(s));
+        pool.submit(() -> handle(s, profile));
       } catch (IOException e) {
-        if (running) log.warn("[AGENCY] accept error: {}", e.toString());
+        if (running) log.warn("[AGENCY] {} accept error: {}", profile.getName(), e.toString());
       }
     }
   }
 
-  private void handle(Socket s) {
+  private void handle(Socket s, AgencyProfileProperties.Profile profile) {
     try (BufferedReader in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
          BufferedWriter out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8))) {
       String line;
@@ -70,7 +90,7 @@ public class TcpServer {
 
         // Utiliser AgencyService (avec gRPC)
         if (agencyService != null) {
-          resp = agencyService.handleRequest(line);
+          resp = agencyService.handleRequest(line, profile);
         } else {
           resp = "{\"status\":\"error\",\"message\":\"No service available\"}";
           log.error("[AGENCY] No service available");
@@ -90,7 +110,9 @@ public class TcpServer {
   @PreDestroy
   public void stop() {
     running = false;
-    try { if (server != null) server.close(); } catch (IOException ignore) {}
+    for (ServerSocket server : servers) {
+      try { server.close(); } catch (IOException ignore) {}
+    }
     if (pool != null) pool.shutdownNow();
     log.info("[AGENCY-INIT] TCP server stopped");
   }
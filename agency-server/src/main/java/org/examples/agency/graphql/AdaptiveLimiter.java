@@ -0,0 +1,110 @@
+package org.examples.agency.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Limite adaptative d'appels simultanés vers un serveur d'hôtel (algorithme à gradient de latence).
+ * <p>
+ * Deux moyennes glissantes de la latence sont tenues : une courte (~10 appels) et une longue
+ * (~100 appels, la latence "normale" du serveur). Après chaque réponse :
+ * <pre>
+ *   gradient = clamp(tolerance × longue / courte, 0.5, 1)
+ *   cible    = limite × gradient + √limite
+ *   limite   = lissage de la limite vers la cible, bornée à [min, max]
+ * </pre>
+ * Tant que la latence reste proche de la normale, la limite croît de √limite (marge d'exploration) ;
+ * quand elle grimpe, le gradient tombe sous 1 et la limite se resserre. Un échec ou un délai
+ * dépassé la réduit directement de 10 %. La limite ne croît pas si moins de la moitié est utilisée,
+ * pour ne pas gonfler sans preuve que le serveur tient la charge.
+ */
+public class AdaptiveLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(AdaptiveLimiter.class);
+
+    private static final double SHORT_ALPHA = 2.0 / (10 + 1);
+    private static final double LONG_ALPHA = 2.0 / (100 + 1);
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final double BACKOFF = 0.9;
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+    private double shortRtt = -1;
+    private double longRtt = -1;
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+    }
+
+    /** Prend une place si le nombre d'appels en cours est sous la limite courante */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /** Rend la place prise par {@link #tryAcquire()}, quelle que soit l'issue de l'appel */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /** Réponse du serveur en {@code rttNanos} */
+    public synchronized void onSuccess(long rttNanos) {
+        if (rttNanos <= 0) return;
+        if (longRtt < 0) {
+            shortRtt = longRtt = rttNanos;
+        } else {
+            shortRtt += (rttNanos - shortRtt) * SHORT_ALPHA;
+            longRtt += (rttNanos - longRtt) * LONG_ALPHA;
+            // Après un pic, la référence longue redescend plus vite que sa moyenne seule
+            if (longRtt > 2 * shortRtt) {
+                longRtt *= 0.95;
+            }
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        if (gradient >= 1.0 && inFlight.get() < limit / 2) {
+            return;
+        }
+        double target = limit * gradient + Math.sqrt(limit);
+        update(limit * (1 - SMOOTHING) + target * SMOOTHING);
+    }
+
+    /** Échec ou délai dépassé : signe de surcharge, la limite recule aussitôt */
+    public synchronized void onDropped() {
+        update(limit * BACKOFF);
+    }
+
+    /** Limite courante (entière) */
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void update(double next) {
+        int before = getLimit();
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+        if (getLimit() != before) {
+            log.debug("[LIMITER] {} limit {} -> {} (rtt short={} ms, long={} ms)", name, before, getLimit(),
+                      Math.round(shortRtt / 1_000_000), Math.round(longRtt / 1_000_000));
+        }
+    }
+}
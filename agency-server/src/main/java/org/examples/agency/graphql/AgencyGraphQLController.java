@@ -0,0 +1,236 @@
+package org.examples.agency.graphql;
+
+import org.examples.agency.AgencyProfileProperties;
+import org.examples.agency.AgencyStatsRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API GraphQL de l'agence (POST /graphql), alternative au protocole TCP ligne-JSON.
+ * <p>
+ * Les requêtes ne bloquent aucun thread : les hôtels sont interrogés en parallèle et la réponse
+ * est assemblée quand le dernier a répondu (ou échoué, ou dépassé {@code agency.hotel.call-timeout-ms}).
+ */
+@Controller
+public class AgencyGraphQLController {
+
+    private static final Logger log = LoggerFactory.getLogger(AgencyGraphQLController.class);
+
+    private static final int DEFAULT_MAX_RESULTS = 50;
+    private static final int MAX_RESULTS = 500;
+
+    @Autowired
+    private HotelGraphQLClient client;
+
+    @Autowired
+    private OfferRanking offerRanking;
+
+    @Autowired
+    private AgencyStatsRecorder statsRecorder;
+
+    @Autowired
+    private AgencyProfileProperties profileProperties;
+
+    /**
+     * Recherche dans tous les hôtels de la ville (ou ceux de {@code hotelIds}).
+     * <p>
+     * Chaque hôtel filtre (prix du séjour, catégorie, étoiles), trie par prix et ne renvoie que
+     * {@code maxResults} offres : les offres de l'agence en sont forcément issues, quel que soit
+     * le tri demandé (étoiles et nom sont constants au sein d'un hôtel, départagé par le prix).
+     * Chaque liste est donc déjà dans l'ordre demandé et les listes sont fusionnées sans tri
+     * global. Un hôtel en échec est listé dans {@code hotelErrors} sans faire échouer la recherche.
+     * <p>
+     * Les prix rendus ({@code finalPrice}) et {@code priceRange} sont ceux de l'agence, remise déduite ;
+     * une agence inconnue est refusée.
+     */
+    @QueryMapping
+    @SuppressWarnings("unchecked")
+    public Mono<Map<String, Object>> searchAllHotels(@Argument Map<String, Object> arguments) {
+        Map<String, Object> input = arguments.containsKey("input")
+            ? (Map<String, Object>) arguments.get("input")
+            : arguments;
+        long start = System.nanoTime();
+        double discountRate = profileProperties.profile((String) input.get("agencyName")).getDiscountRate();
+        statsRecorder.searchPerformed((String) input.get("agencyName"));
+        int maxResults = maxResults((Integer) input.get("maxResults"));
+        Map<String, Object> sort = (Map<String, Object>) input.get("sort");
+        String sortField = sort != null ? String.valueOf(sort.get("field")) : "PRICE";
+        boolean descending = sort != null && "DESC".equals(String.valueOf(sort.get("order")));
+
+        Map<String, Object> hotelInput = new HashMap<>();
+        hotelInput.put("city", input.get("city"));
+        hotelInput.put("arrivalDate", input.get("arrivalDate").toString());
+        hotelInput.put("departureDate", input.get("departureDate").toString());
+        hotelInput.put("numPersons", input.get("numPersons"));
+        hotelInput.put("agency", input.get("agencyName"));
+        putIfPresent(hotelInput, "priceRange", hotelPriceRange((Map<String, Object>) input.get("priceRange"), discountRate));
+        putIfPresent(hotelInput, "category", input.get("category"));
+        putIfPresent(hotelInput, "minStars", input.get("minStars"));
+        Map<String, Object> hotelSort = new HashMap<>();
+        hotelSort.put("field", "PRICE");
+        hotelSort.put("direction", "PRICE".equals(sortField) && descending ? "DESC" : "ASC");
+        hotelInput.put("sort", hotelSort);
+
+        return client.searchHotelsAsync(hotelInput, (List<String>) input.get("hotelIds"), maxResults)
+                .collectList()
+                .map(results -> {
+                    List<List<Map<String, Object>>> perHotel = new ArrayList<>();
+                    List<Map<String, Object>> hotelCounts = new ArrayList<>();
+                    List<Map<String, Object>> hotelErrors = new ArrayList<>();
+                    int totalCount = 0;
+                    for (HotelOffers result : results) {
+                        if (result.isFailed()) {
+                            hotelErrors.add(entry("hotelId", result.getHotelCode(), "error", result.getError()));
+                            continue;
+                        }
+                        perHotel.add(result.getOffers());
+                        totalCount += result.getOffers().size();
+                        hotelCounts.add(entry("hotelId", result.getHotelCode(), "count", result.getOffers().size()));
+                    }
+                    // Listes déjà triées par les hôtels : fusion arrêtée au maxResults-ième
+                    List<Map<String, Object>> page = new ArrayList<>();
+                    for (Map<String, Object> offer : SortedMerge.merge(perHotel, comparator(sortField, descending), maxResults)) {
+                        page.add(agencyOffer(offer, discountRate));
+                    }
+
+                    long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    log.info("[AGENCY-API] searchAllHotels '{}' -> {} of {} offer(s), {} hotel(s), {} error(s) in {} ms",
+                             input.get("city"), page.size(), totalCount, hotelCounts.size(), hotelErrors.size(),
+                             durationMs);
+                    Map<String, Object> response = new LinkedHashMap<>();
+                    response.put("offers", page);
+                    response.put("totalCount", totalCount);
+                    response.put("hotelCounts", hotelCounts);
+                    response.put("hotelErrors", hotelErrors);
+                    response.put("searchDurationMs", durationMs);
+                    return response;
+                });
+    }
+
+    /**
+     * Compare des offres déjà reçues (par leur offerId) : classement par valeur et recommandation,
+     * aux prix remisés de l'agence.
+     */
+    @QueryMapping
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> compareOffers(@Argument Map<String, Object> arguments) {
+        Map<String, Object> input = arguments.containsKey("input")
+            ? (Map<String, Object>) arguments.get("input")
+            : arguments;
+        return offerRanking.compare((String) input.get("agencyName"), (List<String>) input.get("offerIds"),
+                                    (List<String>) input.get("criteria"));
+    }
+
+    /**
+     * Statistiques de l'agence, lues sur les compteurs tenus à jour (coût proportionnel au nombre
+     * d'hôtels, et aux jours de dateRange si elle est donnée). Sans dateRange, les totaux couvrent
+     * toute l'activité depuis la mise en service ; avec, l'activité des jours start à end inclus.
+     */
+    @QueryMapping
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> agencyStats(@Argument Map<String, Object> arguments) {
+        Map<String, Object> input = arguments.containsKey("input")
+            ? (Map<String, Object>) arguments.get("input")
+            : arguments;
+        Map<String, Object> dateRange = (Map<String, Object>) input.get("dateRange");
+        LocalDate from = dateRange != null ? (LocalDate) dateRange.get("start") : null;
+        LocalDate to = dateRange != null ? (LocalDate) dateRange.get("end") : null;
+        return statsRecorder.stats((String) input.get("agencyName"), from, to,
+                                   Boolean.TRUE.equals(input.get("includeHotelBreakdown")));
+    }
+
+    private static int maxResults(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return DEFAULT_MAX_RESULTS;
+        }
+        return Math.min(requested, MAX_RESULTS);
+    }
+
+    /**
+     * Ordre des offres de l'agence ; à égalité, le moins cher d'abord.
+     * DISTANCE n'a pas de point de référence dans la requête : tri par prix.
+     */
+    private static Comparator<Map<String, Object>> comparator(String field, boolean descending) {
+        Comparator<Map<String, Object>> byPrice = Comparator.comparingDouble(AgencyGraphQLController::price);
+        Comparator<Map<String, Object>> primary;
+        switch (field) {
+            case "STARS":
+                primary = Comparator.comparingInt(offer -> ((Number) hotel(offer).get("stars")).intValue());
+                break;
+            case "NAME":
+                primary = Comparator.comparing(offer -> String.valueOf(hotel(offer).get("name")),
+                                               String.CASE_INSENSITIVE_ORDER);
+                break;
+            default:
+                primary = byPrice;
+                break;
+        }
+        return (descending ? primary.reversed() : primary).thenComparing(byPrice);
+    }
+
+    private static double price(Map<String, Object> offer) {
+        Object price = offer.get("finalPrice") != null ? offer.get("finalPrice") : offer.get("totalPrice");
+        return ((Number) price).doubleValue();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> hotel(Map<String, Object> offer) {
+        return (Map<String, Object>) offer.get("hotel");
+    }
+
+    /**
+     * Offre de l'hôtel au prix de l'agence, avec les listes obligatoires de HotelInfo que les hôtels
+     * ne renvoient pas. Copie : la réponse d'un hôtel peut être partagée entre requêtes identiques.
+     */
+    private static Map<String, Object> agencyOffer(Map<String, Object> offer, double discountRate) {
+        Map<String, Object> copy = new LinkedHashMap<>(offer);
+        double totalPrice = ((Number) offer.get("totalPrice")).doubleValue();
+        copy.put("discountRate", discountRate);
+        copy.put("finalPrice", totalPrice * (1 - discountRate));
+        if (hotel(offer) != null) {
+            Map<String, Object> hotel = new LinkedHashMap<>(hotel(offer));
+            hotel.putIfAbsent("amenities", Collections.emptyList());
+            hotel.putIfAbsent("images", Collections.emptyList());
+            copy.put("hotel", hotel);
+        }
+        return copy;
+    }
+
+    /**
+     * Fourchette de prix du séjour à transmettre aux hôtels : {@code priceRange} porte sur le prix
+     * remisé, les hôtels filtrent leur prix (entier) avant remise.
+     */
+    private static Map<String, Object> hotelPriceRange(Map<String, Object> priceRange, double discountRate) {
+        if (priceRange == null || discountRate <= 0 || discountRate >= 1) {
+            return priceRange;
+        }
+        double factor = 1 - discountRate;
+        Map<String, Object> hotelRange = new HashMap<>();
+        // Marge d'arrondi : 90 / 0.9 doit rester 100
+        hotelRange.put("minPrice", (int) Math.ceil(((Number) priceRange.get("minPrice")).doubleValue() / factor - 1e-9));
+        hotelRange.put("maxPrice", (int) Math.floor(((Number) priceRange.get("maxPrice")).doubleValue() / factor + 1e-9));
+        return hotelRange;
+    }
+
+    private static void putIfPresent(Map<String, Object> map, String key, Object value) {
+        if (value != null) {
+            map.put(key, value);
+        }
+    }
+
+    private static Map<String, Object> entry(String k1, Object v1, String k2, Object v2) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put(k1, v1);
+        entry.put(k2, v2);
+        return entry;
+    }
+}
@@ -0,0 +1,266 @@
+package org.examples.agency.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketHandler;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Abonnement de l'agence au flux {@code availabilityChanged} de chaque serveur d'hôtel
+ * (subscription GraphQL sur WebSocket, protocole graphql-transport-ws).
+ * <p>
+ * Chaque changement reçu est publié en {@link HotelAvailabilityEvent} : les caches de l'agence
+ * évincent les recherches touchées au lieu d'attendre leur expiration. Le serveur ne rejoue pas
+ * les événements manqués : à chaque coupure, un événement sans dates invalide tous les hôtels du
+ * serveur, puis la connexion est reprise avec un délai croissant (jusqu'à
+ * {@code agency.availability-feed.reconnect-max-ms}). {@link #allLive()} indique aux caches si
+ * tous les hôtels sains sont couverts par un flux actif.
+ */
+@Component
+public class AvailabilityFeedClient {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityFeedClient.class);
+
+    private static final String SUBPROTOCOL = "graphql-transport-ws";
+    private static final String SUBSCRIPTION =
+            "subscription { availabilityChanged { hotelId roomNumber arrivalDate departureDate change } }";
+
+    @Autowired
+    private HotelRegistry registry;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Value("${agency.availability-feed.enabled:true}")
+    private boolean enabled;
+
+    @Value("${agency.availability-feed.path:/graphql-ws}")
+    private String feedPath;
+
+    @Value("${agency.availability-feed.reconnect-max-ms:30000}")
+    private long reconnectMaxMs;
+
+    private final ReactorNettyWebSocketClient webSocketClient = new ReactorNettyWebSocketClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    // Url GraphQL du serveur -> abonnement (reconnecté tant que l'agence tourne)
+    private final Map<String, Disposable> feeds = new ConcurrentHashMap<>();
+    // Serveurs dont l'abonnement est en place (premier pong, ka ou next reçu après le subscribe)
+    private final Set<String> live = ConcurrentHashMap.newKeySet();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong disconnections = new AtomicLong();
+    private ScheduledExecutorService watcher;
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            log.info("[FEED] Availability feed disabled");
+            return;
+        }
+        watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "availability-feed");
+            t.setDaemon(true);
+            return t;
+        });
+        // Nouveaux serveurs (auto-enregistrement) pris en compte au passage suivant
+        watcher.scheduleWithFixedDelay(this::connectAll, 0, 10, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watcher != null) watcher.shutdownNow();
+        feeds.values().forEach(Disposable::dispose);
+    }
+
+    /**
+     * Vrai si au moins un hôtel est sain et que tous les hôtels sains ont un flux actif.
+     */
+    public boolean allLive() {
+        List<String> healthy = registry.healthyHotels();
+        if (healthy.isEmpty()) {
+            return false;
+        }
+        for (String hotelCode : healthy) {
+            if (!live.contains(registry.urlOf(hotelCode))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("servers", feeds.size());
+        stats.put("live", live.size());
+        stats.put("eventsReceived", received.get());
+        stats.put("disconnections", disconnections.get());
+        return stats;
+    }
+
+    private void connectAll() {
+        for (String url : registry.serverUrls()) {
+            feeds.computeIfAbsent(url, this::subscribe);
+        }
+    }
+
+    private Disposable subscribe(String url) {
+        URI uri = feedUri(url);
+        log.info("[FEED] Subscribing to {}", uri);
+        return Mono.defer(() -> webSocketClient.execute(uri, new HttpHeaders(), new FeedHandler(url)))
+                // Fermeture normale ou erreur : dans les deux cas, on se reconnecte
+                .then(Mono.error(() -> new IllegalStateException("feed closed by " + uri)))
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(Duration.ofMillis(reconnectMaxMs)))
+                .subscribe(null, e -> log.warn("[FEED] {} stopped: {}", uri, e.toString()));
+    }
+
+    private URI feedUri(String graphqlUrl) {
+        URI http = URI.create(graphqlUrl);
+        String scheme = "https".equalsIgnoreCase(http.getScheme()) ? "wss" : "ws";
+        return URI.create(scheme + "://" + http.getRawAuthority() + feedPath);
+    }
+
+    /**
+     * Une connexion : init, subscribe après l'ack, puis réception des événements. Le serveur ne
+     * confirme pas l'abonnement : un ping suit le subscribe et sa réponse, traitée après lui, marque
+     * le flux actif.
+     */
+    private final class FeedHandler implements WebSocketHandler {
+
+        private final String url;
+
+        FeedHandler(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public List<String> getSubProtocols() {
+            return Collections.singletonList(SUBPROTOCOL);
+        }
+
+        @Override
+        public Mono<Void> handle(WebSocketSession session) {
+            Sinks.Many<String> outbound = Sinks.many().unicast().onBackpressureBuffer();
+            outbound.tryEmitNext("{\"type\":\"connection_init\"}");
+            Mono<Void> send = session.send(outbound.asFlux().map(session::textMessage));
+            Mono<Void> receive = session.receive()
+                    .map(WebSocketMessage::getPayloadAsText)
+                    .doOnNext(text -> onMessage(text, outbound))
+                    .then()
+                    .doFinally(signal -> {
+                        outbound.tryEmitComplete();
+                        onDisconnected();
+                    });
+            return Mono.when(send, receive);
+        }
+
+        private void onMessage(String text, Sinks.Many<String> outbound) {
+            JsonNode message;
+            try {
+                message = mapper.readTree(text);
+            } catch (Exception e) {
+                log.warn("[FEED] {} invalid message: {}", url, text);
+                return;
+            }
+            String type = message.path("type").asText();
+            switch (type) {
+                case "connection_ack":
+                    outbound.tryEmitNext(subscribeMessage());
+                    outbound.tryEmitNext("{\"type\":\"ping\"}");
+                    break;
+                case "ping":
+                    outbound.tryEmitNext("{\"type\":\"pong\"}");
+                    break;
+                case "pong":
+                case "ka":
+                    onLive();
+                    break;
+                case "next":
+                    onLive();
+                    onChange(message.path("payload").path("data").path("availabilityChanged"));
+                    break;
+                case "error":
+                case "complete":
+                    // Abonnement refusé ou terminé par le serveur : la connexion est reprise
+                    throw new IllegalStateException("subscription " + type + ": " + message.path("payload"));
+                default:
+                    break;
+            }
+        }
+
+        private void onChange(JsonNode change) {
+            if (change.isMissingNode() || change.isNull()) {
+                return;
+            }
+            received.incrementAndGet();
+            HotelAvailabilityEvent event = new HotelAvailabilityEvent(
+                    change.path("hotelId").asText(),
+                    change.path("roomNumber").asInt(),
+                    LocalDate.parse(change.path("arrivalDate").asText()),
+                    LocalDate.parse(change.path("departureDate").asText()),
+                    change.path("change").asText());
+            log.debug("[FEED] {}", event);
+            eventPublisher.publishEvent(event);
+        }
+
+        /**
+         * Abonnement en place : les recherches calculées avant lui ont pu manquer un changement, elles
+         * sont évincées avant que le cache ne les garde plus longtemps.
+         */
+        private void onLive() {
+            if (live.add(url)) {
+                log.info("[FEED] {} live - hotels {}", url, registry.hotelsAt(url));
+                for (String hotelCode : registry.hotelsAt(url)) {
+                    eventPublisher.publishEvent(HotelAvailabilityEvent.feedLive(hotelCode));
+                }
+            }
+        }
+
+        private void onDisconnected() {
+            if (live.remove(url)) {
+                disconnections.incrementAndGet();
+                log.warn("[FEED] {} disconnected - invalidating its hotels", url);
+                for (String hotelCode : registry.hotelsAt(url)) {
+                    eventPublisher.publishEvent(HotelAvailabilityEvent.feedLost(hotelCode));
+                }
+            }
+        }
+
+        private String subscribeMessage() {
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("id", "availability");
+            message.put("type", "subscribe");
+            message.put("payload", Collections.singletonMap("query", SUBSCRIPTION));
+            try {
+                return mapper.writeValueAsString(message);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
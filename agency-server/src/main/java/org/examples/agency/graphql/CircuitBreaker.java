@@ -0,0 +1,148 @@
+package org.examples.agency.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+
+/**
+ * Disjoncteur d'un serveur d'hôtel, sur une fenêtre glissante des {@code windowSize} derniers appels.
+ * <ul>
+ *   <li>CLOSED : les appels passent ; si au moins {@code minCalls} appels de la fenêtre ont abouti
+ *       et que le taux d'échec atteint {@code failureRatePercent}, le disjoncteur s'ouvre.</li>
+ *   <li>OPEN : les appels sont refusés immédiatement pendant {@code openMs}.</li>
+ *   <li>HALF_OPEN : {@code halfOpenCalls} appels d'essai passent ; tous réussis → CLOSED,
+ *       un seul échec → OPEN.</li>
+ * </ul>
+ * Seules les pannes de transport (connexion, délai dépassé, HTTP 5xx) comptent comme échecs ;
+ * une erreur GraphQL métier est une réponse du serveur, donc un succès.
+ */
+public class CircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minCalls;
+    private final int failureRatePercent;
+    private final long openMs;
+    private final int halfOpenCalls;
+
+    // Fenêtre circulaire : true = échec
+    private final boolean[] window;
+    private int position;
+    private int calls;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSuccesses;
+
+    public CircuitBreaker(String name, int windowSize, int minCalls, int failureRatePercent,
+                          long openMs, int halfOpenCalls) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minCalls = Math.max(1, Math.min(minCalls, window.length));
+        this.failureRatePercent = failureRatePercent;
+        this.openMs = openMs;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * Demande le droit d'appeler. Un appel autorisé doit être suivi de {@link #onSuccess()}
+     * ou {@link #onFailure()}, ou de {@link #onIgnored()} s'il n'a pas été jusqu'au serveur.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAt < openMs) {
+                return false;
+            }
+            transition(State.HALF_OPEN);
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                return false;
+            }
+            halfOpenPermits--;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls) {
+                reset();
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+        if (state == State.CLOSED) {
+            record(true);
+            if (calls >= minCalls && failures * 100 >= failureRatePercent * calls) {
+                open();
+            }
+        }
+    }
+
+    /** Appel autorisé mais abandonné avant d'atteindre le serveur : rend le permis d'essai */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenPermits < halfOpenCalls) {
+            halfOpenPermits++;
+        }
+    }
+
+    /** État courant ; un disjoncteur ouvert dont le délai est écoulé est vu HALF_OPEN */
+    public synchronized State state() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int failureRatePercent() {
+        return calls == 0 ? 0 : failures * 100 / calls;
+    }
+
+    private void record(boolean failure) {
+        if (calls == window.length) {
+            if (window[position]) failures--;
+        } else {
+            calls++;
+        }
+        window[position] = failure;
+        if (failure) failures++;
+        position = (position + 1) % window.length;
+    }
+
+    private void open() {
+        openedAt = System.currentTimeMillis();
+        reset();
+        transition(State.OPEN);
+    }
+
+    private void reset() {
+        Arrays.fill(window, false);
+        position = 0;
+        calls = 0;
+        failures = 0;
+    }
+
+    private void transition(State next) {
+        if (state != next) {
+            log.info("[BREAKER] {} {} -> {}", name, state, next);
+            state = next;
+        }
+    }
+}
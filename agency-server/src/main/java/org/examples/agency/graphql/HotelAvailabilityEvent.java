@@ -0,0 +1,52 @@
+package org.examples.agency.graphql;
+
+import java.time.LocalDate;
+
+/**
+ * Disponibilité changée chez un hôtel, reçue du flux {@code availabilityChanged} de son serveur
+ * ({@link AvailabilityFeedClient}) et publiée aux caches de l'agence.
+ * <p>
+ * Sans dates, tout l'hôtel est concerné : le flux a été coupé, ou vient d'être établi, et des
+ * changements ont pu être manqués.
+ */
+public class HotelAvailabilityEvent {
+
+    private final String hotelCode;
+    private final Integer roomNumber;
+    private final LocalDate from;
+    private final LocalDate to;
+    private final String change;
+
+    public HotelAvailabilityEvent(String hotelCode, Integer roomNumber, LocalDate from, LocalDate to, String change) {
+        this.hotelCode = hotelCode;
+        this.roomNumber = roomNumber;
+        this.from = from;
+        this.to = to;
+        this.change = change;
+    }
+
+    /** Flux coupé : tous les séjours de l'hôtel sont à revérifier */
+    public static HotelAvailabilityEvent feedLost(String hotelCode) {
+        return new HotelAvailabilityEvent(hotelCode, null, null, null, "FEED_LOST");
+    }
+
+    /** Flux établi : les changements antérieurs à l'abonnement n'ont pas été reçus */
+    public static HotelAvailabilityEvent feedLive(String hotelCode) {
+        return new HotelAvailabilityEvent(hotelCode, null, null, null, "FEED_LIVE");
+    }
+
+    public String getHotelCode() { return hotelCode; }
+    public Integer getRoomNumber() { return roomNumber; }
+    /** Première nuit concernée, ou null pour tout l'hôtel */
+    public LocalDate getFrom() { return from; }
+    /** Date de départ (exclue), ou null pour tout l'hôtel */
+    public LocalDate getTo() { return to; }
+    /** BOOKED, CANCELLED, HELD, RELEASED, FEED_LIVE ou FEED_LOST */
+    public String getChange() { return change; }
+
+    @Override
+    public String toString() {
+        return "HotelAvailabilityEvent{" + change + ", hotel=" + hotelCode + ", room=" + roomNumber
+            + ", [" + from + ".." + to + ")}";
+    }
+}
@@ -0,0 +1,200 @@
+package org.examples.agency.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Réplique locale des catalogues des hôtels, servie en mémoire à l'op TCP catalog.get.
+ * <p>
+ * Toutes les {@code agency.catalog.sync-interval-ms}, chaque hôtel sain est interrogé en parallèle
+ * avec {@code catalogChanges(since: version de la réplique)} : seuls les types de chambres changés
+ * depuis reviennent, ou tout le catalogue à la première synchronisation (ou si l'hôtel a perdu
+ * son journal). Un hôtel injoignable garde sa dernière copie ; la ville de chaque hôtel alimente
+ * l'index de routage.
+ */
+@Component
+public class HotelCatalogReplica {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelCatalogReplica.class);
+
+    @Autowired
+    private HotelRegistry registry;
+
+    @Autowired
+    private HotelGraphQLClient client;
+
+    @Autowired
+    private HotelCityIndex cityIndex;
+
+    @Value("${agency.catalog.sync-interval-ms:30000}")
+    private long syncIntervalMs;
+
+    /** Copie d'un catalogue, remplacée en bloc à chaque synchronisation */
+    private static final class HotelCatalog {
+        final long version;
+        final Map<String, Object> hotel;
+        final Map<String, Map<String, Object>> roomTypes;
+        final int totalRooms;
+        // Dernière synchronisation réussie, même sans changement
+        volatile long syncedAt;
+
+        HotelCatalog(long version, Map<String, Object> hotel, Map<String, Map<String, Object>> roomTypes,
+                     int totalRooms) {
+            this.version = version;
+            this.hotel = hotel;
+            this.roomTypes = Collections.unmodifiableMap(roomTypes);
+            this.totalRooms = totalRooms;
+            this.syncedAt = System.currentTimeMillis();
+        }
+    }
+
+    private final Map<String, HotelCatalog> catalogs = new ConcurrentHashMap<>();
+    private final AtomicLong fullSyncs = new AtomicLong();
+    private final AtomicLong deltaSyncs = new AtomicLong();
+    private final AtomicLong failedSyncs = new AtomicLong();
+    private ScheduledExecutorService syncer;
+
+    @PostConstruct
+    public void start() {
+        syncer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "catalog-sync");
+            t.setDaemon(true);
+            return t;
+        });
+        syncer.scheduleWithFixedDelay(() -> {
+            try {
+                syncAll();
+            } catch (Exception e) {
+                log.warn("[CATALOG] Sync failed: {}", e.toString());
+            }
+        }, 0, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (syncer != null) syncer.shutdownNow();
+    }
+
+    /**
+     * Synchronise tous les hôtels sains ; bloque jusqu'à la dernière réponse.
+     */
+    public void syncAll() {
+        Flux.fromIterable(registry.healthyHotels())
+                .flatMap(hotelCode -> sync(hotelCode).onErrorResume(e -> {
+                    failedSyncs.incrementAndGet();
+                    log.warn("[CATALOG] {} not synchronized: {}", hotelCode, e.getMessage());
+                    return Mono.empty();
+                }))
+                .then()
+                .block();
+    }
+
+    /** Hôtels répliqués (copies éventuellement anciennes si l'hôtel est injoignable) */
+    public List<String> hotels() {
+        return new ArrayList<>(new TreeSet<>(catalogs.keySet()));
+    }
+
+    /** Fiche répliquée de l'hôtel (HotelInfo), ou null si l'hôtel n'est pas répliqué */
+    public Map<String, Object> hotel(String hotelCode) {
+        HotelCatalog catalog = catalogs.get(hotelCode.toLowerCase(Locale.ROOT));
+        return catalog != null ? catalog.hotel : null;
+    }
+
+    /** Type de chambre répliqué ("T<lits>-<prix>"), ou null */
+    public Map<String, Object> roomType(String hotelCode, String roomTypeId) {
+        HotelCatalog catalog = catalogs.get(hotelCode.toLowerCase(Locale.ROOT));
+        return catalog != null ? catalog.roomTypes.get(roomTypeId) : null;
+    }
+
+    /**
+     * Résumé de chaque hôtel répliqué : version, nombre de types et de chambres, âge de la copie.
+     */
+    public List<Map<String, Object>> summary() {
+        List<Map<String, Object>> summary = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String code : hotels()) {
+            HotelCatalog catalog = catalogs.get(code);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hotelCode", code);
+            entry.put("city", cityOf(catalog.hotel));
+            entry.put("version", catalog.version);
+            entry.put("roomTypes", catalog.roomTypes.size());
+            entry.put("totalRooms", catalog.totalRooms);
+            entry.put("ageMs", now - catalog.syncedAt);
+            summary.add(entry);
+        }
+        return summary;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("hotels", catalogs.size());
+        stats.put("fullSyncs", fullSyncs.get());
+        stats.put("deltaSyncs", deltaSyncs.get());
+        stats.put("failedSyncs", failedSyncs.get());
+        return stats;
+    }
+
+    private Mono<Void> sync(String hotelCode) {
+        HotelCatalog current = catalogs.get(hotelCode);
+        long since = current != null ? current.version : 0L;
+        return client.getCatalogChangesAsync(hotelCode, since)
+                .doOnNext(changes -> apply(hotelCode, current, changes))
+                .then();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void apply(String hotelCode, HotelCatalog current, Map<String, Object> changes) {
+        long version = ((Number) changes.get("version")).longValue();
+        boolean full = Boolean.TRUE.equals(changes.get("full")) || current == null;
+        List<Map<String, Object>> changed = (List<Map<String, Object>>) changes.get("roomTypes");
+        List<String> removed = (List<String>) changes.get("removedRoomTypeIds");
+
+        if (!full && changed.isEmpty() && removed.isEmpty() && version == current.version) {
+            // Inchangé : la copie est à jour et la ville reste valide pour le routage
+            current.syncedAt = System.currentTimeMillis();
+            indexCity(hotelCode, current.hotel);
+            deltaSyncs.incrementAndGet();
+            return;
+        }
+        Map<String, Map<String, Object>> roomTypes = full ? new LinkedHashMap<>() : new LinkedHashMap<>(current.roomTypes);
+        for (Map<String, Object> roomType : changed) {
+            roomTypes.put((String) roomType.get("id"), roomType);
+        }
+        for (String id : removed) {
+            roomTypes.remove(id);
+        }
+        Map<String, Object> hotel = full ? (Map<String, Object>) changes.get("hotel") : current.hotel;
+        catalogs.put(hotelCode, new HotelCatalog(version, hotel, roomTypes, ((Number) changes.get("totalRooms")).intValue()));
+        indexCity(hotelCode, hotel);
+        (full ? fullSyncs : deltaSyncs).incrementAndGet();
+        log.info("[CATALOG] {} -> version {} ({}, {} changed, {} removed, {} room types)", hotelCode, version,
+                 full ? "full" : "delta", changed.size(), removed.size(), roomTypes.size());
+    }
+
+    private void indexCity(String hotelCode, Map<String, Object> hotel) {
+        if (cityOf(hotel) != null) {
+            cityIndex.index(hotelCode, cityOf(hotel));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String cityOf(Map<String, Object> hotel) {
+        Map<String, Object> address = hotel != null ? (Map<String, Object>) hotel.get("address") : null;
+        return address != null ? (String) address.get("city") : null;
+    }
+}
@@ -0,0 +1,152 @@
+package org.examples.agency.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index de routage ville → hôtels, construit à partir des catalogues des hôtels.
+ * <p>
+ * Les villes sont indexées sous une clé normalisée (sans accents, minuscules, tirets et espaces
+ * unifiés) : "Montpellier", "montpellier" et "MONTPÉLLIER" désignent la même entrée. Une recherche
+ * n'est envoyée qu'aux hôtels de la ville demandée, avec le nom de ville tel que l'hôtel le connaît.
+ * <p>
+ * Les villes sans hôtel sont mémorisées dans un cache négatif ({@code agency.routing.negative-ttl-ms})
+ * pour répondre sans aucun appel ; il est vidé dès qu'un hôtel est (ré)indexé. Les entrées d'hôtel
+ * expirent après {@code agency.routing.ttl-ms} et sont alors relues dans le catalogue.
+ */
+@Component
+public class HotelCityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelCityIndex.class);
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[\\s\\-_'\\u2019]+");
+
+    @Value("${agency.routing.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${agency.routing.negative-ttl-ms:60000}")
+    private long negativeTtlMs;
+
+    /** Ville d'un hôtel, telle que renvoyée par son catalogue */
+    private static final class Entry {
+        final String city;
+        final String key;
+        final long indexedAt;
+
+        Entry(String city, long indexedAt) {
+            this.city = city;
+            this.key = normalize(city);
+            this.indexedAt = indexedAt;
+        }
+    }
+
+    // code hôtel → ville ; clé de ville → codes hôtels ; clé de ville → expiration du cache négatif
+    private final Map<String, Entry> hotels = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> cities = new ConcurrentHashMap<>();
+    private final Map<String, Long> negative = new ConcurrentHashMap<>();
+
+    /**
+     * Clé de ville normalisée : sans accents, en minuscules, séparateurs réduits à un espace.
+     */
+    public static String normalize(String city) {
+        if (city == null) return "";
+        String s = Normalizer.normalize(city.trim(), Normalizer.Form.NFD);
+        s = DIACRITICS.matcher(s).replaceAll("");
+        s = SEPARATORS.matcher(s).replaceAll(" ");
+        return s.toLowerCase(Locale.ROOT).trim();
+    }
+
+    /**
+     * Enregistre (ou déplace) un hôtel dans la ville lue dans son catalogue.
+     */
+    public synchronized void index(String hotelCode, String city) {
+        if (hotelCode == null || city == null || city.trim().isEmpty()) return;
+        Entry entry = new Entry(city.trim(), System.currentTimeMillis());
+        Entry previous = hotels.put(hotelCode, entry);
+        if (previous != null && !previous.key.equals(entry.key)) {
+            removeFromCity(hotelCode, previous.key);
+        }
+        cities.computeIfAbsent(entry.key, k -> ConcurrentHashMap.newKeySet()).add(hotelCode);
+        if (previous == null || !previous.key.equals(entry.key)) {
+            negative.clear();
+            log.info("[ROUTING] Hotel '{}' indexed in '{}'", hotelCode, entry.city);
+        }
+    }
+
+    /**
+     * Hôtels de la liste dont l'entrée est absente ou expirée : leur catalogue doit être relu.
+     */
+    public List<String> stale(Collection<String> hotelCodes) {
+        long now = System.currentTimeMillis();
+        List<String> stale = new ArrayList<>();
+        for (String code : hotelCodes) {
+            Entry entry = hotels.get(code);
+            if (entry == null || now - entry.indexedAt > ttlMs) {
+                stale.add(code);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Hôtels indexés dans cette ville, parmi {@code candidates} (les hôtels sains de l'annuaire).
+     * Une ville vide désigne toutes les villes.
+     */
+    public List<String> hotelsIn(String city, Collection<String> candidates) {
+        String key = normalize(city);
+        if (key.isEmpty()) {
+            return new ArrayList<>(candidates);
+        }
+        Set<String> inCity = cities.getOrDefault(key, Collections.emptySet());
+        List<String> routed = new ArrayList<>();
+        for (String code : candidates) {
+            if (inCity.contains(code)) {
+                routed.add(code);
+            }
+        }
+        return routed;
+    }
+
+    /** Ville de l'hôtel telle qu'il l'écrit, ou null s'il n'est pas indexé */
+    public String cityOf(String hotelCode) {
+        Entry entry = hotels.get(hotelCode);
+        return entry != null ? entry.city : null;
+    }
+
+    /** Vrai si la ville est connue pour n'avoir aucun hôtel (cache négatif non expiré) */
+    public boolean isKnownEmpty(String city) {
+        String key = normalize(city);
+        Long expiresAt = negative.get(key);
+        if (expiresAt == null) return false;
+        if (expiresAt < System.currentTimeMillis()) {
+            negative.remove(key, expiresAt);
+            return false;
+        }
+        return true;
+    }
+
+    public void markEmpty(String city) {
+        String key = normalize(city);
+        if (!key.isEmpty()) {
+            negative.put(key, System.currentTimeMillis() + negativeTtlMs);
+        }
+    }
+
+    private void removeFromCity(String hotelCode, String key) {
+        Set<String> inCity = cities.get(key);
+        if (inCity != null) {
+            inCity.remove(hotelCode);
+            if (inCity.isEmpty()) {
+                cities.remove(key);
+            }
+        }
+    }
+}
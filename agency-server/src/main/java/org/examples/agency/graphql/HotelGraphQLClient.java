@@ -1,47 +1,88 @@
 package org.examples.agency.graphql;
 
+import org.examples.agency.Deadline;
+import org.examples.agency.DeadlineExceededException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import javax.annotation.PostConstruct;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 /**
  * Client GraphQL pour communiquer avec les serveurs d'hôtels.
- * Remplace l'ancien HotelGrpcClient.
+ * Remplace l'ancien HotelGrpcClient. Les serveurs viennent de l'annuaire {@link HotelRegistry}.
+ * <p>
+ * Chaque appel passe par le disjoncteur, le bulkhead et la limite adaptative du serveur de l'hôtel
+ * et a un délai maximal ({@code agency.hotel.call-timeout-ms}) ; les recherches interrogent les hôtels en parallèle,
+ * si bien qu'un hôtel lent ou refusé ne retarde pas les réponses des autres.
  */
 @Component
 public class HotelGraphQLClient {
 
     private static final Logger log = LoggerFactory.getLogger(HotelGraphQLClient.class);
 
-    private WebClient operaClient;
-    private WebClient rivageClient;
+    @Autowired
+    private HotelRegistry registry;
 
-    @PostConstruct
-    public void init() {
-        operaClient = WebClient.builder()
-                .baseUrl("http://localhost:8082/graphql")
-                .build();
+    @Autowired
+    private HotelCityIndex cityIndex;
 
-        rivageClient = WebClient.builder()
-                .baseUrl("http://localhost:8084/graphql")
-                .build();
+    @Value("${agency.hotel.call-timeout-ms:5000}")
+    private long callTimeoutMs;
 
-        log.info("[GraphQL-CLIENT] Clients GraphQL initialisés - Opera: 8082, Rivage: 8084");
-    }
+    private static final Comparator<Map<String, Object>> BY_TOTAL_PRICE =
+            Comparator.comparingDouble(offer -> ((Number) offer.get("totalPrice")).doubleValue());
+
+    // Offres complètes (type Offer) pour l'API GraphQL de l'agence
+    private static final String API_SEARCH_QUERY = "query SearchOffers($input: SearchOffersInput!) {" +
+            " searchOffers(input: $input) {" +
+            "  offers {" +
+            "   offerId available" +
+            "   hotel { id name stars address { street city postalCode country } }" +
+            "   room { id category capacity pricePerNight features availableCount images { url } }" +
+            "   arrivalDate departureDate numNights" +
+            "   pricePerNight totalPrice discountRate finalPrice currency" +
+            "  }" +
+            "  totalCount nextCursor" +
+            " }" +
+            "}";
+
+    // Taille de page maximale d'un hôtel (searchOffers) : les pages suivantes sont lues par curseur
+    private static final int HOTEL_MAX_PAGE_SIZE = 100;
+
+    // Lectures identiques en cours (même hôtel, même requête, mêmes variables) : un seul appel partagé
+    private final SingleFlight<String, Map<String, Object>> inFlightQueries = new SingleFlight<>();
 
     /**
      * Récupère le catalogue d'un hôtel - Retourne directement la structure GraphQL
      */
-    @SuppressWarnings("unchecked")
     public Map<String, Object> getCatalog(String hotelCode) {
+        try {
+            Map<String, Object> catalog = getCatalogAsync(hotelCode).block();
+            if (catalog != null) {
+                return catalog;
+            }
+        } catch (Exception e) {
+            log.error("[GraphQL-CLIENT] Error getting catalog for {}: {}", hotelCode, e.getMessage());
+        }
+        return new HashMap<>();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> getCatalogAsync(String hotelCode) {
         log.info("[GraphQL-CLIENT] getCatalog - hotelCode={}", hotelCode);
 
         String query = "query GetCatalog($hotelId: String!) {" +
@@ -55,39 +96,66 @@ public class HotelGraphQLClient {
         Map<String, Object> variables = new HashMap<>();
         variables.put("hotelId", hotelCode);
 
-        WebClient client = getClientForHotel(hotelCode);
-
-        try {
-            Map<String, Object> response = executeQuery(client, query, variables);
+        return coalescedQuery(hotelCode, query, variables).flatMap(response -> {
             Map<String, Object> data = (Map<String, Object>) response.get("data");
-            if (data != null) {
-                return (Map<String, Object>) data.get("hotelCatalog");
+            Map<String, Object> catalog = data != null ? (Map<String, Object>) data.get("hotelCatalog") : null;
+            if (catalog == null) {
+                return Mono.empty();
             }
-        } catch (Exception e) {
-            log.error("[GraphQL-CLIENT] Error getting catalog for {}: {}", hotelCode, e.getMessage());
-        }
-
-        return new HashMap<>();
+            indexCity(hotelCode, catalog);
+            return Mono.just(catalog);
+        });
     }
 
     /**
-     * Recherche des offres disponibles - Retourne directement les offres GraphQL
+     * Changements du catalogue d'un hôtel depuis la version {@code since} (0 : catalogue complet),
+     * pour la réplique {@link HotelCatalogReplica}.
      */
     @SuppressWarnings("unchecked")
-    public List<Map<String, Object>> searchOffers(String ville, LocalDate from, LocalDate to, int nb, String agencyId) {
-        log.info("[GraphQL-CLIENT] searchOffers - ville={}, from={}, to={}, nb={}, agency={}",
-                 ville, from, to, nb, agencyId);
+    public Mono<Map<String, Object>> getCatalogChangesAsync(String hotelCode, long since) {
+        String query = "query CatalogChanges($hotelId: String!, $since: Long!) {" +
+                " catalogChanges(hotelId: $hotelId, since: $since) {" +
+                "  hotelId version full" +
+                "  hotel { id name stars description address { street city postalCode country } }" +
+                "  roomTypes { id category capacity pricePerNight description availableCount images { url } }" +
+                "  removedRoomTypeIds totalRooms" +
+                " }" +
+                "}";
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("hotelId", hotelCode);
+        variables.put("since", since);
+
+        return coalescedQuery(hotelCode, query, variables).flatMap(response -> {
+            Map<String, Object> data = (Map<String, Object>) response.get("data");
+            Map<String, Object> changes = data != null ? (Map<String, Object>) data.get("catalogChanges") : null;
+            return changes != null ? Mono.just(changes) : Mono.empty();
+        });
+    }
+
+    /**
+     * Recherche des offres disponibles - Retourne les offres GraphQL de chaque hôtel interrogé, par
+     * prix total croissant, ou l'erreur qui l'a écarté (appel en échec, refusé, disjoncteur ouvert) :
+     * un résultat sans hôtel en échec est complet. Voir {@link #byTotalPrice} pour la fusion.
+     * <p>
+     * Seule la première page de chaque hôtel (au plus {@code limit} offres) est demandée ici, en
+     * parallèle ; les suivantes ne le sont, sur le thread appelant, que si la fusion les atteint.
+     */
+    public List<HotelOffers> searchOffers(String ville, LocalDate from, LocalDate to, int nb, String agencyId,
+                                          int limit) {
+        log.info("[GraphQL-CLIENT] searchOffers - ville={}, from={}, to={}, nb={}, agency={}, limit={}",
+                 ville, from, to, nb, agencyId, limit);
 
         String query = "query SearchOffers($input: SearchOffersInput!) {" +
                 " searchOffers(input: $input) {" +
                 "  offers {" +
                 "   offerId available" +
                 "   hotel { id name stars address { city } }" +
-                "   room { id category capacity pricePerNight images { url } }" +
+                "   room { id category capacity pricePerNight availableCount images { url } }" +
                 "   arrivalDate departureDate numNights" +
                 "   pricePerNight totalPrice finalPrice currency" +
                 "  }" +
-                "  totalCount" +
+                "  totalCount nextCursor" +
                 " }" +
                 "}";
 
@@ -99,59 +167,263 @@ public class HotelGraphQLClient {
         if (agencyId != null) {
             input.put("agency", agencyId);
         }
+        // Offres de chaque hôtel triées par prix croissant : l'agence n'a plus qu'à fusionner
+        Map<String, Object> sort = new HashMap<>();
+        sort.put("field", "PRICE");
+        sort.put("direction", "ASC");
+        input.put("sort", sort);
+
+        // Un appel par hôtel sain de la ville demandée, limité à cet hôtel (un serveur peut en héberger plusieurs)
+        List<String> routed = route(ville);
+        int firstPageSize = Math.max(1, Math.min(limit, HOTEL_MAX_PAGE_SIZE));
+        List<HotelOffers> perHotel = Flux.fromIterable(routed)
+                .flatMapSequential(hotelCode -> {
+                    Map<String, Object> hotelInput = hotelInput(hotelCode, input, ville);
+                    return searchPage(hotelCode, query, hotelInput, firstPageSize, null)
+                        .map(page -> new HotelPages(hotelCode, query, hotelInput, page, limit).offers)
+                        .onErrorResume(e -> {
+                            log.warn("[GraphQL-CLIENT] Error calling {}: {}", hotelCode, e.getMessage());
+                            return Mono.just(HotelOffers.failed(hotelCode, String.valueOf(e.getMessage())));
+                        });
+                })
+                .collectList()
+                .block();
+        // Offres partielles inutiles si l'appelant a déjà abandonné
+        Deadline.check("returning offers");
 
-        Map<String, Object> variables = new HashMap<>();
-        variables.put("input", input);
+        log.info("[GraphQL-CLIENT] searchOffers found {} offers in first pages",
+                 perHotel.stream().mapToInt(result -> result.getOffers().size()).sum());
+        return perHotel;
+    }
 
-        // Appeler les deux serveurs
-        List<Map<String, Object>> allOffers = new ArrayList<>();
+    /**
+     * Les {@code limit} premières offres de tous les hôtels par prix total croissant (listes déjà
+     * triées par les hôtels). Peut charger des pages suivantes : à appeler sur le thread de la requête,
+     * puis relire {@link HotelOffers#isFailed()}.
+     */
+    public static List<Map<String, Object>> byTotalPrice(List<HotelOffers> perHotel, int limit) {
+        List<Iterable<Map<String, Object>>> sources = new ArrayList<>();
+        for (HotelOffers result : perHotel) {
+            sources.add(result.getSource());
+        }
+        return SortedMerge.merge(sources, BY_TOTAL_PRICE, limit);
+    }
 
-        // Opera
-        try {
-            log.info("[GraphQL-CLIENT] Calling Opera with query variables: {}", variables);
-            Map<String, Object> response = executeQuery(operaClient, query, variables);
-            log.info("[GraphQL-CLIENT] Opera raw response: {}", response);
+    /**
+     * Offres d'un hôtel au fil de ses pages : la page suivante n'est demandée (appel bloquant) que
+     * lorsque la précédente a été entièrement lue, et jamais au-delà de {@code limit} offres.
+     */
+    private final class HotelPages implements Iterable<Map<String, Object>> {
+        private final String hotelCode;
+        private final String query;
+        private final Map<String, Object> hotelInput;
+        private final Map<String, Object> firstPage;
+        private final int limit;
+        final HotelOffers offers;
+
+        HotelPages(String hotelCode, String query, Map<String, Object> hotelInput, Map<String, Object> firstPage,
+                   int limit) {
+            this.hotelCode = hotelCode;
+            this.query = query;
+            this.hotelInput = hotelInput;
+            this.firstPage = firstPage;
+            this.limit = limit;
+            this.offers = HotelOffers.paged(hotelCode, offers(firstPage), this);
+        }
 
-            Map<String, Object> data = (Map<String, Object>) response.get("data");
-            if (data != null) {
-                Map<String, Object> searchResult = (Map<String, Object>) data.get("searchOffers");
-                if (searchResult != null) {
-                    List<Map<String, Object>> offers = (List<Map<String, Object>>) searchResult.get("offers");
-                    if (offers != null) {
-                        log.info("[GraphQL-CLIENT] Opera returned {} offers", offers.size());
-                        allOffers.addAll(offers);
-                    } else {
-                        log.warn("[GraphQL-CLIENT] Opera searchResult.offers is null");
+        @Override
+        public Iterator<Map<String, Object>> iterator() {
+            return new Iterator<Map<String, Object>>() {
+                private Iterator<Map<String, Object>> page = offers(firstPage).iterator();
+                private String cursor = (String) firstPage.get("nextCursor");
+                private int read;
+
+                @Override
+                public boolean hasNext() {
+                    while (read < limit && !page.hasNext() && cursor != null) {
+                        Map<String, Object> next = nextPage(cursor, limit - read);
+                        page = offers(next).iterator();
+                        cursor = (String) next.get("nextCursor");
                     }
-                } else {
-                    log.warn("[GraphQL-CLIENT] Opera data.searchOffers is null");
+                    return read < limit && page.hasNext();
                 }
-            } else {
-                log.warn("[GraphQL-CLIENT] Opera response.data is null");
+
+                @Override
+                public Map<String, Object> next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    read++;
+                    return page.next();
+                }
+            };
+        }
+
+        private Map<String, Object> nextPage(String after, int remaining) {
+            try {
+                return searchPage(hotelCode, query, hotelInput, Math.min(remaining, HOTEL_MAX_PAGE_SIZE), after).block();
+            } catch (DeadlineExceededException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                // Offres déjà lues gardées ; la réponse de l'hôtel est incomplète
+                log.warn("[GraphQL-CLIENT] Error reading next page of {}: {}", hotelCode, e.getMessage());
+                offers.pageFailed(String.valueOf(e.getMessage()));
+                return Collections.emptyMap();
             }
-        } catch (Exception e) {
-            log.error("[GraphQL-CLIENT] Error calling Opera: {}", e.getMessage(), e);
         }
+    }
 
-        // Rivage
-        try {
-            Map<String, Object> response = executeQuery(rivageClient, query, variables);
-            Map<String, Object> data = (Map<String, Object>) response.get("data");
-            if (data != null) {
-                Map<String, Object> searchResult = (Map<String, Object>) data.get("searchOffers");
-                if (searchResult != null) {
-                    List<Map<String, Object>> offers = (List<Map<String, Object>>) searchResult.get("offers");
-                    if (offers != null) {
-                        allOffers.addAll(offers);
+    /**
+     * Recherche de l'API GraphQL de l'agence (searchAllHotels), sans bloquer : les hôtels de la ville
+     * (restreints à {@code hotelIds} s'il est donné) sont interrogés en parallèle avec {@code input}
+     * (SearchOffersInput : filtres et tri compris), jusqu'à {@code maxResults} offres par hôtel.
+     * Un résultat par hôtel, au fil des réponses : ses offres, ou l'erreur qui l'a écarté ; jamais
+     * d'erreur globale.
+     */
+    public Flux<HotelOffers> searchHotelsAsync(Map<String, Object> input, List<String> hotelIds, int maxResults) {
+        String ville = (String) input.get("city");
+        return routeAsync(ville).flatMapMany(routed -> {
+            List<HotelOffers> rejected = new ArrayList<>();
+            List<String> hotels = routed;
+            if (hotelIds != null && !hotelIds.isEmpty()) {
+                hotels = new ArrayList<>();
+                for (String hotelId : hotelIds) {
+                    String code = hotelId.toLowerCase(Locale.ROOT);
+                    if (routed.contains(code)) {
+                        hotels.add(code);
+                    } else {
+                        rejected.add(HotelOffers.failed(hotelId, "Hotel unknown, unavailable or not in " + ville));
                     }
                 }
             }
-        } catch (Exception e) {
-            log.warn("[GraphQL-CLIENT] Error calling Rivage: {}", e.getMessage());
+            return Flux.fromIterable(rejected).concatWith(Flux.fromIterable(hotels)
+                    .flatMap(hotelCode -> searchHotel(hotelCode, API_SEARCH_QUERY, input, ville, maxResults)
+                            .map(offers -> HotelOffers.of(hotelCode, offers))
+                            .onErrorResume(e -> {
+                                log.warn("[GraphQL-CLIENT] Error calling {}: {}", hotelCode, e.getMessage());
+                                return Mono.just(HotelOffers.failed(hotelCode, String.valueOf(e.getMessage())));
+                            })));
+        });
+    }
+
+    /**
+     * Recherche limitée à un hôtel, ses {@code limit} premières offres dans l'ordre demandé : l'hôtel
+     * renvoie des pages d'au plus {@value #HOTEL_MAX_PAGE_SIZE} types de chambre, les suivantes sont
+     * lues avec son {@code nextCursor}. Liste vide si l'hôtel ne renvoie pas de résultat.
+     */
+    private Mono<List<Map<String, Object>>> searchHotel(String hotelCode, String query,
+                                                        Map<String, Object> input, String ville, int limit) {
+        Map<String, Object> hotelInput = hotelInput(hotelCode, input, ville);
+        return Mono.defer(() -> {
+            List<Map<String, Object>> offers = new ArrayList<>();
+            return searchPage(hotelCode, query, hotelInput, Math.min(limit, HOTEL_MAX_PAGE_SIZE), null)
+                    .expand(page -> {
+                        offers.addAll(offers(page));
+                        String nextCursor = (String) page.get("nextCursor");
+                        return nextCursor != null && offers.size() < limit
+                                ? searchPage(hotelCode, query, hotelInput,
+                                             Math.min(limit - offers.size(), HOTEL_MAX_PAGE_SIZE), nextCursor)
+                                : Mono.empty();
+                    })
+                    .then(Mono.fromCallable(() -> {
+                        log.info("[GraphQL-CLIENT] {} returned {} offers", hotelCode, offers.size());
+                        return offers.size() > limit ? new ArrayList<>(offers.subList(0, limit)) : offers;
+                    }));
+        });
+    }
+
+    /**
+     * Entrée de recherche limitée à un hôtel
+     */
+    private Map<String, Object> hotelInput(String hotelCode, Map<String, Object> input, String ville) {
+        Map<String, Object> hotelInput = new HashMap<>(input);
+        hotelInput.put("hotelId", hotelCode);
+        if (ville != null && !ville.isEmpty()) {
+            // Nom de ville tel que l'hôtel le connaît (la requête peut différer en accents/casse)
+            hotelInput.put("city", cityIndex.cityOf(hotelCode));
+        }
+        return hotelInput;
+    }
+
+    /**
+     * Une page de searchOffers (offres et nextCursor) ; page vide si l'hôtel ne renvoie pas de résultat.
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> searchPage(String hotelCode, String query, Map<String, Object> hotelInput,
+                                                 int pageSize, String after) {
+        Map<String, Object> pageInput = new HashMap<>(hotelInput);
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("pageSize", pageSize);
+        if (after != null) {
+            pagination.put("after", after);
         }
+        pageInput.put("pagination", pagination);
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("input", pageInput);
+        return coalescedQuery(hotelCode, query, variables).map(response -> {
+            Map<String, Object> data = (Map<String, Object>) response.get("data");
+            Map<String, Object> searchResult = data != null ? (Map<String, Object>) data.get("searchOffers") : null;
+            if (searchResult == null || searchResult.get("offers") == null) {
+                log.warn("[GraphQL-CLIENT] {} returned no searchOffers data", hotelCode);
+                return Collections.<String, Object>emptyMap();
+            }
+            return searchResult;
+        });
+    }
 
-        log.info("[GraphQL-CLIENT] searchOffers found {} offers total", allOffers.size());
-        return allOffers;
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> offers(Map<String, Object> page) {
+        List<Map<String, Object>> offers = (List<Map<String, Object>>) page.get("offers");
+        return offers != null ? offers : Collections.<Map<String, Object>>emptyList();
+    }
+
+    /**
+     * Hôtels sains à interroger pour une ville, d'après l'index de routage.
+     * <p>
+     * Les hôtels pas encore indexés (ou dont l'entrée a expiré) voient d'abord leur catalogue relu ;
+     * une ville sans hôtel est ensuite servie par le cache négatif, sans aucun appel aux hôtels.
+     */
+    private List<String> route(String ville) {
+        return routeAsync(ville).block();
+    }
+
+    private Mono<List<String>> routeAsync(String ville) {
+        return Mono.defer(() -> {
+            List<String> healthy = registry.healthyHotels();
+            if (ville == null || ville.isEmpty()) {
+                return Mono.just(healthy);
+            }
+            List<String> indexed = cityIndex.hotelsIn(ville, healthy);
+            if (indexed.isEmpty() && cityIndex.isKnownEmpty(ville)) {
+                log.info("[ROUTING] No hotel in '{}' (negative cache)", ville);
+                return Mono.just(indexed);
+            }
+            List<String> stale = cityIndex.stale(healthy);
+            Mono<Void> refresh = Flux.fromIterable(stale)
+                    .flatMap(hotelCode -> getCatalogAsync(hotelCode).onErrorResume(e -> {
+                        log.warn("[ROUTING] Catalog of {} unavailable: {}", hotelCode, e.getMessage());
+                        return Mono.empty();
+                    }))
+                    .then();
+            return refresh.then(Mono.fromCallable(() -> {
+                List<String> routed = stale.isEmpty() ? indexed : cityIndex.hotelsIn(ville, healthy);
+                // Cache négatif seulement si tous les hôtels sains ont pu être indexés (pas de catalogue manquant)
+                if (routed.isEmpty() && (stale.isEmpty() || cityIndex.stale(healthy).isEmpty())) {
+                    cityIndex.markEmpty(ville);
+                }
+                log.info("[ROUTING] '{}' -> {} of {} hotel(s): {}", ville, routed.size(), healthy.size(), routed);
+                return routed;
+            }));
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void indexCity(String hotelCode, Map<String, Object> catalog) {
+        Map<String, Object> hotel = catalog != null ? (Map<String, Object>) catalog.get("hotel") : null;
+        Map<String, Object> address = hotel != null ? (Map<String, Object>) hotel.get("address") : null;
+        if (address != null) {
+            cityIndex.index(hotelCode, (String) address.get("city"));
+        }
     }
 
     /**
@@ -161,19 +433,26 @@ public class HotelGraphQLClient {
     public Map<String, Object> makeReservation(String hotelId, String roomId, String clientName,
                                                String clientFirstName, String clientCard,
                                                LocalDate arrivalDate, LocalDate departureDate,
-                                               int numPersons, String agencyName) {
-        log.info("[GraphQL-CLIENT] makeReservation - hotel={}, room={}, agency={}", hotelId, roomId, agencyName);
+                                               int numPersons, String agencyName, String idempotencyKey,
+                                               String holdId, String offerId) {
+        log.info("[GraphQL-CLIENT] makeReservation - hotel={}, room={}, agency={}, idempotencyKey={}",
+                 hotelId, roomId, agencyName, idempotencyKey);
 
         String mutation = "mutation MakeReservation($input: ReservationInput!) {" +
                 " makeReservation(input: $input) {" +
                 "  reservationId hotelId clientName status totalPrice" +
                 "  createdAt confirmationCode arrivalDate departureDate numPersons" +
+                "  room { id }" +
                 " }" +
                 "}";
 
         Map<String, Object> input = new HashMap<>();
         input.put("hotelId", hotelId);
         input.put("roomId", roomId);
+        // Jeton d'offre signé : l'hôtel vérifie la signature et applique le prix annoncé
+        if (offerId != null && !offerId.isEmpty()) {
+            input.put("offerId", offerId);
+        }
         input.put("clientName", clientName);
         input.put("clientFirstName", clientFirstName);
         input.put("clientCard", clientCard);
@@ -186,13 +465,21 @@ public class HotelGraphQLClient {
             input.put("agencyName", agencyName);
         }
 
+        // Clé d'idempotence : l'hôtel renverra la même confirmation en cas de rejeu
+        if (idempotencyKey != null && !idempotencyKey.isEmpty()) {
+            input.put("idempotencyKey", idempotencyKey);
+        }
+
+        // Hold posé lors de la sélection de l'offre : l'hôtel ne revérifie pas la disponibilité
+        if (holdId != null && !holdId.isEmpty()) {
+            input.put("holdId", holdId);
+        }
+
         Map<String, Object> variables = new HashMap<>();
         variables.put("input", input);
 
-        WebClient client = getClientForHotel(hotelId);
-
         try {
-            Map<String, Object> response = executeQuery(client, mutation, variables);
+            Map<String, Object> response = executeQuery(hotelId, mutation, variables);
             Map<String, Object> data = (Map<String, Object>) response.get("data");
             if (data != null) {
                 return (Map<String, Object>) data.get("makeReservation");
@@ -205,53 +492,214 @@ public class HotelGraphQLClient {
         throw new RuntimeException("Empty response from GraphQL server");
     }
 
-    // ==================== Méthodes utilitaires ====================
-
     /**
-     * Exécute une query/mutation GraphQL
+     * Bloque temporairement une chambre - Retourne le hold GraphQL (holdId, expiresAt, ttlSeconds)
      */
     @SuppressWarnings("unchecked")
-    private Map<String, Object> executeQuery(WebClient client, String query, Map<String, Object> variables) {
-        Map<String, Object> request = new HashMap<>();
-        request.put("query", query);
-        if (variables != null && !variables.isEmpty()) {
-            request.put("variables", variables);
+    public Map<String, Object> holdOffer(String hotelId, String roomId, LocalDate arrivalDate,
+                                         LocalDate departureDate, int numPersons, String agencyName,
+                                         String offerId) {
+        log.info("[GraphQL-CLIENT] holdOffer - hotel={}, room={}, agency={}", hotelId, roomId, agencyName);
+
+        String mutation = "mutation HoldOffer($input: HoldOfferInput!) {" +
+                " holdOffer(input: $input) {" +
+                "  holdId hotelId roomId arrivalDate departureDate numPersons expiresAt ttlSeconds" +
+                " }" +
+                "}";
+
+        Map<String, Object> input = new HashMap<>();
+        input.put("hotelId", hotelId);
+        input.put("roomId", roomId);
+        input.put("arrivalDate", arrivalDate.toString());
+        input.put("departureDate", departureDate.toString());
+        if (numPersons > 0) {
+            input.put("numPersons", numPersons);
+        }
+        if (offerId != null && !offerId.isEmpty()) {
+            input.put("offerId", offerId);
+        }
+        if (agencyName != null && !agencyName.isEmpty()) {
+            input.put("agencyName", agencyName);
         }
 
-        Map<String, Object> response = client.post()
-                .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(request)
-                .retrieve()
-                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
-                .block();
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("input", input);
 
-        if (response == null) {
+        Map<String, Object> response = executeQuery(hotelId, mutation, variables);
+        Map<String, Object> data = (Map<String, Object>) response.get("data");
+        if (data == null || data.get("holdOffer") == null) {
             throw new RuntimeException("Empty response from GraphQL server");
         }
+        return (Map<String, Object>) data.get("holdOffer");
+    }
+
+    /**
+     * Libère un hold avant son expiration
+     */
+    @SuppressWarnings("unchecked")
+    public boolean releaseHold(String hotelId, String holdId) {
+        log.info("[GraphQL-CLIENT] releaseHold - hotel={}, holdId={}", hotelId, holdId);
+
+        String mutation = "mutation ReleaseHold($holdId: String!) { releaseHold(holdId: $holdId) }";
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("holdId", holdId);
+
+        try {
+            Map<String, Object> response = executeQuery(hotelId, mutation, variables);
+            Map<String, Object> data = (Map<String, Object>) response.get("data");
+            return data != null && Boolean.TRUE.equals(data.get("releaseHold"));
+        } catch (Exception e) {
+            log.warn("[GraphQL-CLIENT] Error releasing hold {}: {}", holdId, e.getMessage());
+            return false;
+        }
+    }
+
+    // ==================== Méthodes utilitaires ====================
+
+    /**
+     * Exécute une query/mutation GraphQL sur le serveur de l'hôtel
+     */
+    private Map<String, Object> executeQuery(String hotelCode, String query, Map<String, Object> variables) {
+        return executeQueryAsync(hotelCode, query, variables).block();
+    }
 
-        // Vérifier les erreurs GraphQL
-        if (response.containsKey("errors")) {
-            List<Map<String, Object>> errors = (List<Map<String, Object>>) response.get("errors");
-            String errorMsg = errors.stream()
-                    .map(e -> (String) e.get("message"))
-                    .collect(Collectors.joining(", "));
-            throw new RuntimeException("GraphQL errors: " + errorMsg);
+    /**
+     * Lecture regroupée : les appels identiques simultanés partagent une seule requête vers l'hôtel
+     * ({@link SingleFlight}). La requête partagée porte l'échéance la plus lointaine de ses participants
+     * (transmise à l'hôtel) et est annulée quand le dernier abandonne ; chacun n'attend la réponse
+     * que dans son propre budget.
+     * Réservé aux queries : une mutation passe toujours par {@link #executeQueryAsync}.
+     */
+    private Mono<Map<String, Object>> coalescedQuery(String hotelCode, String query, Map<String, Object> variables) {
+        // Échéance de la requête TCP, lue sur le thread appelant
+        Long deadline = Deadline.current();
+        Mono<Map<String, Object>> shared = inFlightQueries.execute(hotelCode + '|' + query + '|' + variables, deadline,
+                callDeadline -> executeQueryAsync(hotelCode, query, variables, callDeadline));
+        if (deadline == null) {
+            return shared;
+        }
+        return Mono.defer(() -> {
+            long remainingMs = Deadline.remainingMs(deadline);
+            if (remainingMs <= 0) {
+                return Mono.error(new DeadlineExceededException("Deadline exceeded before calling " + hotelCode));
+            }
+            return shared.timeout(Duration.ofMillis(remainingMs),
+                                  Mono.error(() -> new DeadlineExceededException("Deadline exceeded while calling " + hotelCode)));
+        });
+    }
+
+    /**
+     * Compteurs du regroupement des lectures (op agency.metrics).
+     */
+    public Map<String, Object> coalescingStats() {
+        return inFlightQueries.stats();
+    }
+
+    /**
+     * Appel non bloquant, protégé par le disjoncteur et le bulkhead du serveur de l'hôtel.
+     * <p>
+     * Refusé sur-le-champ ({@link HotelUnavailableException}) si le serveur est déjà saturé ou son
+     * disjoncteur ouvert. Une panne de transport, un HTTP 5xx ou le délai dépassé comptent comme
+     * échecs ; une erreur GraphQL est une réponse valide du serveur et ne fait que lever une exception.
+     * <p>
+     * Le budget restant de la requête TCP ({@link Deadline}) borne le délai de l'appel et est transmis
+     * à l'hôtel dans l'en-tête {@value Deadline#HEADER} ; budget épuisé → {@link DeadlineExceededException},
+     * sans compter comme un échec de l'hôtel.
+     */
+    private Mono<Map<String, Object>> executeQueryAsync(String hotelCode, String query, Map<String, Object> variables) {
+        // Échéance de la requête TCP, lue sur le thread appelant
+        return executeQueryAsync(hotelCode, query, variables, Deadline.current());
+    }
+
+    /**
+     * Appel borné par l'échéance {@code deadline} ({@link System#nanoTime()}), ou par le seul
+     * {@code agency.hotel.call-timeout-ms} si elle est null.
+     */
+    @SuppressWarnings("unchecked")
+    private Mono<Map<String, Object>> executeQueryAsync(String hotelCode, String query, Map<String, Object> variables,
+                                                        Long deadline) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("query", query);
+        if (variables != null && !variables.isEmpty()) {
+            request.put("variables", variables);
         }
 
-        return response;
+        return Mono.defer(() -> {
+            long remainingMs = deadline != null ? Deadline.remainingMs(deadline) : Long.MAX_VALUE;
+            if (remainingMs <= 0) {
+                return Mono.error(new DeadlineExceededException("Deadline exceeded before calling " + hotelCode));
+            }
+            boolean boundByDeadline = remainingMs < callTimeoutMs;
+            long timeoutMs = Math.min(remainingMs, callTimeoutMs);
+            HotelRegistry.HotelEndpoint endpoint = endpointFor(hotelCode);
+            endpoint.acquire();
+            long start = System.nanoTime();
+            // Un seul verdict par appel pour le disjoncteur (succès, échec ou abandon)
+            AtomicBoolean recorded = new AtomicBoolean();
+            return endpoint.getClient().post()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(Deadline.HEADER, String.valueOf(timeoutMs))
+                    .bodyValue(request)
+                    .retrieve()
+                    .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                    .timeout(Duration.ofMillis(timeoutMs))
+                    .doOnSuccess(response -> {
+                        if (recorded.compareAndSet(false, true)) {
+                            endpoint.getBreaker().onSuccess();
+                            endpoint.getLimiter().onSuccess(System.nanoTime() - start);
+                            registry.recordSuccess(hotelCode, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        }
+                    })
+                    .doOnError(e -> {
+                        if (!recorded.compareAndSet(false, true)) return;
+                        if (e instanceof TimeoutException && boundByDeadline) {
+                            // Budget de l'appelant épuisé : l'hôtel n'est pas en cause
+                            endpoint.getBreaker().onIgnored();
+                        } else if (e instanceof WebClientResponseException
+                                && !((WebClientResponseException) e).getStatusCode().is5xxServerError()) {
+                            endpoint.getBreaker().onSuccess();
+                        } else {
+                            endpoint.getBreaker().onFailure();
+                            endpoint.getLimiter().onDropped();
+                            registry.recordFailure(hotelCode, e.toString());
+                        }
+                    })
+                    .doOnCancel(() -> {
+                        if (recorded.compareAndSet(false, true)) endpoint.getBreaker().onIgnored();
+                    })
+                    .doFinally(signal -> endpoint.release())
+                    .onErrorMap(e -> e instanceof TimeoutException && boundByDeadline,
+                                e -> new DeadlineExceededException("Deadline exceeded while calling " + hotelCode));
+        }).switchIfEmpty(Mono.error(() -> new RuntimeException("Empty response from GraphQL server")))
+          .map(response -> {
+              // Vérifier les erreurs GraphQL
+              if (response.containsKey("errors")) {
+                  List<Map<String, Object>> errors = (List<Map<String, Object>>) response.get("errors");
+                  for (Map<String, Object> error : errors) {
+                      Map<String, Object> extensions = (Map<String, Object>) error.get("extensions");
+                      if (extensions != null && DeadlineExceededException.CODE.equals(extensions.get("classification"))) {
+                          throw new DeadlineExceededException(hotelCode + ": " + error.get("message"));
+                      }
+                  }
+                  String errorMsg = errors.stream()
+                          .map(e -> (String) e.get("message"))
+                          .collect(Collectors.joining(", "));
+                  throw new RuntimeException("GraphQL errors: " + errorMsg);
+              }
+              return response;
+          });
     }
 
     /**
-     * Sélectionne le client selon l'hôtel
+     * Serveur de l'hôtel dans l'annuaire ; un hôtel absent de l'annuaire est une erreur
      */
-    private WebClient getClientForHotel(String hotelCode) {
-        if ("opera".equalsIgnoreCase(hotelCode)) {
-            return operaClient;
-        } else if ("rivage".equalsIgnoreCase(hotelCode)) {
-            return rivageClient;
-        } else {
-            log.warn("[GraphQL-CLIENT] Unknown hotel code: {}, defaulting to opera", hotelCode);
-            return operaClient;
+    private HotelRegistry.HotelEndpoint endpointFor(String hotelCode) {
+        try {
+            return registry.endpoint(hotelCode);
+        } catch (IllegalArgumentException e) {
+            log.warn("[GraphQL-CLIENT] {}", e.getMessage());
+            throw new RuntimeException(e.getMessage());
         }
     }
 }
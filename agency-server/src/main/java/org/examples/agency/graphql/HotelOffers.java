@@ -0,0 +1,56 @@
+package org.examples.agency.graphql;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Réponse d'un hôtel à une recherche de l'agence : ses offres, ou l'erreur qui l'a écarté.
+ * <p>
+ * Une réponse paginée ({@link #paged}) ne porte que sa première page ; {@link #getSource()} lit les
+ * suivantes à la demande. Une page suivante en échec termine la source et marque la réponse en échec.
+ */
+public class HotelOffers {
+
+    private final String hotelCode;
+    private final List<Map<String, Object>> offers;
+    private final Iterable<Map<String, Object>> source;
+    private volatile String error;
+
+    private HotelOffers(String hotelCode, List<Map<String, Object>> offers, Iterable<Map<String, Object>> source,
+                        String error) {
+        this.hotelCode = hotelCode;
+        this.offers = offers;
+        this.source = source;
+        this.error = error;
+    }
+
+    public static HotelOffers of(String hotelCode, List<Map<String, Object>> offers) {
+        return new HotelOffers(hotelCode, offers, offers, null);
+    }
+
+    /** Première page {@code firstPage} ; {@code source} la relit puis charge les pages suivantes */
+    static HotelOffers paged(String hotelCode, List<Map<String, Object>> firstPage,
+                             Iterable<Map<String, Object>> source) {
+        return new HotelOffers(hotelCode, firstPage, source, null);
+    }
+
+    public static HotelOffers failed(String hotelCode, String error) {
+        List<Map<String, Object>> none = Collections.emptyList();
+        return new HotelOffers(hotelCode, none, none, error);
+    }
+
+    public String getHotelCode() { return hotelCode; }
+    /** Offres dans l'ordre renvoyé par l'hôtel (première page seulement si paginée) ; vide en cas d'erreur */
+    public List<Map<String, Object>> getOffers() { return offers; }
+    /** Toutes les offres dans l'ordre renvoyé par l'hôtel, pages suivantes chargées à la lecture */
+    public Iterable<Map<String, Object>> getSource() { return source; }
+    /** Message d'erreur, ou null si l'hôtel a répondu */
+    public String getError() { return error; }
+    public boolean isFailed() { return error != null; }
+
+    /** Page suivante en échec : les offres déjà lues restent, la réponse est incomplète */
+    void pageFailed(String error) {
+        this.error = error;
+    }
+}
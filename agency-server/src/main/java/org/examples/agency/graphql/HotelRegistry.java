@@ -0,0 +1,473 @@
+package org.examples.agency.graphql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.env.Environment;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import io.netty.channel.ChannelOption;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Annuaire des hôtels partenaires : code hôtel → serveur GraphQL.
+ * <p>
+ * Les hôtels sont déclarés en configuration ({@code agency.hotels.<code>=<url GraphQL>}) ou,
+ * si l'agence l'autorise ({@code agency.registry.self-registration}, désactivé par défaut),
+ * s'enregistrent eux-mêmes au démarrage (op TCP {@code hotel.register}) en présentant le secret
+ * partagé {@code agency.registry.secret}. Un enregistrement ne remplace jamais un hôtel déclaré
+ * en configuration. Plusieurs hôtels servis par le même serveur partagent un seul client et une
+ * seule sonde.
+ * <p>
+ * Chaque serveur est sondé périodiquement par une requête {@code ping} non bloquante ;
+ * la latence est mesurée et, après {@code failure-threshold} échecs consécutifs (sondes ou
+ * appels réels), ses hôtels sont exclus des recherches jusqu'à la prochaine réponse.
+ * <p>
+ * Chaque serveur a aussi son disjoncteur ({@link CircuitBreaker}, {@code agency.breaker.*}) et son
+ * bulkhead ({@code agency.bulkhead.max-concurrent} appels simultanés) : un hôtel lent ou en panne
+ * est refusé immédiatement au lieu d'immobiliser les threads de l'agence. Sous ce plafond, un
+ * {@link AdaptiveLimiter} ajuste le nombre d'appels simultanés à la latence observée du serveur.
+ * <p>
+ * Tous les clients partagent un pool de connexions persistantes ({@code agency.http.*}) ; les appels
+ * passent en HTTP/2 en clair (h2c) et multiplexent alors leurs requêtes sur une connexion par
+ * serveur, et les réponses sont demandées compressées (gzip/deflate).
+ */
+@Component
+public class HotelRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(HotelRegistry.class);
+
+    private static final String PING_QUERY = "{\"query\":\"{ ping(message: \\\"agency\\\") { serverId } }\"}";
+
+    @Autowired
+    private Environment environment;
+
+    @Value("${agency.registry.probe-interval-ms:10000}")
+    private long probeIntervalMs;
+
+    @Value("${agency.registry.probe-timeout-ms:2000}")
+    private long probeTimeoutMs;
+
+    @Value("${agency.registry.failure-threshold:2}")
+    private int failureThreshold;
+
+    @Value("${agency.registry.self-registration:false}")
+    private boolean selfRegistration;
+
+    // Secret que doit présenter un hôtel qui s'enregistre ; vide : aucun enregistrement accepté
+    @Value("${agency.registry.secret:}")
+    private String registrationSecret;
+
+    @Value("${agency.hotel.connect-timeout-ms:1000}")
+    private int connectTimeoutMs;
+
+    @Value("${agency.http.h2c:true}")
+    private boolean h2c;
+
+    @Value("${agency.http.compression:true}")
+    private boolean compression;
+
+    @Value("${agency.http.max-connections:64}")
+    private int maxConnections;
+
+    @Value("${agency.http.pending-acquire-max:256}")
+    private int pendingAcquireMax;
+
+    @Value("${agency.http.max-idle-ms:30000}")
+    private long maxIdleMs;
+
+    @Value("${agency.http.max-life-ms:300000}")
+    private long maxLifeMs;
+
+    @Value("${agency.breaker.window-size:20}")
+    private int breakerWindowSize;
+
+    @Value("${agency.breaker.min-calls:5}")
+    private int breakerMinCalls;
+
+    @Value("${agency.breaker.failure-rate-percent:50}")
+    private int breakerFailureRate;
+
+    @Value("${agency.breaker.open-ms:10000}")
+    private long breakerOpenMs;
+
+    @Value("${agency.breaker.half-open-calls:2}")
+    private int breakerHalfOpenCalls;
+
+    @Value("${agency.bulkhead.max-concurrent:16}")
+    private int bulkheadMaxConcurrent;
+
+    // Par défaut, la limite part du plafond du bulkhead et ne recule qu'au vu des latences
+    @Value("${agency.limiter.initial-limit:${agency.bulkhead.max-concurrent:16}}")
+    private int limiterInitial;
+
+    @Value("${agency.limiter.min-limit:1}")
+    private int limiterMin;
+
+    // code hôtel (minuscules) → serveur ; url → serveur
+    private final Map<String, HotelEndpoint> hotels = new ConcurrentHashMap<>();
+    private final Map<String, HotelEndpoint> endpoints = new ConcurrentHashMap<>();
+    // Hôtels déclarés en configuration (minuscules) : jamais déplacés par un auto-enregistrement
+    private final Set<String> configuredHotels = ConcurrentHashMap.newKeySet();
+
+    private ScheduledExecutorService prober;
+    private ConnectionProvider connections;
+
+    /**
+     * Serveur GraphQL d'un ou plusieurs hôtels, avec son état de santé.
+     */
+    public static final class HotelEndpoint {
+        private final String url;
+        private final WebClient client;
+        private final CircuitBreaker breaker;
+        private final AdaptiveLimiter limiter;
+        private final Semaphore bulkhead;
+        private final int maxConcurrent;
+        private final AtomicLong rejected = new AtomicLong();
+        private volatile boolean healthy = true;
+        private volatile int consecutiveFailures;
+        private volatile long lastLatencyMs = -1;
+        // Moyenne glissante exponentielle des latences (poids 1/5 pour la dernière mesure)
+        private volatile double avgLatencyMs = -1;
+        private volatile long lastCheckAt;
+        private volatile String lastError;
+
+        HotelEndpoint(String url, WebClient client, CircuitBreaker breaker, AdaptiveLimiter limiter,
+                      int maxConcurrent) {
+            this.url = url;
+            this.client = client;
+            this.breaker = breaker;
+            this.limiter = limiter;
+            this.maxConcurrent = maxConcurrent;
+            this.bulkhead = new Semaphore(maxConcurrent);
+        }
+
+        public String getUrl() { return url; }
+        public WebClient getClient() { return client; }
+        public CircuitBreaker getBreaker() { return breaker; }
+        public AdaptiveLimiter getLimiter() { return limiter; }
+        public boolean isHealthy() { return healthy; }
+
+        /**
+         * Réserve une place dans le bulkhead, sous la limite adaptative, et un permis du disjoncteur,
+         * sans attendre.
+         *
+         * @throws HotelUnavailableException si le disjoncteur est ouvert ou le serveur saturé
+         */
+        public void acquire() {
+            if (!bulkhead.tryAcquire()) {
+                rejected.incrementAndGet();
+                throw new HotelUnavailableException("Hotel server busy (" + maxConcurrent + " calls in flight): " + url);
+            }
+            if (!limiter.tryAcquire()) {
+                bulkhead.release();
+                rejected.incrementAndGet();
+                throw new HotelUnavailableException("Hotel server at its concurrency limit ("
+                        + limiter.getLimit() + "): " + url);
+            }
+            if (!breaker.tryAcquire()) {
+                limiter.release();
+                bulkhead.release();
+                rejected.incrementAndGet();
+                throw new HotelUnavailableException("Circuit open for hotel server " + url);
+            }
+        }
+
+        /** Libère les places prises par {@link #acquire()} */
+        public void release() {
+            limiter.release();
+            bulkhead.release();
+        }
+        public long getLastLatencyMs() { return lastLatencyMs; }
+        public double getAvgLatencyMs() { return avgLatencyMs; }
+
+        synchronized void success(long latencyMs) {
+            lastLatencyMs = latencyMs;
+            avgLatencyMs = avgLatencyMs < 0 ? latencyMs : avgLatencyMs * 0.8 + latencyMs * 0.2;
+            consecutiveFailures = 0;
+            lastCheckAt = System.currentTimeMillis();
+            lastError = null;
+            if (!healthy) {
+                healthy = true;
+                log.info("[REGISTRY] {} is back up ({} ms)", url, latencyMs);
+            }
+        }
+
+        synchronized void failure(String error, int threshold) {
+            consecutiveFailures++;
+            lastCheckAt = System.currentTimeMillis();
+            lastError = error;
+            if (healthy && consecutiveFailures >= threshold) {
+                healthy = false;
+                log.warn("[REGISTRY] {} marked unhealthy after {} failures: {}", url, consecutiveFailures, error);
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        Map<String, String> configured = Binder.get(environment)
+                .bind("agency.hotels", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap());
+        configured.forEach((code, url) -> {
+            // Une url vide retire un hôtel déclaré ailleurs (ex. --agency.hotels.rivage=)
+            if (url == null || url.trim().isEmpty()) {
+                log.info("[REGISTRY] Hotel '{}' disabled (empty url)", code);
+            } else {
+                register(code, url.trim());
+                configuredHotels.add(key(code));
+            }
+        });
+        if (hotels.isEmpty()) {
+            log.warn("[REGISTRY] No hotel configured (agency.hotels.<code>=<url>) - waiting for self-registrations");
+        }
+        prober = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "hotel-health");
+            t.setDaemon(true);
+            return t;
+        });
+        prober.scheduleWithFixedDelay(this::probeAll, 0, probeIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("[REGISTRY] {} hotel(s) on {} server(s), probe every {} ms",
+                 hotels.size(), endpoints.size(), probeIntervalMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (prober != null) prober.shutdownNow();
+        if (connections != null) connections.disposeLater().block(Duration.ofSeconds(5));
+    }
+
+    /**
+     * Ajoute ou déplace un hôtel. Un nouveau serveur est considéré sain jusqu'à sa première sonde.
+     */
+    public void register(String hotelCode, String url) {
+        if (hotelCode == null || hotelCode.isEmpty() || url == null || url.isEmpty()) {
+            throw new IllegalArgumentException("hotelId and url are required");
+        }
+        HotelEndpoint endpoint = endpoints.computeIfAbsent(url, this::newEndpoint);
+        HotelEndpoint previous = hotels.put(key(hotelCode), endpoint);
+        if (previous != endpoint) {
+            log.info("[REGISTRY] Hotel '{}' -> {}", key(hotelCode), url);
+        }
+    }
+
+    /**
+     * Enregistrement demandé par un hôtel (op TCP hotel.register), si l'agence l'autorise et que le
+     * secret présenté est le bon. Un hôtel déclaré en configuration garde son url : l'enregistrement
+     * n'est accepté que s'il la confirme.
+     *
+     * @throws IllegalStateException si l'auto-enregistrement est désactivé ou l'hôtel déjà configuré
+     * @throws SecurityException si le secret est absent ou faux
+     */
+    public void selfRegister(String hotelCode, String url, String secret) {
+        if (!selfRegistration || registrationSecret.isEmpty()) {
+            throw new IllegalStateException("Hotel self-registration is disabled");
+        }
+        if (secret == null || !MessageDigest.isEqual(registrationSecret.getBytes(StandardCharsets.UTF_8),
+                                                     secret.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("[REGISTRY] Self-registration of hotel '{}' refused: bad secret", hotelCode);
+            throw new SecurityException("Invalid registration secret");
+        }
+        if (hotelCode != null && configuredHotels.contains(key(hotelCode))) {
+            if (!hotels.get(key(hotelCode)).url.equals(url)) {
+                log.warn("[REGISTRY] Self-registration of hotel '{}' -> {} refused: configured at {}",
+                         key(hotelCode), url, hotels.get(key(hotelCode)).url);
+                throw new IllegalStateException("Hotel " + hotelCode + " is configured by the agency");
+            }
+            return;
+        }
+        register(hotelCode, url);
+    }
+
+    /**
+     * Client GraphQL de l'hôtel.
+     *
+     * @throws IllegalArgumentException si l'hôtel est inconnu de l'agence
+     */
+    public WebClient client(String hotelCode) {
+        return endpoint(hotelCode).getClient();
+    }
+
+    public HotelEndpoint endpoint(String hotelCode) {
+        HotelEndpoint endpoint = hotelCode != null ? hotels.get(key(hotelCode)) : null;
+        if (endpoint == null) {
+            throw new IllegalArgumentException("Unknown hotel: " + hotelCode);
+        }
+        return endpoint;
+    }
+
+    /** Codes de tous les hôtels connus */
+    public List<String> hotels() {
+        return new ArrayList<>(new TreeSet<>(hotels.keySet()));
+    }
+
+    /** Url GraphQL du serveur de l'hôtel, ou null s'il est inconnu */
+    public String urlOf(String hotelCode) {
+        HotelEndpoint endpoint = hotelCode != null ? hotels.get(key(hotelCode)) : null;
+        return endpoint != null ? endpoint.url : null;
+    }
+
+    /** Urls GraphQL des serveurs servant au moins un hôtel */
+    public List<String> serverUrls() {
+        Set<String> urls = new TreeSet<>();
+        for (HotelEndpoint endpoint : hotels.values()) {
+            urls.add(endpoint.url);
+        }
+        return new ArrayList<>(urls);
+    }
+
+    /** Codes des hôtels servis par un serveur */
+    public List<String> hotelsAt(String url) {
+        List<String> codes = new ArrayList<>();
+        for (String code : hotels()) {
+            if (hotels.get(code).url.equals(url)) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /**
+     * Codes des hôtels dont le serveur répond et dont le disjoncteur n'est pas ouvert :
+     * seuls ceux-là reçoivent les recherches
+     */
+    public List<String> healthyHotels() {
+        List<String> codes = new ArrayList<>();
+        for (String code : hotels()) {
+            HotelEndpoint endpoint = hotels.get(code);
+            if (endpoint.isHealthy() && endpoint.breaker.state() != CircuitBreaker.State.OPEN) {
+                codes.add(code);
+            }
+        }
+        return codes;
+    }
+
+    /** Résultat d'un appel réel à l'hôtel : compte comme une sonde */
+    public void recordSuccess(String hotelCode, long latencyMs) {
+        HotelEndpoint endpoint = hotels.get(key(hotelCode));
+        if (endpoint != null) endpoint.success(latencyMs);
+    }
+
+    public void recordFailure(String hotelCode, String error) {
+        HotelEndpoint endpoint = hotels.get(key(hotelCode));
+        if (endpoint != null) endpoint.failure(error, failureThreshold);
+    }
+
+    /**
+     * État de chaque hôtel (serveur, santé, latences), pour l'op TCP hotels.status.
+     */
+    public List<Map<String, Object>> status() {
+        List<Map<String, Object>> status = new ArrayList<>();
+        for (String code : hotels()) {
+            HotelEndpoint endpoint = hotels.get(code);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("hotelId", code);
+            entry.put("url", endpoint.url);
+            entry.put("healthy", endpoint.healthy);
+            entry.put("lastLatencyMs", endpoint.lastLatencyMs);
+            entry.put("avgLatencyMs", Math.round(endpoint.avgLatencyMs));
+            entry.put("consecutiveFailures", endpoint.consecutiveFailures);
+            entry.put("breaker", endpoint.breaker.state().name());
+            entry.put("failureRatePercent", endpoint.breaker.failureRatePercent());
+            entry.put("inFlight", endpoint.maxConcurrent - endpoint.bulkhead.availablePermits());
+            entry.put("concurrencyLimit", endpoint.limiter.getLimit());
+            entry.put("rejected", endpoint.rejected.get());
+            entry.put("lastCheckAt", endpoint.lastCheckAt);
+            if (endpoint.lastError != null) entry.put("lastError", endpoint.lastError);
+            status.add(entry);
+        }
+        return status;
+    }
+
+    /**
+     * Pool commun à tous les serveurs d'hôtels (limites par serveur) : connexions gardées ouvertes
+     * {@code max-idle-ms} sans activité, renouvelées après {@code max-life-ms}, et fermées en tâche
+     * de fond plutôt qu'au moment de les réutiliser.
+     */
+    private synchronized ConnectionProvider connections() {
+        if (connections == null) {
+            connections = ConnectionProvider.builder("hotel-graphql")
+                    .maxConnections(maxConnections)
+                    .pendingAcquireMaxCount(pendingAcquireMax)
+                    .pendingAcquireTimeout(Duration.ofMillis(connectTimeoutMs))
+                    .maxIdleTime(Duration.ofMillis(maxIdleMs))
+                    .maxLifeTime(Duration.ofMillis(maxLifeMs))
+                    .evictInBackground(Duration.ofMillis(maxIdleMs))
+                    .build();
+        }
+        return connections;
+    }
+
+    private HotelEndpoint newEndpoint(String url) {
+        HttpClient http = HttpClient.create(connections())
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .compress(compression);
+        if (h2c) {
+            // HTTP/2 sans TLS, annoncé d'emblée (prior knowledge) : les serveurs d'hôtels l'acceptent
+            http = http.protocol(HttpProtocol.H2C);
+        }
+        WebClient client = WebClient.builder()
+                .baseUrl(url)
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .build();
+        CircuitBreaker breaker = new CircuitBreaker(url, breakerWindowSize, breakerMinCalls,
+                breakerFailureRate, breakerOpenMs, breakerHalfOpenCalls);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(url, limiterInitial, limiterMin, bulkheadMaxConcurrent);
+        return new HotelEndpoint(url, client, breaker, limiter, bulkheadMaxConcurrent);
+    }
+
+    private void probeAll() {
+        for (HotelEndpoint endpoint : new HashSet<>(hotels.values())) {
+            probe(endpoint);
+        }
+    }
+
+    /**
+     * Sonde non bloquante : le résultat met à jour l'état du serveur à son arrivée.
+     */
+    private void probe(HotelEndpoint endpoint) {
+        long start = System.nanoTime();
+        endpoint.client.post()
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(PING_QUERY)
+                .retrieve()
+                .bodyToMono(new ParameterizedTypeReference<Map<String, Object>>() {})
+                .timeout(Duration.ofMillis(probeTimeoutMs))
+                .subscribe(
+                        response -> {
+                            if (response.get("data") != null) {
+                                endpoint.success(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                            } else {
+                                endpoint.failure("ping returned no data", failureThreshold);
+                            }
+                        },
+                        error -> endpoint.failure(error.toString(), failureThreshold));
+    }
+
+    private static String key(String hotelCode) {
+        return hotelCode.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,11 @@
+package org.examples.agency.graphql;
+
+/**
+ * Appel refusé par l'agence sans contacter l'hôtel : disjoncteur ouvert ou bulkhead plein.
+ * Ne compte pas comme un échec du serveur.
+ */
+public class HotelUnavailableException extends RuntimeException {
+    public HotelUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,309 @@
+package org.examples.agency.graphql;
+
+import org.examples.agency.AgencyProfileProperties;
+import org.examples.server.util.OfferToken;
+import org.examples.server.util.OfferTokenCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Classement d'offres pour {@code compareOffers}, sans appel aux hôtels.
+ * <p>
+ * Chaque offre est reconstituée à partir de son jeton signé (hôtel, type de chambre, dates,
+ * personnes, prix) et de la réplique locale des catalogues ({@link HotelCatalogReplica}), au prix
+ * remisé de l'agence qui compare. Son score combine le prix payé par personne et par nuit, les étoiles et l'adéquation de la capacité
+ * au nombre de personnes ; ces scores sont absolus, si bien qu'un seul passage suffit : seules
+ * les {@code agency.compare.max-comparisons} meilleures offres sont gardées (tas borné), avec
+ * les extrêmes de chaque critère pour les points forts et faibles.
+ */
+@Component
+public class OfferRanking {
+
+    private static final Logger log = LoggerFactory.getLogger(OfferRanking.class);
+
+    static final String PRICE = "PRICE";
+    static final String STARS = "STARS";
+    static final String CAPACITY = "CAPACITY";
+
+    // Poids par défaut ; renormalisés sur les critères demandés
+    private static final Map<String, Double> WEIGHTS = new LinkedHashMap<>();
+    static {
+        WEIGHTS.put(PRICE, 0.5);
+        WEIGHTS.put(STARS, 0.3);
+        WEIGHTS.put(CAPACITY, 0.2);
+    }
+
+    // Écart de score entre les deux meilleures offres au-delà duquel la recommandation est sûre
+    private static final double DECISIVE_LEAD = 0.1;
+
+    @Autowired
+    private HotelCatalogReplica catalogReplica;
+
+    @Autowired
+    private AgencyProfileProperties profileProperties;
+
+    @Value("${offer.token.secret}")
+    private String offerTokenSecret;
+
+    @Value("${agency.compare.max-comparisons:10}")
+    private int maxComparisons;
+
+    // Prix par personne et par nuit qui vaut un score prix de 0,5
+    @Value("${agency.compare.price-reference:100}")
+    private double priceReference;
+
+    private OfferTokenCodec offerTokenCodec;
+
+    @PostConstruct
+    public void init() {
+        if (maxComparisons <= 0) {
+            throw new IllegalStateException("agency.compare.max-comparisons must be positive: " + maxComparisons);
+        }
+        offerTokenCodec = new OfferTokenCodec(offerTokenSecret);
+    }
+
+    /** Une offre reconstituée et ses mesures */
+    private static final class Scored {
+        final Map<String, Object> offer;
+        final double pricePerPersonNight;
+        final int stars;
+        final int capacity;
+        final int numPersons;
+        double score;
+
+        Scored(Map<String, Object> offer, double pricePerPersonNight, int stars, int capacity, int numPersons) {
+            this.offer = offer;
+            this.pricePerPersonNight = pricePerPersonNight;
+            this.stars = stars;
+            this.capacity = capacity;
+            this.numPersons = numPersons;
+        }
+
+        double fit() {
+            return capacity > 0 ? Math.min(1.0, (double) numPersons / capacity) : 0.0;
+        }
+
+        double measure(String criterion) {
+            switch (criterion) {
+                case PRICE: return -pricePerPersonNight;
+                case STARS: return stars;
+                default: return fit();
+            }
+        }
+    }
+
+    /**
+     * Compare les offres : les meilleures d'abord, et la recommandation (null si aucune offre
+     * n'est exploitable). Les jetons invalides ou expirés et les hôtels non répliqués sont ignorés.
+     *
+     * @throws IllegalArgumentException si l'agence n'est pas hébergée par ce processus
+     */
+    public Map<String, Object> compare(String agencyName, List<String> offerIds, List<String> criteria) {
+        double discountRate = profileProperties.profile(agencyName).getDiscountRate();
+        Map<String, Double> weights = weights(criteria);
+        // Tas borné des meilleures offres : la racine est la moins bonne des gardées
+        PriorityQueue<Scored> best = new PriorityQueue<>(Math.max(1, maxComparisons),
+                Comparator.comparingDouble(s -> s.score));
+        // Meilleure et pire offre de chaque critère (tas de taille 1)
+        Map<String, Scored> top = new HashMap<>();
+        Map<String, Scored> bottom = new HashMap<>();
+        int compared = 0;
+        int ignored = 0;
+
+        for (String offerId : new LinkedHashSet<>(offerIds)) {
+            Scored scored = score(offerId, discountRate, weights);
+            if (scored == null) {
+                ignored++;
+                continue;
+            }
+            compared++;
+            for (String criterion : WEIGHTS.keySet()) {
+                Scored currentTop = top.get(criterion);
+                if (currentTop == null || scored.measure(criterion) > currentTop.measure(criterion)) {
+                    top.put(criterion, scored);
+                }
+                Scored currentBottom = bottom.get(criterion);
+                if (currentBottom == null || scored.measure(criterion) < currentBottom.measure(criterion)) {
+                    bottom.put(criterion, scored);
+                }
+            }
+            if (best.size() < maxComparisons) {
+                best.add(scored);
+            } else if (scored.score > best.peek().score) {
+                best.poll();
+                best.add(scored);
+            }
+        }
+
+        List<Scored> ranked = new ArrayList<>(best);
+        ranked.sort(Comparator.comparingDouble((Scored s) -> s.score).reversed());
+        List<Map<String, Object>> comparisons = new ArrayList<>();
+        for (Scored scored : ranked) {
+            comparisons.add(comparison(scored, top, bottom, compared));
+        }
+        log.info("[COMPARE] {} offer(s) compared, {} ignored, {} returned", compared, ignored, comparisons.size());
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("comparisons", comparisons);
+        response.put("recommendation", ranked.isEmpty() ? null : recommendation(ranked, comparisons.get(0)));
+        return response;
+    }
+
+    private static Map<String, Double> weights(List<String> criteria) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        if (criteria != null) {
+            for (String criterion : criteria) {
+                String key = criterion.toUpperCase(Locale.ROOT);
+                if (WEIGHTS.containsKey(key)) {
+                    weights.put(key, WEIGHTS.get(key));
+                }
+            }
+        }
+        if (weights.isEmpty()) {
+            weights.putAll(WEIGHTS);
+        }
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        weights.replaceAll((criterion, weight) -> weight / total);
+        return weights;
+    }
+
+    private Scored score(String offerId, double discountRate, Map<String, Double> weights) {
+        OfferToken token;
+        try {
+            token = offerTokenCodec.decode(offerId);
+        } catch (IllegalArgumentException e) {
+            log.info("[COMPARE] Offer ignored: {}", e.getMessage());
+            return null;
+        }
+        Map<String, Object> hotel = catalogReplica.hotel(token.getHotelId());
+        Map<String, Object> room = catalogReplica.roomType(token.getHotelId(), token.getRoomId());
+        if (hotel == null || room == null) {
+            log.info("[COMPARE] Offer ignored: {} / {} not in the catalog replica", token.getHotelId(), token.getRoomId());
+            return null;
+        }
+        long nights = token.getDepartureDate().toEpochDay() - token.getArrivalDate().toEpochDay();
+        int persons = Math.max(1, token.getNumPersons());
+        double totalPrice = token.getTotalPriceCents() / 100.0;
+        double finalPrice = totalPrice * (1 - discountRate);
+        double pricePerPersonNight = finalPrice / (nights * persons);
+        int stars = ((Number) hotel.get("stars")).intValue();
+        int capacity = ((Number) room.get("capacity")).intValue();
+
+        Scored scored = new Scored(offer(offerId, token, hotel, room, nights, totalPrice, discountRate),
+                                   pricePerPersonNight,
+                                   stars, capacity, persons);
+        for (Map.Entry<String, Double> weight : weights.entrySet()) {
+            scored.score += weight.getValue() * criterionScore(weight.getKey(), scored);
+        }
+        return scored;
+    }
+
+    /** Score d'un critère entre 0 et 1, indépendant des autres offres */
+    private double criterionScore(String criterion, Scored s) {
+        switch (criterion) {
+            case PRICE: return priceReference / (priceReference + s.pricePerPersonNight);
+            case STARS: return Math.min(5, Math.max(0, s.stars)) / 5.0;
+            default: return s.fit();
+        }
+    }
+
+    private static Map<String, Object> offer(String offerId, OfferToken token, Map<String, Object> hotel,
+                                             Map<String, Object> room, long nights, double totalPrice,
+                                             double discountRate) {
+        Map<String, Object> hotelInfo = new LinkedHashMap<>(hotel);
+        hotelInfo.putIfAbsent("amenities", Collections.emptyList());
+        hotelInfo.putIfAbsent("images", Collections.emptyList());
+        Map<String, Object> roomType = new LinkedHashMap<>(room);
+        roomType.putIfAbsent("features", Collections.emptyList());
+        roomType.putIfAbsent("images", Collections.emptyList());
+
+        Map<String, Object> offer = new LinkedHashMap<>();
+        offer.put("offerId", offerId);
+        offer.put("hotel", hotelInfo);
+        offer.put("room", roomType);
+        offer.put("arrivalDate", token.getArrivalDate());
+        offer.put("departureDate", token.getDepartureDate());
+        offer.put("numNights", (int) nights);
+        offer.put("pricePerNight", totalPrice / nights);
+        offer.put("totalPrice", totalPrice);
+        offer.put("discountRate", discountRate);
+        offer.put("finalPrice", totalPrice * (1 - discountRate));
+        // Disponibilité garantie par l'hôtel jusqu'à l'expiration du jeton, sauf réservation entre-temps
+        offer.put("available", true);
+        offer.put("currency", "EUR");
+        return offer;
+    }
+
+    private static Map<String, Object> comparison(Scored s, Map<String, Scored> top, Map<String, Scored> bottom,
+                                                  int compared) {
+        List<String> pros = new ArrayList<>();
+        List<String> cons = new ArrayList<>();
+        if (compared > 1) {
+            // Seulement si les offres diffèrent sur le critère (à égalité, personne n'est le meilleur)
+            if (distinct(PRICE, top, bottom) && top.get(PRICE) == s) pros.add("Lowest price per person and night");
+            if (distinct(PRICE, top, bottom) && bottom.get(PRICE) == s) cons.add("Highest price per person and night");
+            if (distinct(STARS, top, bottom) && top.get(STARS) == s) pros.add("Highest rated hotel");
+            if (distinct(STARS, top, bottom) && bottom.get(STARS) == s) cons.add("Lowest rated hotel");
+            if (distinct(CAPACITY, top, bottom) && bottom.get(CAPACITY) == s) cons.add("Worst capacity fit");
+        }
+        if (s.capacity > s.numPersons) {
+            cons.add((s.capacity - s.numPersons) + " unused bed(s)");
+        } else if (s.capacity == s.numPersons) {
+            pros.add("Room sized for the party");
+        }
+
+        List<Map<String, Object>> details = new ArrayList<>();
+        details.add(detail("pricePerPersonNight", String.format(Locale.ROOT, "%.2f", s.pricePerPersonNight)));
+        details.add(detail("stars", String.valueOf(s.stars)));
+        details.add(detail("capacity", s.capacity + " for " + s.numPersons));
+        details.add(detail("capacityFit", String.format(Locale.ROOT, "%.2f", s.fit())));
+
+        Map<String, Object> comparison = new LinkedHashMap<>();
+        comparison.put("offer", s.offer);
+        comparison.put("valueScore", round(s.score));
+        comparison.put("pros", pros);
+        comparison.put("cons", cons);
+        comparison.put("comparisonDetails", details);
+        return comparison;
+    }
+
+    private static boolean distinct(String criterion, Map<String, Scored> top, Map<String, Scored> bottom) {
+        return top.get(criterion).measure(criterion) != bottom.get(criterion).measure(criterion);
+    }
+
+    /**
+     * La mieux classée ; la confiance croît avec son avance sur la deuxième
+     * (pleine à partir de {@link #DECISIVE_LEAD}, totale s'il n'y a qu'une offre).
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> recommendation(List<Scored> ranked, Map<String, Object> bestComparison) {
+        Scored bestOffer = ranked.get(0);
+        double lead = ranked.size() > 1 ? bestOffer.score - ranked.get(1).score : DECISIVE_LEAD;
+        List<String> pros = (List<String>) bestComparison.get("pros");
+
+        Map<String, Object> recommendation = new LinkedHashMap<>();
+        recommendation.put("bestOffer", bestOffer.offer);
+        recommendation.put("reason", pros.isEmpty()
+                ? "Best overall value score"
+                : "Best overall value score: " + String.join(", ", pros).toLowerCase(Locale.ROOT));
+        recommendation.put("confidenceScore", round(0.5 + 0.5 * Math.min(1.0, lead / DECISIVE_LEAD)));
+        return recommendation;
+    }
+
+    private static Map<String, Object> detail(String key, String value) {
+        Map<String, Object> detail = new LinkedHashMap<>();
+        detail.put("key", key);
+        detail.put("value", value);
+        return detail;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
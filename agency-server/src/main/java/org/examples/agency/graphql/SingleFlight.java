@@ -0,0 +1,149 @@
+package org.examples.agency.graphql;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Regroupement des appels identiques simultanés ("single flight").
+ * <p>
+ * Le premier appelant d'une clé lance l'appel ; ceux qui arrivent avant sa réponse s'y abonnent et
+ * reçoivent le même résultat (ou la même erreur). La clé est libérée dès la réponse : aucun résultat
+ * n'est conservé au-delà, c'est le rôle des caches.
+ * <p>
+ * L'appel partagé porte l'échéance la plus lointaine de ses participants : un appelant dont
+ * l'échéance dépasse celle de l'appel en cours en lance un nouveau, que rejoignent les suivants.
+ * Un abonné qui abandonne n'annule pas l'appel partagé tant que d'autres l'attendent ; le dernier
+ * qui part l'annule. À réserver aux lectures, jamais aux mutations.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Flight> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    /** Appel sans échéance (borné par le seul délai de l'appel lui-même) */
+    public Mono<V> execute(K key, Supplier<Mono<V>> call) {
+        return execute(key, null, deadline -> call.get());
+    }
+
+    /**
+     * @param deadline échéance de l'appelant ({@link System#nanoTime()}), ou null s'il n'en a pas
+     * @param call     lance l'appel partagé avec son échéance (null : aucune)
+     */
+    public Mono<V> execute(K key, Long deadline, Function<Long, Mono<V>> call) {
+        return Mono.defer(() -> {
+            requests.increment();
+            while (true) {
+                Flight existing = inFlight.get(key);
+                if (existing != null && existing.join(deadline)) {
+                    coalesced.increment();
+                    return existing.follow();
+                }
+                Flight created = new Flight(key, deadline);
+                boolean registered = existing == null
+                        ? inFlight.putIfAbsent(key, created) == null
+                        : inFlight.replace(key, existing, created);
+                if (registered) {
+                    created.start(call.apply(deadline));
+                    return created.follow();
+                }
+            }
+        });
+    }
+
+    /**
+     * Compteurs : appels reçus, appels partagés (sans appel propre) et taux de regroupement.
+     */
+    public Map<String, Object> stats() {
+        long total = requests.sum();
+        long shared = coalesced.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("requests", total);
+        stats.put("upstreamCalls", total - shared);
+        stats.put("coalesced", shared);
+        stats.put("coalescingRatio", total == 0 ? 0.0 : Math.round(shared * 1000.0 / total) / 1000.0);
+        stats.put("inFlight", inFlight.size());
+        return stats;
+    }
+
+    /** Un appel partagé et le nombre d'appelants qui l'attendent encore */
+    private final class Flight {
+        private final K key;
+        private final Long deadline;
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        // Protégés par le moniteur du Flight
+        private int participants = 1;
+        private boolean closed;
+        // Tous les appelants sont partis avant la réponse
+        private boolean abandoned;
+        private Disposable upstream;
+
+        Flight(K key, Long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+
+        /** Rejoint l'appel s'il est encore en cours et que son échéance couvre celle de l'appelant */
+        synchronized boolean join(Long callerDeadline) {
+            boolean covered = deadline == null || (callerDeadline != null && callerDeadline - deadline <= 0);
+            if (closed || !covered) {
+                return false;
+            }
+            participants++;
+            return true;
+        }
+
+        void start(Mono<V> call) {
+            Disposable subscription = call.subscribe(
+                    value -> complete(() -> result.complete(value)),
+                    error -> complete(() -> result.completeExceptionally(error)),
+                    // Réponse vide
+                    () -> complete(() -> result.complete(null)));
+            synchronized (this) {
+                if (abandoned) {
+                    subscription.dispose();
+                } else {
+                    upstream = subscription;
+                }
+            }
+        }
+
+        // Étape dépendante : l'annulation d'un abonné n'annule pas le futur partagé
+        Mono<V> follow() {
+            return Mono.fromFuture(result.thenApply(Function.identity())).doOnCancel(this::leave);
+        }
+
+        private void complete(Runnable completion) {
+            synchronized (this) {
+                closed = true;
+            }
+            inFlight.remove(key, this);
+            completion.run();
+        }
+
+        private void leave() {
+            Disposable toCancel;
+            synchronized (this) {
+                if (--participants > 0 || closed) {
+                    return;
+                }
+                closed = true;
+                abandoned = true;
+                toCancel = upstream;
+            }
+            inFlight.remove(key, this);
+            if (toCancel != null) {
+                toCancel.dispose();
+            }
+            result.cancel(false);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.examples.agency.graphql;
+
+import java.util.*;
+
+/**
+ * Fusion de listes déjà triées (une par hôtel) par un tas des têtes de liste.
+ * <p>
+ * Chaque élément produit coûte O(log k) pour k listes, et la fusion s'arrête dès {@code limit}
+ * éléments : un top 20 ne lit qu'une vingtaine d'offres, quelle que soit la taille des listes.
+ * Les sources sont lues par leur itérateur, élément par élément : une source paginée ne charge
+ * sa page suivante que si la fusion en a besoin.
+ */
+public final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    /** Position de lecture dans une liste */
+    private static final class Cursor<T> {
+        final int rank;
+        final Iterator<? extends T> rest;
+        T head;
+
+        Cursor(int rank, Iterator<? extends T> rest) {
+            this.rank = rank;
+            this.rest = rest;
+            this.head = rest.next();
+        }
+
+        boolean advance() {
+            if (!rest.hasNext()) {
+                return false;
+            }
+            head = rest.next();
+            return true;
+        }
+    }
+
+    /**
+     * Les {@code limit} premiers éléments de la fusion, dans l'ordre de {@code comparator}.
+     * Chaque source doit être triée selon ce même ordre ; à égalité, la source de rang le plus
+     * faible passe d'abord.
+     */
+    public static <T> List<T> merge(List<? extends Iterable<? extends T>> sortedLists,
+                                    Comparator<? super T> comparator, int limit) {
+        PriorityQueue<Cursor<T>> heap = new PriorityQueue<>(Math.max(1, sortedLists.size()),
+                (a, b) -> {
+                    int order = comparator.compare(a.head, b.head);
+                    return order != 0 ? order : Integer.compare(a.rank, b.rank);
+                });
+        for (int i = 0; i < sortedLists.size() && limit > 0; i++) {
+            Iterator<? extends T> source = sortedLists.get(i).iterator();
+            if (source.hasNext()) {
+                heap.add(new Cursor<T>(i, source));
+            }
+        }
+        List<T> merged = new ArrayList<>(Math.min(limit, 1024));
+        while (merged.size() < limit && !heap.isEmpty()) {
+            Cursor<T> cursor = heap.poll();
+            merged.add(cursor.head);
+            // Pas de lecture au-delà du dernier élément rendu
+            if (merged.size() < limit && cursor.advance()) {
+                heap.add(cursor);
+            }
+        }
+        return merged;
+    }
+}
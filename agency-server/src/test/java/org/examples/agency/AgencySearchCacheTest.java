@@ -0,0 +1,187 @@
+package org.examples.agency;
+
+import org.examples.agency.graphql.AvailabilityFeedClient;
+import org.examples.agency.graphql.HotelAvailabilityEvent;
+import org.examples.agency.graphql.HotelCityIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AgencySearchCacheTest {
+
+    private static final LocalDate FROM = LocalDate.of(2026, 7, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 7, 4);
+    private static final int ALL = Integer.MAX_VALUE;
+
+    private AgencySearchCache cache;
+    private AvailabilityFeedClient feed;
+
+    @BeforeEach
+    void setUp() {
+        feed = mock(AvailabilityFeedClient.class);
+        HotelCityIndex cityIndex = mock(HotelCityIndex.class);
+        when(cityIndex.cityOf("opera")).thenReturn("Montpellier");
+        when(cityIndex.cityOf("rivage")).thenReturn("Montpellier");
+        when(cityIndex.cityOf("ritz")).thenReturn("Paris");
+
+        cache = new AgencySearchCache();
+        ReflectionTestUtils.setField(cache, "ttlMs", 10_000L);
+        ReflectionTestUtils.setField(cache, "feedTtlMs", 300_000L);
+        ReflectionTestUtils.setField(cache, "maxEntries", 3);
+        ReflectionTestUtils.setField(cache, "availabilityFeed", feed);
+        ReflectionTestUtils.setField(cache, "cityIndex", cityIndex);
+    }
+
+    @Test
+    void keyIgnoresAccentsAndCase() {
+        assertThat(AgencySearchCache.key("Béziers", FROM, TO, 2, "mega"))
+            .isEqualTo(AgencySearchCache.key("  BEZIERS ", FROM, TO, 2, "mega"));
+        assertThat(AgencySearchCache.key("Montpellier", FROM, TO, 2, "mega"))
+            .isNotEqualTo(AgencySearchCache.key("Montpellier", FROM, TO, 2, "super"));
+    }
+
+    @Test
+    void bookingInTheHotelEvictsOnlyOverlappingStays() {
+        String overlapping = put("Montpellier", FROM, TO, "opera");
+        String later = put("Montpellier", TO, TO.plusDays(2), "opera");
+
+        cache.onAvailabilityChanged(new HotelAvailabilityEvent("OPERA", 12, TO.minusDays(1), TO, "BOOKED"));
+
+        assertThat(cache.get(overlapping, ALL)).isNull();
+        assertThat(cache.get(later, ALL)).isNotNull();
+    }
+
+    @Test
+    void releaseEvictsSearchesOfTheHotelCityEvenWithoutItsOffers() {
+        // Une chambre libérée chez opera peut ajouter une offre aux recherches de Montpellier
+        String sameCity = put("Montpellier", FROM, TO, "rivage");
+        String allCities = put(null, FROM, TO, "ritz");
+        String otherCity = put("Paris", FROM, TO, "ritz");
+
+        cache.invalidate("opera", FROM, TO);
+
+        assertThat(cache.get(sameCity, ALL)).isNull();
+        assertThat(cache.get(allCities, ALL)).isNull();
+        assertThat(cache.get(otherCity, ALL)).isNotNull();
+    }
+
+    @Test
+    void lostFeedEvictsEveryStayOfTheHotel() {
+        String first = put("Montpellier", FROM, TO, "opera");
+        String later = put("Montpellier", FROM.plusMonths(1), TO.plusMonths(1), "opera");
+
+        cache.onAvailabilityChanged(HotelAvailabilityEvent.feedLost("opera"));
+
+        assertThat(cache.get(first, ALL)).isNull();
+        assertThat(cache.get(later, ALL)).isNull();
+    }
+
+    @Test
+    void feedGoingLiveEvictsSearchesComputedBeforeIt() {
+        long version = cache.version();
+        String cached = put("Montpellier", FROM, TO, "opera");
+
+        cache.onAvailabilityChanged(HotelAvailabilityEvent.feedLive("opera"));
+        // Recherche commencée avant l'abonnement, terminée après
+        String inFlight = AgencySearchCache.key("Montpellier", FROM.plusDays(1), TO, 2, "mega");
+        cache.put(inFlight, FROM.plusDays(1), TO, offers("opera"), ALL, version);
+
+        assertThat(cache.get(cached, ALL)).isNull();
+        assertThat(cache.get(inFlight, ALL)).isNull();
+    }
+
+    @Test
+    void resultComputedBeforeAnInvalidationIsNotCached() {
+        long version = cache.version();
+        cache.invalidate("ritz", FROM, TO);
+
+        String key = AgencySearchCache.key("Montpellier", FROM, TO, 2, "mega");
+        cache.put(key, FROM, TO, offers("opera"), ALL, version);
+
+        assertThat(cache.get(key, ALL)).isNull();
+    }
+
+    @Test
+    void entriesExpireAfterTheTtlWithoutFeed() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMs", 50L);
+        String key = put("Montpellier", FROM, TO, "opera");
+
+        assertThat(cache.get(key, ALL)).isNotNull();
+        Thread.sleep(80);
+        assertThat(cache.get(key, ALL)).isNull();
+    }
+
+    @Test
+    void liveFeedKeepsEntriesForTheFeedTtl() throws InterruptedException {
+        ReflectionTestUtils.setField(cache, "ttlMs", 50L);
+        when(feed.allLive()).thenReturn(true);
+        String key = put("Montpellier", FROM, TO, "opera");
+
+        Thread.sleep(80);
+        assertThat(cache.get(key, ALL)).isNotNull();
+    }
+
+    @Test
+    void leastRecentlyServedSearchIsEvictedFirst() {
+        String first = put("Montpellier", FROM, TO, "opera");
+        String second = put("Montpellier", FROM.plusDays(1), TO, "opera");
+        String third = put("Montpellier", FROM.plusDays(2), TO, "opera");
+        cache.get(first, ALL);
+
+        String fourth = put("Montpellier", FROM.plusDays(3), TO.plusDays(1), "opera");
+
+        assertThat(cache.get(second, ALL)).isNull();
+        assertThat(cache.get(first, ALL)).isNotNull();
+        assertThat(cache.get(third, ALL)).isNotNull();
+        assertThat(cache.get(fourth, ALL)).isNotNull();
+    }
+
+    @Test
+    void boundedSearchOnlyServesSmallerOrEqualLimits() {
+        String key = AgencySearchCache.key("Montpellier", FROM, TO, 2, "mega");
+        List<Map<String, Object>> offers = new ArrayList<>();
+        offers.addAll(offers("opera"));
+        offers.addAll(offers("rivage"));
+        offers.addAll(offers("opera"));
+        cache.put(key, FROM, TO, offers, 3, cache.version());
+
+        assertThat(cache.get(key, 2)).hasSize(2);
+        assertThat(cache.get(key, 3)).hasSize(3);
+        // Les offres au-delà des 3 premières n'ont pas été lues
+        assertThat(cache.get(key, 5)).isNull();
+    }
+
+    @Test
+    void boundedSearchShorterThanItsLimitIsComplete() {
+        String key = AgencySearchCache.key("Montpellier", FROM, TO, 2, "mega");
+        cache.put(key, FROM, TO, offers("opera"), 3, cache.version());
+
+        assertThat(cache.get(key, ALL)).hasSize(1);
+    }
+
+    private String put(String city, LocalDate from, LocalDate to, String hotel) {
+        String key = AgencySearchCache.key(city, from, to, 2, "mega");
+        cache.put(key, from, to, offers(hotel), ALL, cache.version());
+        return key;
+    }
+
+    private static List<Map<String, Object>> offers(String hotelCode) {
+        Map<String, Object> hotel = new LinkedHashMap<>();
+        hotel.put("id", hotelCode.toUpperCase());
+        Map<String, Object> offer = new LinkedHashMap<>();
+        offer.put("hotel", hotel);
+        offer.put("totalPrice", 240.0);
+        return Collections.singletonList(offer);
+    }
+}
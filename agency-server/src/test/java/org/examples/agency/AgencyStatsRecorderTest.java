@@ -0,0 +1,54 @@
+package org.examples.agency;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.InstanceOfAssertFactories.MAP;
+
+class AgencyStatsRecorderTest {
+
+    private AgencyStatsRecorder recorder;
+
+    @BeforeEach
+    void setUp() {
+        AgencyProfileProperties.Profile mega = new AgencyProfileProperties.Profile();
+        mega.setName("MegaAgence");
+        AgencyProfileProperties profiles = new AgencyProfileProperties();
+        profiles.setProfiles(Collections.singletonMap("mega", mega));
+
+        recorder = new AgencyStatsRecorder();
+        ReflectionTestUtils.setField(recorder, "profileProperties", profiles);
+        ReflectionTestUtils.setField(recorder, "commissionRate", 0.10);
+        ReflectionTestUtils.setField(recorder, "maxRecordedCodes", 100);
+    }
+
+    @Test
+    void profileIdAndNameShareTheSameCounters() {
+        recorder.searchPerformed("mega");
+        recorder.searchPerformed("MegaAgence");
+        recorder.reservationConfirmed("MegaAgence", "opera", "C-1", 300.0);
+
+        Map<String, Object> stats = recorder.stats("mega", null, null, false);
+
+        assertThat(stats).containsEntry("totalSearches", 2L)
+                         .containsEntry("totalReservations", 1L)
+                         .containsEntry("totalCommission", 30.0);
+    }
+
+    @Test
+    void unknownAgencyIsRejectedWithoutAddingCounters() {
+        assertThatThrownBy(() -> recorder.searchPerformed("Invented")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recorder.reservationConfirmed("Invented", "opera", "C-2", 100.0))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> recorder.stats("Invented", null, null, false))
+            .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(ReflectionTestUtils.getField(recorder, "agencies")).asInstanceOf(MAP).isEmpty();
+    }
+}
@@ -0,0 +1,148 @@
+package org.examples.agency.graphql;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(2);
+
+    private final SingleFlight<String, String> singleFlight = new SingleFlight<>();
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @Test
+    void concurrentCallersShareOneUpstreamCall() {
+        Sinks.One<String> upstream = Sinks.one();
+        CompletableFuture<String> first = execute("paris", upstream.asMono());
+        CompletableFuture<String> second = execute("paris", upstream.asMono());
+
+        upstream.tryEmitValue("offers");
+
+        assertThat(first.join()).isEqualTo("offers");
+        assertThat(second.join()).isEqualTo("offers");
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+        assertThat(singleFlight.stats()).containsEntry("coalesced", 1L).containsEntry("inFlight", 0);
+    }
+
+    @Test
+    void errorIsSharedThenTheKeyIsReleased() {
+        Sinks.One<String> upstream = Sinks.one();
+        CompletableFuture<String> first = execute("paris", upstream.asMono());
+        CompletableFuture<String> second = execute("paris", upstream.asMono());
+
+        IllegalStateException failure = new IllegalStateException("hotel down");
+        upstream.tryEmitError(failure);
+
+        assertThatThrownBy(first::get).isInstanceOf(ExecutionException.class).hasCause(failure);
+        assertThatThrownBy(second::get).isInstanceOf(ExecutionException.class).hasCause(failure);
+        // L'erreur n'est pas gardée : l'appel suivant interroge de nouveau l'hôtel
+        assertThat(singleFlight.execute("paris", () -> call(Mono.just("retry"))).block(TIMEOUT)).isEqualTo("retry");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() {
+        assertThat(singleFlight.execute("paris", () -> call(Mono.just("p"))).block(TIMEOUT)).isEqualTo("p");
+        assertThat(singleFlight.execute("lyon", () -> call(Mono.just("l"))).block(TIMEOUT)).isEqualTo("l");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void cancelledSubscriberDoesNotCancelTheSharedCall() throws Exception {
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicInteger upstreamCancels = new AtomicInteger();
+        Mono<String> response = upstream.asMono().doOnCancel(upstreamCancels::incrementAndGet);
+
+        Disposable impatient = singleFlight.execute("paris", () -> call(response)).subscribe();
+        CompletableFuture<String> patient = execute("paris", response);
+        impatient.dispose();
+        upstream.tryEmitValue("offers");
+
+        assertThat(patient.get(2, TimeUnit.SECONDS)).isEqualTo("offers");
+        assertThat(upstreamCancels.get()).isZero();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    @Test
+    void lastSubscriberLeavingCancelsTheSharedCall() {
+        Sinks.One<String> upstream = Sinks.one();
+        AtomicInteger upstreamCancels = new AtomicInteger();
+        Mono<String> response = upstream.asMono().doOnCancel(upstreamCancels::incrementAndGet);
+
+        Disposable first = singleFlight.execute("paris", () -> call(response)).subscribe();
+        Disposable second = singleFlight.execute("paris", () -> call(response)).subscribe();
+        first.dispose();
+        assertThat(upstreamCancels.get()).isZero();
+        second.dispose();
+
+        assertThat(upstreamCancels.get()).isEqualTo(1);
+        assertThat(singleFlight.stats()).containsEntry("inFlight", 0);
+        // La clé est libérée : l'appel suivant interroge de nouveau l'hôtel
+        assertThat(singleFlight.execute("paris", () -> call(Mono.just("again"))).block(TIMEOUT)).isEqualTo("again");
+        assertThat(upstreamCalls.get()).isEqualTo(2);
+    }
+
+    @Test
+    void sharedCallCarriesTheLatestDeadlineOfItsParticipants() {
+        long now = System.nanoTime();
+        long early = now + TimeUnit.SECONDS.toNanos(1);
+        long late = now + TimeUnit.SECONDS.toNanos(3);
+        List<Long> callDeadlines = new ArrayList<>();
+        Sinks.One<String> lateCall = Sinks.one();
+        Sinks.One<String> earlyCall = Sinks.one();
+
+        CompletableFuture<String> first = singleFlight.execute("paris", early,
+                deadline -> { callDeadlines.add(deadline); return earlyCall.asMono(); }).toFuture();
+        // Échéance plus lointaine : nouvel appel, que rejoint ensuite un appelant plus pressé
+        CompletableFuture<String> second = singleFlight.execute("paris", late,
+                deadline -> { callDeadlines.add(deadline); return lateCall.asMono(); }).toFuture();
+        CompletableFuture<String> third = singleFlight.execute("paris", early,
+                deadline -> { callDeadlines.add(deadline); return Mono.just("unexpected"); }).toFuture();
+
+        earlyCall.tryEmitValue("early");
+        lateCall.tryEmitValue("late");
+
+        assertThat(callDeadlines).containsExactly(early, late);
+        assertThat(first.join()).isEqualTo("early");
+        assertThat(second.join()).isEqualTo("late");
+        assertThat(third.join()).isEqualTo("late");
+    }
+
+    @Test
+    void emptyResponseCompletesEveryCallerEmpty() {
+        Sinks.Empty<Void> upstream = Sinks.empty();
+        Mono<String> empty = upstream.asMono().then(Mono.empty());
+        Mono<String> first = singleFlight.execute("paris", () -> call(empty));
+        Mono<String> second = singleFlight.execute("paris", () -> call(empty));
+        CompletableFuture<Boolean> firstEmpty = first.hasElement().map(has -> !has).toFuture();
+        CompletableFuture<Boolean> secondEmpty = second.hasElement().map(has -> !has).toFuture();
+
+        upstream.tryEmitEmpty();
+
+        assertThat(firstEmpty.join()).isTrue();
+        assertThat(secondEmpty.join()).isTrue();
+        assertThat(upstreamCalls.get()).isEqualTo(1);
+    }
+
+    private CompletableFuture<String> execute(String key, Mono<String> response) {
+        return singleFlight.execute(key, () -> call(response)).toFuture();
+    }
+
+    private Mono<String> call(Mono<String> response) {
+        upstreamCalls.incrementAndGet();
+        return response;
+    }
+}
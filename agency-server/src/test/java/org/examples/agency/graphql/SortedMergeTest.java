@@ -0,0 +1,150 @@
+package org.examples.agency.graphql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortedMergeTest {
+
+    @Test
+    void mergesSortedListsInOrder() {
+        List<Integer> merged = SortedMerge.merge(
+                Arrays.asList(Arrays.asList(1, 4, 9), Arrays.asList(2, 3, 10), Arrays.asList(5)),
+                Comparator.naturalOrder(), 100);
+
+        assertThat(merged).containsExactly(1, 2, 3, 4, 5, 9, 10);
+    }
+
+    @Test
+    void stopsAtTheLimit() {
+        List<Integer> merged = SortedMerge.merge(
+                Arrays.asList(Arrays.asList(1, 4, 9), Arrays.asList(2, 3, 10)),
+                Comparator.naturalOrder(), 3);
+
+        assertThat(merged).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void readsOnlyWhatTheLimitNeeds() {
+        AtomicInteger reads = new AtomicInteger();
+        List<List<Integer>> lists = new ArrayList<>();
+        for (int hotel = 0; hotel < 10; hotel++) {
+            List<Integer> offers = new ArrayList<>();
+            for (int i = 0; i < 1_000; i++) {
+                offers.add(hotel + i * 10);
+            }
+            lists.add(counting(offers, reads));
+        }
+
+        List<Integer> merged = SortedMerge.merge(lists, Comparator.naturalOrder(), 20);
+
+        assertThat(merged).hasSize(20).isSorted();
+        // Une tête par liste, puis un élément lu par élément produit
+        assertThat(reads.get()).isLessThanOrEqualTo(10 + 20);
+    }
+
+    @Test
+    void pagedSourcesAreOnlyReadUpToTheLimit() {
+        AtomicInteger cheapReads = new AtomicInteger();
+        AtomicInteger expensiveReads = new AtomicInteger();
+        // Hôtel cher : au-delà de sa tête, aucune offre n'est lue
+        List<Iterable<Integer>> sources = Arrays.asList(
+                counting(Arrays.asList(1, 2, 3, 4, 5, 6), cheapReads),
+                counting(Arrays.asList(100, 200, 300), expensiveReads));
+
+        assertThat(SortedMerge.merge(sources, Comparator.naturalOrder(), 3)).containsExactly(1, 2, 3);
+        assertThat(cheapReads.get()).isEqualTo(3);
+        assertThat(expensiveReads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void tiesKeepTheOrderOfTheLists() {
+        Comparator<String> byPrice = Comparator.comparingInt(offer -> Integer.parseInt(offer.split(":")[1]));
+        List<String> merged = SortedMerge.merge(
+                Arrays.asList(Arrays.asList("rivage:100", "rivage:120"), Arrays.asList("opera:100", "opera:110")),
+                byPrice, 10);
+
+        assertThat(merged).containsExactly("rivage:100", "opera:100", "opera:110", "rivage:120");
+    }
+
+    @Test
+    void descendingComparatorMergesDescendingLists() {
+        List<Integer> merged = SortedMerge.merge(
+                Arrays.asList(Arrays.asList(9, 4, 1), Arrays.asList(10, 3, 2)),
+                Comparator.<Integer>reverseOrder(), 4);
+
+        assertThat(merged).containsExactly(10, 9, 4, 3);
+    }
+
+    @Test
+    void emptyListsAndZeroLimit() {
+        List<List<Integer>> lists = Arrays.asList(Collections.emptyList(), Arrays.asList(3), Collections.emptyList());
+
+        assertThat(SortedMerge.merge(lists, Comparator.<Integer>naturalOrder(), 5)).containsExactly(3);
+        assertThat(SortedMerge.merge(lists, Comparator.<Integer>naturalOrder(), 0)).isEmpty();
+        assertThat(SortedMerge.merge(Collections.<List<Integer>>emptyList(), Comparator.<Integer>naturalOrder(), 5))
+            .isEmpty();
+    }
+
+    @Test
+    void matchesAFullSortOnRandomInput() {
+        Random random = new Random(42);
+        List<List<Integer>> lists = new ArrayList<>();
+        List<Integer> all = new ArrayList<>();
+        for (int hotel = 0; hotel < 7; hotel++) {
+            List<Integer> offers = new ArrayList<>();
+            for (int i = random.nextInt(50); i > 0; i--) {
+                offers.add(random.nextInt(500));
+            }
+            Collections.sort(offers);
+            lists.add(offers);
+            all.addAll(offers);
+        }
+        Collections.sort(all);
+
+        assertThat(SortedMerge.merge(lists, Comparator.naturalOrder(), 25))
+            .isEqualTo(all.subList(0, Math.min(25, all.size())));
+    }
+
+    /** Liste dont l'itérateur compte les éléments lus */
+    private static List<Integer> counting(List<Integer> values, AtomicInteger reads) {
+        return new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return values.get(index);
+            }
+
+            @Override
+            public int size() {
+                return values.size();
+            }
+
+            @Override
+            public Iterator<Integer> iterator() {
+                Iterator<Integer> it = values.iterator();
+                return new Iterator<Integer>() {
+                    @Override
+                    public boolean hasNext() {
+                        return it.hasNext();
+                    }
+
+                    @Override
+                    public Integer next() {
+                        reads.incrementAndGet();
+                        return it.next();
+                    }
+                };
+            }
+        };
+    }
+}
@@ -9,6 +9,8 @@ public class AgencyTcpClient implements Closeable {
   private final String host;
   private final int port;
   private final String agencyName; // Nom de l'agence pour identification
+  // Budget d'une requête (ms), envoyé à l'agence : au-delà, agence et hôtels abandonnent (DEADLINE_EXCEEDED)
+  private long timeoutMs = 15000;
   private Socket s;
   private BufferedReader in;
   private BufferedWriter out;
@@ -27,29 +29,45 @@ public class AgencyTcpClient implements Closeable {
   public int getPort() {
     return port;
   }
+
+  public void setTimeoutMs(long timeoutMs) {
+    this.timeoutMs = timeoutMs;
+  }
   private void connect() throws IOException {
     closeQuiet();
     s = new Socket(host, port);
-    s.setSoTimeout(15000);
+    s.setSoTimeout((int) timeoutMs);
     in = new BufferedReader(new InputStreamReader(s.getInputStream(), StandardCharsets.UTF_8));
     out = new BufferedWriter(new OutputStreamWriter(s.getOutputStream(), StandardCharsets.UTF_8));
   }
-  private String callOnce(String json) throws IOException {
-    out.write(json); out.write("\n"); out.flush();
+  /**
+   * Envoie la requête avec le budget restant jusqu'à {@code deadline} ; la socket n'attend pas au-delà
+   * (l'agence répond DEADLINE_EXCEEDED avant, une petite marge couvre le trajet retour).
+   */
+  private String callOnce(String json, long deadline) throws IOException {
+    long remaining = deadline - System.currentTimeMillis();
+    if (remaining <= 0) {
+      return "{\"status\":\"error\",\"code\":\"DEADLINE_EXCEEDED\",\"error\":\"Deadline exceeded before sending\"}";
+    }
+    s.setSoTimeout((int) remaining + 500);
+    out.write(json.substring(0, json.length() - 1)); out.write(",\"timeoutMs\":" + remaining + "}");
+    out.write("\n"); out.flush();
     return in.readLine();
   }
   private String call(String json) throws IOException {
+    // Une seule échéance pour l'appel et son éventuelle reprise après reconnexion
+    long deadline = System.currentTimeMillis() + timeoutMs;
     try {
-      String line = callOnce(json);
+      String line = callOnce(json, deadline);
       if (line == null) { // serveur a fermé: tenter une reconnexion
         connect();
-        return callOnce(json);
+        return callOnce(json, deadline);
       }
       return line;
     } catch (IOException e) {
       // Broken pipe / reset: reconnect and retry once
       connect();
-      return callOnce(json);
+      return callOnce(json, deadline);
     }
   }
   public String getCatalog() throws IOException {
@@ -63,12 +81,36 @@ public class AgencyTcpClient implements Closeable {
     return call(req);
   }
   public String reserve(String hotelCode, String offerId, String agencyId, String nom, String prenom, String carte, String arrivee, String depart) throws IOException {
+    return reserve(hotelCode, offerId, agencyId, nom, prenom, carte, arrivee, depart, newIdempotencyKey());
+  }
+  /**
+   * Réservation avec clé d'idempotence explicite : la même clé est renvoyée telle quelle
+   * lors de la reconnexion automatique de {@link #call}, l'hôtel ne crée donc qu'une réservation.
+   */
+  public String reserve(String hotelCode, String offerId, String agencyId, String nom, String prenom, String carte, String arrivee, String depart, String idempotencyKey) throws IOException {
+    return reserve(hotelCode, offerId, agencyId, nom, prenom, carte, arrivee, depart, idempotencyKey, null);
+  }
+  /**
+   * Réservation d'une chambre préalablement bloquée par {@link #hold} : l'hôtel consomme le hold.
+   */
+  public String reserve(String hotelCode, String offerId, String agencyId, String nom, String prenom, String carte, String arrivee, String depart, String idempotencyKey, String holdId) throws IOException {
     String payload = String.format(java.util.Locale.ROOT,
-        "{\"hotelCode\":\"%s\",\"offerId\":\"%s\",\"agencyId\":\"%s\",\"nom\":\"%s\",\"prenom\":\"%s\",\"carte\":\"%s\",\"arrivee\":\"%s\",\"depart\":\"%s\"}",
-        escape(hotelCode), escape(offerId), escape(agencyId), escape(nom), escape(prenom), escape(carte), escape(arrivee), escape(depart));
+        "{\"hotelCode\":\"%s\",\"offerId\":\"%s\",\"agencyId\":\"%s\",\"nom\":\"%s\",\"prenom\":\"%s\",\"carte\":\"%s\",\"arrivee\":\"%s\",\"depart\":\"%s\",\"idempotencyKey\":\"%s\",\"holdId\":\"%s\"}",
+        escape(hotelCode), escape(offerId), escape(agencyId), escape(nom), escape(prenom), escape(carte), escape(arrivee), escape(depart), escape(idempotencyKey), escape(holdId));
     String req = "{\"op\":\"reservation.make\",\"payload\":" + payload + "}";
     return call(req);
   }
+  public String hold(String hotelCode, String offerId, String arrivee, String depart, int nb) throws IOException {
+    String payload = String.format(java.util.Locale.ROOT,
+        "{\"hotelCode\":\"%s\",\"offerId\":\"%s\",\"arrivee\":\"%s\",\"depart\":\"%s\",\"nbPersonnes\":%d}",
+        escape(hotelCode), escape(offerId), escape(arrivee), escape(depart), nb);
+    return call("{\"op\":\"offer.hold\",\"payload\":" + payload + "}");
+  }
+  public String release(String hotelCode, String holdId) throws IOException {
+    String payload = String.format("{\"hotelCode\":\"%s\",\"holdId\":\"%s\"}", escape(hotelCode), escape(holdId));
+    return call("{\"op\":\"offer.release\",\"payload\":" + payload + "}");
+  }
+  public static String newIdempotencyKey() { return UUID.randomUUID().toString(); }
   private static String escape(String s){ return s==null?"":s.replace("\\","\\\\").replace("\"","\\\""); }
   private void closeQuiet(){ try { if (s!=null) s.close(); } catch (Exception ignore) {} }
   @Override public void close() throws IOException { closeQuiet(); }
@@ -98,13 +98,69 @@ public class MultiAgencyClient implements Closeable {
      */
     public String reserve(int agencyPort, String hotelCode, String offerId, String agencyId,
                          String nom, String prenom, String carte, String arrivee, String depart) throws IOException {
+        return reserve(agencyPort, hotelCode, offerId, agencyId, nom, prenom, carte, arrivee, depart,
+                       AgencyTcpClient.newIdempotencyKey());
+    }
+
+    /**
+     * Fait une réservation avec une clé d'idempotence fournie par l'appelant
+     * (réutilisée si l'utilisateur relance la même réservation)
+     */
+    public String reserve(int agencyPort, String hotelCode, String offerId, String agencyId,
+                         String nom, String prenom, String carte, String arrivee, String depart,
+                         String idempotencyKey) throws IOException {
+        return reserve(agencyPort, hotelCode, offerId, agencyId, nom, prenom, carte, arrivee, depart,
+                       idempotencyKey, null);
+    }
+
+    /**
+     * Fait une réservation en consommant le hold posé sur l'offre (peut être null)
+     */
+    public String reserve(int agencyPort, String hotelCode, String offerId, String agencyId,
+                         String nom, String prenom, String carte, String arrivee, String depart,
+                         String idempotencyKey, String holdId) throws IOException {
         // Trouver l'agence correspondante
+        AgencyTcpClient agency = findAgency(agencyPort);
+        if (agency != null) {
+            return agency.reserve(hotelCode, offerId, agencyId, nom, prenom, carte, arrivee, depart, idempotencyKey, holdId);
+        }
+
+        return agencyNotFound(agencyPort);
+    }
+
+    /**
+     * Bloque temporairement la chambre d'une offre via l'agence d'origine
+     */
+    public String hold(int agencyPort, String hotelCode, String offerId, String arrivee, String depart,
+                       int nbPersonnes) throws IOException {
+        AgencyTcpClient agency = findAgency(agencyPort);
+        if (agency != null) {
+            return agency.hold(hotelCode, offerId, arrivee, depart, nbPersonnes);
+        }
+        return agencyNotFound(agencyPort);
+    }
+
+    /**
+     * Libère un hold (abandon de la réservation)
+     */
+    public String release(int agencyPort, String hotelCode, String holdId) throws IOException {
+        AgencyTcpClient agency = findAgency(agencyPort);
+        if (agency != null) {
+            return agency.release(hotelCode, holdId);
+        }
+        return agencyNotFound(agencyPort);
+    }
+
+    private AgencyTcpClient findAgency(int agencyPort) {
         for (AgencyTcpClient agency : agencies) {
             if (agency.getPort() == agencyPort) {
-                return agency.reserve(hotelCode, offerId, agencyId, nom, prenom, carte, arrivee, depart);
+                return agency;
             }
         }
+        return null;
+    }
 
+    private static String agencyNotFound(int agencyPort) {
         return "{\"status\":\"error\",\"message\":\"Agence non trouvée (port " + agencyPort + ")\"}";
     }
 
@@ -1,5 +1,6 @@
 package org.examples.client.gui;
 
+import org.examples.client.AgencyTcpClient;
 import org.examples.client.MiniJson;
 
 import javax.swing.*;
@@ -27,6 +28,8 @@ public class ReservationPanel extends JPanel {
     private Date startDate;
     private Date endDate;
     private int agencyPort; // Port de l'agence pour cette réservation
+    private String idempotencyKey; // Une clé par offre sélectionnée : un double clic ne réserve qu'une fois
+    private String holdId; // Hold posé sur la chambre pendant la saisie du formulaire
 
     public ReservationPanel(HotelClientGUI mainFrame) {
         this.mainFrame = mainFrame;
@@ -176,7 +179,10 @@ public class ReservationPanel extends JPanel {
         cancelButton.setFocusPainted(false);
         cancelButton.setBorderPainted(false);
         cancelButton.setCursor(new Cursor(Cursor.HAND_CURSOR));
-        cancelButton.addActionListener(e -> mainFrame.showPanel("RESULTS"));
+        cancelButton.addActionListener(e -> {
+            releaseHold();
+            mainFrame.showPanel("RESULTS");
+        });
 
         confirmButton = new JButton("✅ Confirmer la Réservation");
         confirmButton.setFont(new Font("Arial", Font.BOLD, 16));
@@ -208,6 +214,8 @@ public class ReservationPanel extends JPanel {
         this.startDate = start;
         this.endDate = end;
         this.agencyPort = agencyPort;
+        this.idempotencyKey = AgencyTcpClient.newIdempotencyKey();
+        releaseHold();
 
         // Vider les champs
         lastNameField.setText("");
@@ -225,7 +233,8 @@ public class ReservationPanel extends JPanel {
             // Extraire le numéro de chambre depuis l'objet "room"
             String roomObj = MiniJson.getObject(offer, "room");
             Integer roomNumInt = roomObj != null ? MiniJson.getInt(roomObj, "numero") : null;
-            String roomNum = roomNumInt != null ? String.valueOf(roomNumInt) : "?";
+            // Offre par type de chambre : le numéro est attribué par l'hôtel à la réservation
+            String roomNum = roomNumInt != null ? "N°" + roomNumInt : "attribuée à la réservation";
             Integer bedsInt = roomObj != null ? MiniJson.getInt(roomObj, "nbLits") : null;
             String beds = bedsInt != null ? String.valueOf(bedsInt) : "?";
             Integer priceInt = MiniJson.getInt(offer, "prixTotal");
@@ -251,7 +260,7 @@ public class ReservationPanel extends JPanel {
             details.append("🏨 Hôtel:          ").append(hotelName).append("\n");
             details.append("📍 Ville:          ").append(city).append("\n");
             details.append("⭐ Catégorie:      ").append(category).append("\n");
-            details.append("🚪 Chambre:        N°").append(roomNum).append("\n");
+            details.append("🚪 Chambre:        ").append(roomNum).append("\n");
             details.append("🛏️  Lits:          ").append(beds).append("\n\n");
             details.append("📅 Arrivée:        ").append(sdf.format(start)).append("\n");
             details.append("📅 Départ:         ").append(sdf.format(end)).append("\n");
@@ -268,6 +277,89 @@ public class ReservationPanel extends JPanel {
             offerDetailsArea.setText("Erreur lors de l'affichage des détails.");
             e.printStackTrace();
         }
+
+        placeHold();
+    }
+
+    /**
+     * Bloque la chambre pendant que le client remplit le formulaire.
+     * En cas d'échec, la réservation reste possible sans hold (vérification classique à l'hôtel).
+     */
+    private void placeHold() {
+        final String offer = currentOffer;
+        new SwingWorker<String, Void>() {
+            @Override
+            protected String doInBackground() throws Exception {
+                String roomObj = MiniJson.getObject(offer, "room");
+                Integer nbLits = roomObj != null ? MiniJson.getInt(roomObj, "nbLits") : null;
+                return mainFrame.getMultiAgencyClient().hold(
+                    agencyPort,
+                    resolveHotelCode(offer),
+                    MiniJson.getString(offer, "offerId"),
+                    formatDate(startDate),
+                    formatDate(endDate),
+                    nbLits != null ? nbLits : 2
+                );
+            }
+
+            @Override
+            protected void done() {
+                try {
+                    String result = get();
+                    Boolean successBool = MiniJson.getBoolean(result, "success");
+                    if (successBool != null && successBool && offer == currentOffer) {
+                        holdId = MiniJson.getString(result, "holdId");
+                        Integer ttl = MiniJson.getInt(result, "ttlSeconds");
+                        statusLabel.setText("🔒 Chambre bloquée pour vous pendant " +
+                            (ttl != null ? (ttl / 60) + " min" : "quelques minutes"));
+                    } else if (offer == currentOffer) {
+                        String message = MiniJson.getString(result, "message");
+                        System.out.println("[RESERVATION] Hold refusé: " + message);
+                    }
+                } catch (Exception ex) {
+                    System.out.println("[RESERVATION] Hold impossible: " + ex.getMessage());
+                }
+            }
+        }.execute();
+    }
+
+    /**
+     * Libère le hold courant (abandon ou changement d'offre)
+     */
+    private void releaseHold() {
+        final String toRelease = holdId;
+        final String hotelCode = resolveHotelCode(currentOffer);
+        final int port = agencyPort;
+        holdId = null;
+        if (toRelease == null) {
+            return;
+        }
+        new SwingWorker<Void, Void>() {
+            @Override
+            protected Void doInBackground() throws Exception {
+                mainFrame.getMultiAgencyClient().release(port, hotelCode, toRelease);
+                return null;
+            }
+        }.execute();
+    }
+
+    /**
+     * Déduit le code hôtel de l'offre (depuis hotelName). Sans nom d'hôtel, l'agence
+     * le lit dans le jeton d'offre signé (offerId).
+     */
+    private static String resolveHotelCode(String offer) {
+        if (offer == null) {
+            return null;
+        }
+        String hotelName = MiniJson.getString(offer, "hotelName");
+        if (hotelName != null) {
+            return hotelName.toLowerCase().contains("opera") ? "opera" : "rivage";
+        }
+        return null;
+    }
+
+    private static String formatDate(Date date) {
+        return date != null ? new SimpleDateFormat("yyyy-MM-dd").format(date) : "";
     }
 
     private void makeReservation() {
@@ -292,16 +384,8 @@ public class ReservationPanel extends JPanel {
             @Override
             protected String doInBackground() throws Exception {
                 // ⭐ Extraire hotelCode de l'offre (depuis hotelName ou offerId)
-                String hotelName = MiniJson.getString(currentOffer, "hotelName");
                 String offerId = MiniJson.getString(currentOffer, "offerId");
-
-                // Déduire hotelCode du nom ou de l'offerId
-                String hotelCode = null;
-                if (hotelName != null) {
-                    hotelCode = hotelName.toLowerCase().contains("opera") ? "opera" : "rivage";
-                } else if (offerId != null && offerId.contains("-")) {
-                    hotelCode = offerId.split("-")[0]; // Extraire de "opera-201-timestamp"
-                }
+                String hotelCode = resolveHotelCode(currentOffer);
 
                 System.out.println("[RESERVATION] hotelCode=" + hotelCode + ", offerId=" + offerId);
 
@@ -314,9 +398,8 @@ public class ReservationPanel extends JPanel {
                 int nbPersonnes = nbLits != null ? nbLits : 2; // Par défaut 2 personnes
 
                 // ⭐ Formater les dates au format yyyy-MM-dd
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
-                String arrivee = startDate != null ? dateFormat.format(startDate) : "";
-                String depart = endDate != null ? dateFormat.format(endDate) : "";
+                String arrivee = formatDate(startDate);
+                String depart = formatDate(endDate);
 
                 System.out.println("[RESERVATION] Calling reserve: port=" + agencyPort +
                                  ", hotelCode=" + hotelCode + ", offerId=" + offerId +
@@ -333,7 +416,9 @@ public class ReservationPanel extends JPanel {
                     firstName,
                     cardNumber,
                     arrivee,  // ⭐ Date d'arrivée
-                    depart    // ⭐ Date de départ
+                    depart,   // ⭐ Date de départ
+                    idempotencyKey,
+                    holdId    // Hold consommé par l'hôtel (null si le blocage a échoué)
                 );
             }
 
@@ -349,6 +434,7 @@ public class ReservationPanel extends JPanel {
                     String reservationRef = MiniJson.getString(result, "reference");
 
                     if (success) {
+                        holdId = null; // Consommé par la réservation
                         statusLabel.setText("✅ Réservation confirmée !");
                         statusLabel.setForeground(Color.BLACK);
 
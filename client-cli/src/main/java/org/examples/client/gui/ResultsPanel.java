@@ -324,6 +324,8 @@ public class ResultsPanel extends JPanel {
                 }
 
                 String roomNum = roomNumInt != null ? String.valueOf(roomNumInt) : null;
+                // Offre par type de chambre : nombre de chambres libres au lieu d'un numéro
+                Integer freeRooms = MiniJson.getInt(offer, "disponibles");
                 Integer bedsInt = roomObj != null ? MiniJson.getInt(roomObj, "nbLits") : null;
                 String bedsStr = bedsInt != null ? String.valueOf(bedsInt) : null;
 
@@ -352,7 +354,7 @@ public class ResultsPanel extends JPanel {
                     hotelName != null ? hotelName : "?",
                     hotelCity != null ? hotelCity : "?",
                     category != null ? category : "?",
-                    roomNum != null ? "N°" + roomNum : "?",
+                    roomNum != null ? "N°" + roomNum : freeRooms != null ? freeRooms + " dispo." : "?",
                     bedsStr != null ? bedsStr : "?",
                     displayPrice,
                     agencyName != null ? agencyName : "?",  // Colonne Agence
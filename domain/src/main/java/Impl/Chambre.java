@@ -8,6 +8,8 @@ import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -16,7 +18,8 @@ public class Chambre {
     private final Hotel hotel;
     private int nbLits, prixParNuit, numero;
     private String imageUrl; // URL de l'image de la chambre (optionnel)
-    private final List<Reservation> reservations = new ArrayList<>();
+    // Réservations triées par date d'arrivée (elles ne se chevauchent pas)
+    private final TreeMap<LocalDate, Reservation> reservations = new TreeMap<>();
 
     public Chambre(Hotel hotel, int numero, int nbLits, int prixParNuit) {
         this.hotel = hotel; this.numero = numero; this.nbLits = nbLits; this.prixParNuit = prixParNuit;
@@ -34,10 +37,13 @@ public class Chambre {
     public void setPrixParNuit(int prix) { this.prixParNuit = prix; }
     public void setNumero(int num) { this.numero = num; }
     public void setImageUrl(String imageUrl) { this.imageUrl = imageUrl; }
-    public List<Reservation> getReservations() { return reservations; }
+    public List<Reservation> getReservations() { return new ArrayList<>(reservations.values()); }
 
     public boolean isDisponible(LocalDate debut, LocalDate fin) {
-        for (Reservation r : reservations) {
+        // Seule la dernière réservation arrivant avant la fin demandée peut chevaucher
+        Map.Entry<LocalDate, Reservation> last = reservations.lowerEntry(fin);
+        if (last != null) {
+            Reservation r = last.getValue();
             if (Reservation.chevauche(debut, fin, r.getDebut(), r.getFin())) {
                 log.info("[ROOM] indisponible: room={} hotel='{}' demande=[{}..{}), existing=[{}..{}]", numero,
                         hotel != null ? hotel.getNom() : "<no-hotel>", debut, fin, r.getDebut(), r.getFin());
@@ -58,9 +64,23 @@ public class Chambre {
     public Reservation reserver(Client c, LocalDate debut, LocalDate fin) {
         if (!isDisponible(debut, fin)) throw new IllegalStateException("Chambre déjà réservée sur la période");
         Reservation res = new Reservation(this, c, debut, fin);
-        reservations.add(res);
+        reservations.put(debut, res);
         log.info("[ROOM] réservation ajoutée: hotel='{}' room={} periode=[{}..{}), totalReservations={}",
                 hotel != null ? hotel.getNom() : "<no-hotel>", numero, debut, fin, reservations.size());
         return res;
     }
+
+    /**
+     * Retire une réservation (recherche par date d'arrivée, O(log n)).
+     *
+     * @return true si la réservation était présente
+     */
+    public boolean annuler(Reservation r) {
+        boolean removed = reservations.remove(r.getDebut(), r);
+        if (removed) {
+            log.info("[ROOM] réservation annulée: hotel='{}' room={} periode=[{}..{}), totalReservations={}",
+                    hotel != null ? hotel.getNom() : "<no-hotel>", numero, r.getDebut(), r.getFin(), reservations.size());
+        }
+        return removed;
+    }
 }
@@ -22,9 +22,9 @@ public class DataFactory {
     // Optionnel: une fabrique pour Opera si nécessaire à l'avenir
     public static DataFactory opera() { return new DataFactory("Opera"); }
 
+    // Clé composite directe (hôtel, jour epoch, nuits, personnes) : déterministe sans hachage MD5
     private String deterministicId(LocalDate from, LocalDate to, int persons) {
-        String base = hotelName + "|" + from + "|" + to + "|" + persons;
-        return UUID.nameUUIDFromBytes(base.getBytes(java.nio.charset.StandardCharsets.UTF_8)).toString();
+        return hotelName + "-" + from.toEpochDay() + "-" + (to.toEpochDay() - from.toEpochDay()) + "-" + persons;
     }
 
     public List<Offer> findOffers(AgencyCredentials creds, LocalDate from, LocalDate to, int persons) {
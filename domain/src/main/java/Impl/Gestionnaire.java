@@ -126,6 +126,6 @@ public class Gestionnaire {
     }
 
     public void annuleReservation(Reservation r) {
-        r.getChambre().getReservations().remove(r);
+        r.getChambre().annuler(r);
     }
 }
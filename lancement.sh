@@ -47,8 +47,8 @@ mvn -DskipTests=true clean install
 
 # 2) Stopper d'anciens processus (libérer les ports)
 info "Libération des ports TCP (7070-7071), GraphQL (8082, 8084)..."
-fuser -k 7070/tcp 2>/dev/null || true  # TCP Agency 1
-fuser -k 7071/tcp 2>/dev/null || true  # TCP Agency 2
+fuser -k 7070/tcp 2>/dev/null || true  # TCP MegaAgence
+fuser -k 7071/tcp 2>/dev/null || true  # TCP SuperAgence
 fuser -k 8082/tcp 2>/dev/null || true  # GraphQL Opera
 fuser -k 8084/tcp 2>/dev/null || true  # GraphQL Rivage
 
@@ -73,12 +73,6 @@ cleanup(){
     rm -f /tmp/agency.pid || true
     info "agency stopped"
   fi
-  if [ -f /tmp/agency2.pid ]; then
-    pid=$(cat /tmp/agency2.pid 2>/dev/null || true)
-    [ -n "$pid" ] && kill "$pid" 2>/dev/null || true
-    rm -f /tmp/agency2.pid || true
-    info "agency2 stopped"
-  fi
 }
 
 # Attendre qu'un port GraphQL soit disponible
@@ -169,10 +163,9 @@ wait_graphql_port 8084 "Server Rivage" 90 || err "Server Rivage non disponible"
 info "⏳ Attente finale de 5 secondes pour initialisation complète..."
 sleep 5
 
-# ⭐ Maintenant démarrer les agences (qui vont se connecter aux hôtels via GraphQL)
+# ⭐ Maintenant démarrer les agences (un seul processus, qui se connecte aux hôtels via GraphQL)
 info "🚀 Démarrage des agences (qui se connectent aux serveurs GraphQL)..."
 start_server agency-server  "$LOG_DIR/agency.log" /tmp/agency.pid
-start_server agency-server-2  "$LOG_DIR/agency2.log" /tmp/agency2.pid
 
 # Attendre un peu que les agences démarrent
 info "⏳ Attente démarrage des agences (5 secondes)..."
@@ -189,8 +182,8 @@ info ""
 info "═══════════════════════════════════════════════════════════"
 info "Vérification des services TCP..."
 info "═══════════════════════════════════════════════════════════"
-wait_agency_tcp 7070 "Agency Server 1" 60 || true
-wait_agency_tcp 7071 "Agency Server 2" 60 || true
+wait_agency_tcp 7070 "MegaAgence" 60 || true
+wait_agency_tcp 7071 "SuperAgence" 60 || true
 
 # 5) Vérifier les services GraphQL
 info ""
@@ -218,8 +211,7 @@ info ""
 info "Logs disponibles dans: $LOG_DIR/"
 info "  - opera.log   : Server Opera (GraphQL 8082)"
 info "  - rivage.log  : Server Rivage (GraphQL 8084)"
-info "  - agency.log  : Agency Server 1 (TCP 7070 + GraphQL client)"
-info "  - agency2.log : Agency Server 2 (TCP 7071)"
+info "  - agency.log  : Agences MegaAgence (TCP 7070) et SuperAgence (TCP 7071)"
 info ""
 info "Interfaces GraphQL disponibles:"
 info "  • GraphiQL Opera  : http://localhost:8082/graphiql"
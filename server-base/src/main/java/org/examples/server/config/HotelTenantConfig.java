@@ -0,0 +1,12 @@
+package org.examples.server.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hôtels servis par le moteur GraphQL, déclarés en configuration.
+ */
+@Configuration
+@EnableConfigurationProperties(HotelTenantProperties.class)
+public class HotelTenantConfig {
+}
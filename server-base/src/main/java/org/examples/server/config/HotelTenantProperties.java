@@ -0,0 +1,61 @@
+package org.examples.server.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hôtels servis par ce serveur ({@code hotel.tenants.<id>.*}).
+ * <p>
+ * L'identifiant est le hotelId GraphQL et le nom de l'hôtel en base ; les chambres et
+ * réservations restent en base, la configuration ne porte que la présentation de l'hôtel
+ * (adresse, contact, équipements) et sa grille de catégories de chambres.
+ */
+@ConfigurationProperties(prefix = "hotel")
+public class HotelTenantProperties {
+
+    private Map<String, Tenant> tenants = new LinkedHashMap<>();
+
+    public Map<String, Tenant> getTenants() { return tenants; }
+    public void setTenants(Map<String, Tenant> tenants) { this.tenants = tenants; }
+
+    public static class Tenant {
+        private String street;
+        private String postalCode;
+        private String country = "France";
+        private String phone;
+        private String email;
+        private List<String> amenities = new ArrayList<>();
+        private double latitude;
+        private double longitude;
+        /** Catégorie par nombre de lits : la 1re pour 1 lit, la 2e pour 2 lits... la dernière au-delà */
+        private List<String> categories = new ArrayList<>(Arrays.asList("SINGLE", "DOUBLE", "TRIPLE", "FAMILY"));
+        /** Catégorie des chambres sans lit renseigné */
+        private String fallbackCategory = "STANDARD";
+
+        public String getStreet() { return street; }
+        public void setStreet(String street) { this.street = street; }
+        public String getPostalCode() { return postalCode; }
+        public void setPostalCode(String postalCode) { this.postalCode = postalCode; }
+        public String getCountry() { return country; }
+        public void setCountry(String country) { this.country = country; }
+        public String getPhone() { return phone; }
+        public void setPhone(String phone) { this.phone = phone; }
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+        public List<String> getAmenities() { return amenities; }
+        public void setAmenities(List<String> amenities) { this.amenities = amenities; }
+        public double getLatitude() { return latitude; }
+        public void setLatitude(double latitude) { this.latitude = latitude; }
+        public double getLongitude() { return longitude; }
+        public void setLongitude(double longitude) { this.longitude = longitude; }
+        public List<String> getCategories() { return categories; }
+        public void setCategories(List<String> categories) { this.categories = categories; }
+        public String getFallbackCategory() { return fallbackCategory; }
+        public void setFallbackCategory(String fallbackCategory) { this.fallbackCategory = fallbackCategory; }
+    }
+}
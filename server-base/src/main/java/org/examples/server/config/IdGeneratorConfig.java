@@ -0,0 +1,19 @@
+package org.examples.server.config;
+
+import org.examples.server.util.SnowflakeIdGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Générateur d'identifiants (références, codes de confirmation, holds) de l'hôtel.
+ * Chaque serveur doit avoir son propre {@code hotel.id.node-id}.
+ */
+@Configuration
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator idGenerator(@Value("${hotel.id.node-id:0}") int nodeId) {
+        return new SnowflakeIdGenerator(nodeId);
+    }
+}
@@ -0,0 +1,19 @@
+package org.examples.server.config;
+
+import org.examples.server.util.OfferTokenCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Codec des jetons d'offre signés, partagé par les contrôleurs GraphQL des hôtels.
+ * Le secret doit être identique sur les hôtels et les agences.
+ */
+@Configuration
+public class OfferTokenConfig {
+
+    @Bean
+    public OfferTokenCodec offerTokenCodec(@Value("${offer.token.secret}") String secret) {
+        return new OfferTokenCodec(secret);
+    }
+}
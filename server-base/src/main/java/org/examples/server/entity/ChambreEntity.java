@@ -1,11 +1,19 @@
 package org.examples.server.entity;
 
+import org.examples.server.service.CatalogEntityListener;
+
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "chambres")
+@EntityListeners(CatalogEntityListener.class)
+@Table(name = "chambres", indexes = {
+    // Ordres de tri de RoomSearchService dans un hôtel : ORDER BY et reprise après le curseur servis par l'index
+    @Index(name = "idx_chambre_hotel_prix", columnList = "hotel_id, prixParNuit, nbLits, numero"),
+    @Index(name = "idx_chambre_hotel_capacite", columnList = "hotel_id, nbLits, prixParNuit, numero"),
+    @Index(name = "idx_chambre_hotel_numero", columnList = "hotel_id, numero", unique = true)
+})
 public class ChambreEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -1,8 +1,10 @@
 package org.examples.server.entity;
+import org.examples.server.service.CatalogEntityListener;
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 @Entity
+@EntityListeners(CatalogEntityListener.class)
 @Table(name = "hotels")
 public class HotelEntity {
     @Id
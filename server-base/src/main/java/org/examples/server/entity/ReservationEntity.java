@@ -4,7 +4,12 @@ import javax.persistence.*;
 import java.time.LocalDate;
 
 @Entity
-@Table(name = "reservations")
+@Table(name = "reservations", indexes = {
+    @Index(name = "idx_reservation_reference", columnList = "reference"),
+    // (colonne, id) : filtre et ordre de la pagination keyset servis par le même index
+    @Index(name = "idx_reservation_client", columnList = "clientNom, id"),
+    @Index(name = "idx_reservation_agence", columnList = "agence, id")
+})
 public class ReservationEntity {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -35,6 +40,13 @@ public class ReservationEntity {
     @Column
     private String agence;
 
+    // Valeurs de la réservation : nulles pour les lignes antérieures à leur ajout
+    @Column
+    private Integer nbPersonnes;
+
+    @Column
+    private Double prixTotal;
+
     public ReservationEntity() {}
 
     public ReservationEntity(String clientNom, String clientPrenom, LocalDate debut, LocalDate fin) {
@@ -71,6 +83,12 @@ public class ReservationEntity {
     public String getAgence() { return agence; }
     public void setAgence(String agence) { this.agence = agence; }
 
+    public Integer getNbPersonnes() { return nbPersonnes; }
+    public void setNbPersonnes(Integer nbPersonnes) { this.nbPersonnes = nbPersonnes; }
+
+    public Double getPrixTotal() { return prixTotal; }
+    public void setPrixTotal(Double prixTotal) { this.prixTotal = prixTotal; }
+
     public boolean chevauche(LocalDate autreDebut, LocalDate autreFin) {
         return debut.isBefore(autreFin) && autreDebut.isBefore(fin);
     }
@@ -0,0 +1,93 @@
+package org.examples.server.graphql;
+
+import graphql.ErrorClassification;
+import graphql.GraphQLError;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.instrumentation.Instrumentation;
+import graphql.execution.instrumentation.SimpleInstrumentation;
+import graphql.execution.instrumentation.parameters.InstrumentationFieldFetchParameters;
+import graphql.schema.DataFetcher;
+import graphql.schema.DataFetchingEnvironment;
+import org.examples.server.service.DeadlineExceededException;
+import org.examples.server.service.RequestDeadline;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.graphql.execution.DataFetcherExceptionResolverAdapter;
+import org.springframework.graphql.server.WebGraphQlInterceptor;
+
+/**
+ * Configuration GraphQL - Propagation de l'échéance de l'agence
+ * <p>
+ * L'en-tête {@value RequestDeadline#HEADER} (budget restant en ms) devient une échéance dans le
+ * contexte GraphQL. Chaque data fetcher est refusé si elle est dépassée et s'exécute sous cette
+ * échéance ({@link RequestDeadline}), ce qui permet aux traitements longs de s'interrompre.
+ * L'erreur renvoyée a la classification DEADLINE_EXCEEDED (ErrorCode du schéma).
+ */
+@Configuration
+public class GraphQLDeadlineConfiguration {
+    private static final Logger log = LoggerFactory.getLogger(GraphQLDeadlineConfiguration.class);
+
+    enum DeadlineErrorType implements ErrorClassification {
+        DEADLINE_EXCEEDED
+    }
+
+    @Bean
+    public WebGraphQlInterceptor deadlineInterceptor() {
+        return (request, chain) -> {
+            String budget = request.getHeaders().getFirst(RequestDeadline.HEADER);
+            if (budget != null) {
+                try {
+                    long deadline = RequestDeadline.fromBudget(Long.parseLong(budget.trim()));
+                    request.configureExecutionInput((input, builder) ->
+                            builder.graphQLContext(context -> context.of(RequestDeadline.CONTEXT_KEY, deadline)).build());
+                } catch (NumberFormatException e) {
+                    log.warn("[GraphQL] Invalid {} header: {}", RequestDeadline.HEADER, budget);
+                }
+            }
+            return chain.next(request);
+        };
+    }
+
+    @Bean
+    public Instrumentation deadlineInstrumentation() {
+        return new SimpleInstrumentation() {
+            @Override
+            public DataFetcher<?> instrumentDataFetcher(DataFetcher<?> dataFetcher,
+                                                        InstrumentationFieldFetchParameters parameters) {
+                if (parameters.isTrivialDataFetcher()) {
+                    return dataFetcher;
+                }
+                return env -> {
+                    Long deadline = env.getGraphQlContext().get(RequestDeadline.CONTEXT_KEY);
+                    if (deadline == null) {
+                        return dataFetcher.get(env);
+                    }
+                    if (RequestDeadline.isExpired(deadline)) {
+                        throw new DeadlineExceededException("Deadline exceeded before "
+                                + env.getField().getName());
+                    }
+                    return RequestDeadline.within(deadline, () -> dataFetcher.get(env));
+                };
+            }
+        };
+    }
+
+    @Bean
+    public DataFetcherExceptionResolverAdapter deadlineExceptionResolver() {
+        return new DataFetcherExceptionResolverAdapter() {
+            @Override
+            protected GraphQLError resolveToSingleError(Throwable ex, DataFetchingEnvironment env) {
+                if (!(ex instanceof DeadlineExceededException)) {
+                    return null;
+                }
+                log.warn("[GraphQL] {} ({})", ex.getMessage(), env.getField().getName());
+                return GraphqlErrorBuilder.newError(env)
+                        .message(ex.getMessage())
+                        .errorType(DeadlineErrorType.DEADLINE_EXCEEDED)
+                        .build();
+            }
+        };
+    }
+}
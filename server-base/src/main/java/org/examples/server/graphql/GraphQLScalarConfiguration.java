@@ -1,4 +1,4 @@
-package org.examples.serveropera.graphql;
+package org.examples.server.graphql;
 
 import graphql.scalars.ExtendedScalars;
 import graphql.schema.GraphQLScalarType;
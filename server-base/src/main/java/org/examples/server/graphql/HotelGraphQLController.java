@@ -0,0 +1,1039 @@
+package org.examples.server.graphql;
+import dto.*;
+import org.examples.server.entity.ChambreEntity;
+import org.examples.server.entity.ReservationEntity;
+import org.examples.server.repository.ChambreRepository;
+import org.examples.server.repository.ReservationRepository;
+import org.examples.server.service.AvailabilityFeed;
+import org.examples.server.service.AvailabilityIndex;
+import org.examples.server.service.CatalogChangeLog;
+import org.examples.server.service.HotelDatabaseService;
+import org.examples.server.service.HotelTenant;
+import org.examples.server.service.HotelTenantRegistry;
+import org.examples.server.service.IdempotencyStore;
+import org.examples.server.service.InventoryHoldStore;
+import org.examples.server.service.RoomPage;
+import org.examples.server.service.RoomQuery;
+import org.examples.server.service.RoomSearchService;
+import org.examples.server.service.RoomSort;
+import org.examples.server.service.RoomTypeGroup;
+import org.examples.server.service.SearchResultCache;
+import org.examples.server.util.OfferToken;
+import org.examples.server.util.OfferTokenCodec;
+import org.examples.server.util.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.MutationMapping;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.data.method.annotation.SubscriptionMapping;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Flux;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.stream.Collectors;
+/**
+ * Moteur GraphQL des hôtels : un seul contrôleur pour tous les hôtels du serveur
+ * ({@code hotel.tenants}), routé sur le hotelId.
+ * <p>
+ * Les hôtels partagent la base, le pool de connexions, l'index de disponibilité, les holds et
+ * le cache de recherche ; chaque requête est limitée aux chambres de son hôtel. Une recherche
+ * sans hotelId porte sur tous les hôtels de la ville demandée.
+ */
+@Controller
+public class HotelGraphQLController {
+    private static final Logger log = LoggerFactory.getLogger(HotelGraphQLController.class);
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ISO_LOCAL_DATE;
+    @Autowired
+    private HotelTenantRegistry tenants;
+    @Autowired
+    private ChambreRepository chambreRepository;
+    @Autowired
+    private ReservationRepository reservationRepository;
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+    @Autowired
+    private InventoryHoldStore holdStore;
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+    @Autowired
+    private SearchResultCache searchCache;
+    @Autowired
+    private RoomSearchService roomSearchService;
+    @Autowired
+    private CatalogChangeLog catalogChangeLog;
+    @Autowired
+    private AvailabilityFeed availabilityFeed;
+    @Autowired
+    private HotelDatabaseService hotelDatabaseService;
+    @Autowired
+    private OfferTokenCodec offerTokenCodec;
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+    @Value("${offer.token.ttl-seconds:900}")
+    private long offerTtlSeconds;
+    @Value("${spring.application.name:server}")
+    private String serverId;
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    // Durée du hold interne qui réserve la chambre attribuée à un type le temps de l'enregistrement
+    private static final long ROOM_CLAIM_TTL_SECONDS = 30;
+    // ==================== Query : ping ====================
+    @QueryMapping
+    public Map<String, Object> ping(@Argument String message) {
+        log.info("[GraphQL] ping - message={}", message);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", message != null ? "pong: " + message : "pong");
+        response.put("timestamp", System.currentTimeMillis());
+        response.put("serverId", serverId);
+        log.info("[GraphQL] ping success");
+        return response;
+    }
+    // ==================== Query : hotelCatalog ====================
+    @QueryMapping
+    public Map<String, Object> hotelCatalog(
+        @Argument String hotelId,
+        @Argument Boolean includeImages,
+        @Argument Boolean includeUnavailableRooms,
+        @Argument Map<String, Object> arguments
+    ) {
+        log.info("[GraphQL] hotelCatalog - hotelId={}, includeImages={}", hotelId, includeImages);
+        HotelTenant tenant = tenant(hotelId);
+        // Une page de chambres de l'hôtel, triée et reprise après le curseur par la requête
+        RoomPage page = roomSearchService.search(
+            roomQuery(nestedArgument(arguments, "pagination"), nestedArgument(arguments, "sort"))
+                .hotels(Collections.singletonList(tenant.getHotelDbId())),
+            chambre -> true);
+        Map<String, Object> hotelInfo = catalogHotelInfo(tenant, includeImages != null && includeImages);
+        // Construire roomTypes
+        List<Map<String, Object>> roomTypes = new ArrayList<>();
+        for (RoomTypeGroup type : page.getRoomTypes()) {
+            roomTypes.add(catalogRoomType(tenant, type));
+        }
+        // Construire le catalogue
+        Map<String, Object> catalog = new HashMap<>();
+        catalog.put("hotel", hotelInfo);
+        catalog.put("roomTypes", roomTypes);
+        catalog.put("totalRooms", (int) chambreRepository.countByHotelId(tenant.getHotelDbId()));
+        catalog.put("hasNextPage", page.hasNextPage());
+        catalog.put("nextCursor", page.getNextCursor());
+        log.info("[GraphQL] hotelCatalog success - hotel={}, {} room types", tenant.getId(), roomTypes.size());
+        return catalog;
+    }
+    // ==================== Query : catalogVersion / catalogChanges ====================
+    @QueryMapping
+    public long catalogVersion(@Argument String hotelId) {
+        return catalogChangeLog.version(tenant(hotelId).getHotelDbId());
+    }
+    /**
+     * Delta du catalogue depuis {@code since} pour les répliques des agences : types de chambres
+     * touchés depuis, relus en base, ou tout le catalogue si le journal ne couvre pas {@code since}.
+     */
+    @QueryMapping
+    public Map<String, Object> catalogChanges(@Argument String hotelId, @Argument Long since) {
+        HotelTenant tenant = tenant(hotelId);
+        CatalogChangeLog.Delta delta = catalogChangeLog.since(tenant.getHotelDbId(), since != null ? since : 0L);
+        List<Map<String, Object>> roomTypes = new ArrayList<>();
+        List<String> removed = new ArrayList<>();
+        if (delta.isFull()) {
+            // Toutes les pages du catalogue
+            String after = null;
+            do {
+                RoomPage page = roomSearchService.search(
+                    new RoomQuery().hotels(Collections.singletonList(tenant.getHotelDbId()))
+                        .pageSize(MAX_PAGE_SIZE).after(after),
+                    chambre -> true);
+                for (RoomTypeGroup type : page.getRoomTypes()) {
+                    roomTypes.add(catalogRoomType(tenant, type));
+                }
+                after = page.getNextCursor();
+            } while (after != null);
+        } else {
+            for (String typeId : delta.getRoomTypeIds()) {
+                RoomTypeGroup wanted = RoomTypeGroup.fromId(tenant.getHotelDbId(), typeId);
+                RoomPage page = roomSearchService.search(
+                    new RoomQuery().hotels(Collections.singletonList(tenant.getHotelDbId())).pageSize(1)
+                        .minCapacity(wanted.getNbLits()).maxCapacity(wanted.getNbLits())
+                        .totalPriceRange(wanted.getPrixParNuit(), wanted.getPrixParNuit(), 1),
+                    chambre -> true);
+                if (page.getRoomTypes().isEmpty()) {
+                    removed.add(typeId);
+                } else {
+                    roomTypes.add(catalogRoomType(tenant, page.getRoomTypes().get(0)));
+                }
+            }
+        }
+        Map<String, Object> changes = new HashMap<>();
+        changes.put("hotelId", tenant.getId());
+        changes.put("version", delta.getVersion());
+        changes.put("full", delta.isFull());
+        changes.put("hotel", delta.isFull() ? catalogHotelInfo(tenant, false) : null);
+        changes.put("roomTypes", roomTypes);
+        changes.put("removedRoomTypeIds", removed);
+        changes.put("totalRooms", (int) chambreRepository.countByHotelId(tenant.getHotelDbId()));
+        log.info("[GraphQL] catalogChanges - hotel={}, since={}, version={}, full={}, {} changed, {} removed",
+                 tenant.getId(), since, delta.getVersion(), delta.isFull(), roomTypes.size(), removed.size());
+        return changes;
+    }
+    // ==================== Subscription : availabilityChanged ====================
+    /**
+     * Changements de disponibilité des hôtels du serveur (ou du seul hotelId), au fil de l'eau.
+     */
+    @SubscriptionMapping
+    public Flux<Map<String, Object>> availabilityChanged(@Argument String hotelId) {
+        Long hotelDbId = hotelId != null && !hotelId.isEmpty() ? tenant(hotelId).getHotelDbId() : null;
+        log.info("[GraphQL] availabilityChanged subscription - hotelId={}, {} subscriber(s) before",
+                 hotelId, availabilityFeed.subscribers());
+        return availabilityFeed.events()
+            .filter(event -> hotelDbId == null || hotelDbId.equals(event.getHotelId()))
+            .filter(event -> tenants.byHotelDbId(event.getHotelId()) != null)
+            .map(event -> {
+                Map<String, Object> change = new HashMap<>();
+                change.put("hotelId", tenants.byHotelDbId(event.getHotelId()).getId());
+                change.put("roomNumber", event.getRoomNumero());
+                change.put("arrivalDate", event.getDebut().format(DATE_FORMATTER));
+                change.put("departureDate", event.getFin().format(DATE_FORMATTER));
+                change.put("change", event.getChange().name());
+                change.put("timestamp", System.currentTimeMillis());
+                return change;
+            });
+    }
+    /**
+     * HotelInfo complet du catalogue.
+     */
+    private Map<String, Object> catalogHotelInfo(HotelTenant tenant, boolean includeImages) {
+        Map<String, Object> hotelInfo = hotelInfo(tenant);
+        hotelInfo.put("description", "Hôtel " + tenant.getNom());
+        hotelInfo.put("amenities", tenant.getAmenities());
+        hotelInfo.put("phone", tenant.getPhone());
+        hotelInfo.put("email", tenant.getEmail());
+        // Location
+        Map<String, Object> location = new HashMap<>();
+        location.put("latitude", tenant.getLatitude());
+        location.put("longitude", tenant.getLongitude());
+        hotelInfo.put("location", location);
+        // Images
+        if (includeImages) {
+            List<Map<String, Object>> images = new ArrayList<>();
+            Map<String, Object> img = new HashMap<>();
+            img.put("url", "/images/hotel-" + tenant.getId() + ".jpg");
+            img.put("description", "Vue extérieure");
+            img.put("width", 800);
+            img.put("height", 600);
+            images.add(img);
+            hotelInfo.put("images", images);
+        } else {
+            hotelInfo.put("images", Collections.emptyList());
+        }
+        return hotelInfo;
+    }
+    /**
+     * RoomType du catalogue : un type de chambre et toutes ses chambres.
+     */
+    private Map<String, Object> catalogRoomType(HotelTenant tenant, RoomTypeGroup type) {
+        // Chambre représentative du type (catégorie, images)
+        ChambreEntity chambre = type.getSample();
+        String category = tenant.category(chambre.getNbLits());
+        Map<String, Object> room = new HashMap<>();
+        room.put("id", type.getId());
+        room.put("category", category);
+        room.put("capacity", chambre.getNbLits());
+        room.put("pricePerNight", (double) chambre.getPrixParNuit());
+        room.put("description", "Chambre " + category + " avec " + chambre.getNbLits() + " lit(s)");
+        room.put("features", Arrays.asList("WiFi", "TV", "Climatisation", "Salle de bain privée"));
+        room.put("availableCount", type.getAvailableCount());
+        room.put("surfaceM2", 25.0);
+        // Images de la chambre
+        List<Map<String, Object>> roomImages = new ArrayList<>();
+        if (chambre.getImageUrl() != null && !chambre.getImageUrl().isEmpty()) {
+            Map<String, Object> image = new HashMap<>();
+            image.put("url", chambre.getImageUrl());
+            image.put("description", "Chambre " + category);
+            image.put("width", 800);
+            image.put("height", 600);
+            roomImages.add(image);
+        }
+        room.put("images", roomImages);
+        return room;
+    }
+    // ==================== Query : searchOffers ====================
+    @QueryMapping
+    public Map<String, Object> searchOffers(@Argument Map<String, Object> input) {
+        @SuppressWarnings("unchecked")
+        Map<String, Object> actualInput = input.containsKey("input")
+            ? (Map<String, Object>) input.get("input")
+            : input;
+
+        // Hôtels concernés : celui du hotelId, sinon tous ceux de la ville
+        List<HotelTenant> hotels = searchedHotels(actualInput);
+        if (hotels.isEmpty()) {
+            log.info("[GraphQL] searchOffers - no hotel served here matches {}", actualInput);
+            return createEmptyOffersResponse();
+        }
+        // Cache court, invalidé hôtel par hôtel et nuit par nuit quand la disponibilité change
+        String cacheKey = new TreeMap<>(actualInput).toString();
+        Map<String, Object> cached = searchCache.get(cacheKey);
+        if (cached != null) {
+            log.info("[GraphQL] searchOffers - cache hit, {} offers", cached.get("totalCount"));
+            return cached;
+        }
+        long cacheVersion = searchCache.version();
+        Map<String, Object> response = findOffers(actualInput, hotels);
+        searchCache.put(cacheKey, hotels.stream().map(HotelTenant::getHotelDbId).collect(Collectors.toList()),
+                        parseDateOrNull(actualInput.get("arrivalDate")),
+                        parseDateOrNull(actualInput.get("departureDate")), response, cacheVersion);
+        return response;
+    }
+    /**
+     * Hôtels servis ici qui répondent au hotelId (s'il est donné), à la ville et au nombre d'étoiles.
+     */
+    private List<HotelTenant> searchedHotels(Map<String, Object> input) {
+        String city = (String) input.get("city");
+        String requestedHotelId = (String) input.get("hotelId");
+        Integer minStars = (Integer) input.get("minStars");
+        List<HotelTenant> candidates = requestedHotelId != null && !requestedHotelId.isEmpty()
+            ? tenants.find(requestedHotelId).map(Collections::singletonList).orElse(Collections.emptyList())
+            : tenants.inCity(city);
+        return candidates.stream()
+            .filter(tenant -> tenant.isInCity(city))
+            .filter(tenant -> minStars == null || tenant.getNbEtoiles() >= minStars)
+            .collect(Collectors.toList());
+    }
+    private Map<String, Object> findOffers(Map<String, Object> actualInput, List<HotelTenant> hotels) {
+        log.info("[GraphQL] searchOffers - input={}, hotels={}", actualInput, hotels);
+
+        // Les dates peuvent être String ou LocalDate selon comment GraphQL les envoie
+        Object arrivalDateObj = actualInput.get("arrivalDate");
+        Object departureDateObj = actualInput.get("departureDate");
+
+        String arrivalDateStr = null;
+        String departureDateStr = null;
+
+        if (arrivalDateObj instanceof String) {
+            arrivalDateStr = (String) arrivalDateObj;
+        } else if (arrivalDateObj instanceof LocalDate) {
+            arrivalDateStr = ((LocalDate) arrivalDateObj).toString();
+        }
+
+        if (departureDateObj instanceof String) {
+            departureDateStr = (String) departureDateObj;
+        } else if (departureDateObj instanceof LocalDate) {
+            departureDateStr = ((LocalDate) departureDateObj).toString();
+        }
+
+        Integer numPersons = (Integer) actualInput.get("numPersons");
+        // La grille des catégories est propre à chaque hôtel : capacités [min, max] par hôtel
+        String category = (String) actualInput.get("category");
+        Map<Long, int[]> categoryCapacity = new HashMap<>();
+        if (category != null && !category.isEmpty()) {
+            for (HotelTenant tenant : hotels) {
+                int[] capacity = tenant.categoryCapacity(category);
+                if (capacity != null) {
+                    categoryCapacity.put(tenant.getHotelDbId(), capacity);
+                }
+            }
+            if (categoryCapacity.isEmpty()) {
+                log.info("[GraphQL] Unknown category {} - returning 0 offers", category);
+                return createEmptyOffersResponse();
+            }
+        }
+
+        // Parser les dates
+        LocalDate arrivalDate = null;
+        LocalDate departureDate = null;
+        try {
+            if (arrivalDateStr != null) arrivalDate = LocalDate.parse(arrivalDateStr, DATE_FORMATTER);
+            if (departureDateStr != null) departureDate = LocalDate.parse(departureDateStr, DATE_FORMATTER);
+        } catch (Exception e) {
+            log.warn("[GraphQL] Invalid dates: {} - {}", arrivalDateStr, departureDateStr);
+            return createEmptyOffersResponse();
+        }
+        int numNights = (arrivalDate != null && departureDate != null)
+            ? (int) java.time.temporal.ChronoUnit.DAYS.between(arrivalDate, departureDate)
+            : 1;
+        // Hôtels, tri, curseur et capacité dans la requête ; disponibilité vérifiée sur l'index en mémoire
+        RoomQuery roomQuery = roomQuery(nestedArgument(actualInput, "pagination"), nestedArgument(actualInput, "sort"))
+            .hotels(category != null && !category.isEmpty()
+                ? categoryCapacity.keySet()
+                : hotels.stream().map(HotelTenant::getHotelDbId).collect(Collectors.toList()))
+            .minCapacity(numPersons != null ? numPersons : 0);
+        // Catégorie (enveloppe des capacités des hôtels) et fourchette de prix (sur le total du séjour)
+        // évaluées par la requête
+        if (!categoryCapacity.isEmpty()) {
+            int minCapacity = Integer.MAX_VALUE;
+            int maxCapacity = Integer.MIN_VALUE;
+            for (int[] capacity : categoryCapacity.values()) {
+                minCapacity = Math.min(minCapacity, capacity[0]);
+                maxCapacity = Math.max(maxCapacity, capacity[1]);
+            }
+            roomQuery.minCapacity(Math.max(roomQuery.getMinCapacity(), minCapacity))
+                     .maxCapacity(maxCapacity == Integer.MAX_VALUE ? null : maxCapacity);
+        }
+        Map<String, Object> priceRange = nestedArgument(actualInput, "priceRange");
+        if (priceRange != null) {
+            roomQuery.totalPriceRange((Integer) priceRange.get("minPrice"), (Integer) priceRange.get("maxPrice"), numNights);
+        }
+        final LocalDate arrival = arrivalDate;
+        final LocalDate departure = departureDate;
+        RoomPage page = roomSearchService.search(roomQuery,
+            chambre -> inCategory(chambre, categoryCapacity) && isRoomAvailable(chambre, arrival, departure));
+        log.info("[GraphQL] {} - {} room types available on this page", roomQuery, page.getRoomTypes().size());
+        // Construire les offres
+        List<Map<String, Object>> offers = new ArrayList<>();
+        // Une offre par type de chambre, avec le nombre de chambres libres
+        for (RoomTypeGroup type : page.getRoomTypes()) {
+            HotelTenant tenant = tenants.byHotelDbId(type.getHotelId());
+            ChambreEntity chambre = type.getSample();
+            String roomCategory = tenant.category(chambre.getNbLits());
+            Map<String, Object> offer = new HashMap<>();
+            offer.put("available", true);
+            // Hotel info
+            offer.put("hotel", hotelInfo(tenant));
+            // Room info
+            Map<String, Object> room = new HashMap<>();
+            room.put("id", type.getId());
+            room.put("availableCount", type.getAvailableCount());
+            room.put("category", roomCategory);
+            room.put("capacity", chambre.getNbLits());
+            room.put("pricePerNight", (double) chambre.getPrixParNuit());
+            room.put("features", Arrays.asList("WiFi", "TV", "Climatisation"));
+            List<Map<String, Object>> images = new ArrayList<>();
+            if (chambre.getImageUrl() != null) {
+                Map<String, Object> img = new HashMap<>();
+                img.put("url", chambre.getImageUrl());
+                img.put("description", "Chambre " + roomCategory);
+                images.add(img);
+            }
+            room.put("images", images);
+            offer.put("room", room);
+            // Prix
+            double pricePerNight = chambre.getPrixParNuit();
+            double totalPrice = pricePerNight * numNights;
+            // Jeton signé : hôtel, chambre, dates, personnes et prix annoncé, valable offerTtlSeconds
+            offer.put("offerId", offerTokenCodec.encode(new OfferToken(
+                tenant.getId(), type.getId(), arrivalDate, departureDate,
+                numPersons != null ? numPersons : chambre.getNbLits(),
+                Math.round(totalPrice * 100), System.currentTimeMillis() + offerTtlSeconds * 1000L)));
+            offer.put("arrivalDate", arrivalDateStr);
+            offer.put("departureDate", departureDateStr);
+            offer.put("numNights", numNights);
+            offer.put("pricePerNight", pricePerNight);
+            offer.put("totalPrice", totalPrice);
+            offer.put("discountRate", 0.0);
+            offer.put("finalPrice", totalPrice);
+            offer.put("currency", "EUR");
+            offers.add(offer);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("offers", offers);
+        response.put("totalCount", offers.size());
+        response.put("hasNextPage", page.hasNextPage());
+        response.put("nextCursor", page.getNextCursor());
+
+        log.info("[GraphQL] searchOffers success - {} offers found", offers.size());
+        return response;
+    }
+    // ==================== Query : reservation ====================
+    @QueryMapping
+    public Map<String, Object> reservation(
+        @Argument String reservationId,
+        @Argument String hotelId,
+        @Argument String clientEmail
+    ) {
+        log.info("[GraphQL] reservation - reservationId={}, hotelId={}, clientEmail={}",
+                 reservationId, hotelId, clientEmail);
+        if (reservationId == null) {
+            return null;
+        }
+        // Clé primaire ("RES-<n>") ou référence / code de confirmation : toujours une lecture indexée.
+        // L'email client n'est pas stocké en base, il ne sert pas de critère.
+        return hotelDatabaseService.findReservation(reservationId)
+            .map(r -> toReservationMap(r, "CONFIRMED"))
+            .filter(r -> hotelId == null || hotelId.equalsIgnoreCase((String) r.get("hotelId")))
+            .orElse(null);
+    }
+    // ==================== Query : reservationsByClient / reservationsByAgency ====================
+    @QueryMapping
+    public Map<String, Object> reservationsByClient(
+        @Argument String clientName,
+        @Argument Map<String, Object> pagination
+    ) {
+        log.info("[GraphQL] reservationsByClient - clientName={}, pagination={}", clientName, pagination);
+        pagination = nestedArgument(pagination, "pagination");
+        int pageSize = pageSize(pagination);
+        // Une ligne de plus que la page : indique s'il reste une page sans COUNT
+        return toReservationPage(hotelDatabaseService.findReservationsByClient(
+            clientName, afterCursor(pagination), pageSize + 1), pageSize);
+    }
+    @QueryMapping
+    public Map<String, Object> reservationsByAgency(
+        @Argument String agencyName,
+        @Argument Map<String, Object> pagination
+    ) {
+        log.info("[GraphQL] reservationsByAgency - agencyName={}, pagination={}", agencyName, pagination);
+        pagination = nestedArgument(pagination, "pagination");
+        int pageSize = pageSize(pagination);
+        return toReservationPage(hotelDatabaseService.findReservationsByAgence(
+            agencyName, afterCursor(pagination), pageSize + 1), pageSize);
+    }
+    // ==================== Mutation : makeReservation ====================
+    @MutationMapping
+    public Map<String, Object> makeReservation(@Argument Map<String, Object> input) {
+        log.info("[GraphQL] makeReservation - input={}", input);
+
+        // Extraire le vrai input (peut être imbriqué)
+        @SuppressWarnings("unchecked")
+        Map<String, Object> actualInput = input.containsKey("input")
+            ? (Map<String, Object>) input.get("input")
+            : input;
+
+        HotelTenant tenant = tenant((String) actualInput.get("hotelId"));
+        // Jeton d'offre signé : chambre, dates et prix annoncé en sont extraits
+        Map<String, Object> resolvedInput = new HashMap<>(actualInput);
+        OfferToken offer = applyOfferToken(tenant, resolvedInput);
+
+        // Clé d'idempotence : un rejeu (retry agence/client) renvoie la confirmation d'origine
+        String idempotencyKey = (String) resolvedInput.get("idempotencyKey");
+        String fingerprint = resolvedInput.get("roomId") + "|" + resolvedInput.get("arrivalDate") + "|"
+            + resolvedInput.get("departureDate") + "|" + resolvedInput.get("clientName") + "|"
+            + resolvedInput.get("clientFirstName");
+        String scopedKey = idempotencyKey != null && !idempotencyKey.isEmpty()
+            ? tenant.getId() + ":" + idempotencyKey
+            : null;
+        return idempotencyStore.execute(scopedKey, fingerprint, () -> createReservation(tenant, resolvedInput, offer));
+    }
+
+    private Map<String, Object> createReservation(HotelTenant tenant, Map<String, Object> actualInput, OfferToken offer) {
+        String roomIdStr = (String) actualInput.get("roomId");
+        String clientName = (String) actualInput.get("clientName");
+        String clientFirstName = (String) actualInput.get("clientFirstName");
+        String clientCard = (String) actualInput.get("clientCard");
+
+        // Les dates peuvent être String ou LocalDate
+        Object arrivalDateObj = actualInput.get("arrivalDate");
+        Object departureDateObj = actualInput.get("departureDate");
+
+        String arrivalDateStr = null;
+        String departureDateStr = null;
+
+        if (arrivalDateObj instanceof String) {
+            arrivalDateStr = (String) arrivalDateObj;
+        } else if (arrivalDateObj instanceof LocalDate) {
+            arrivalDateStr = ((LocalDate) arrivalDateObj).toString();
+        }
+
+        if (departureDateObj instanceof String) {
+            departureDateStr = (String) departureDateObj;
+        } else if (departureDateObj instanceof LocalDate) {
+            departureDateStr = ((LocalDate) departureDateObj).toString();
+        }
+
+        Integer numPersons = (Integer) actualInput.get("numPersons");
+        String specialRequests = (String) actualInput.get("specialRequests");
+        String agencyName = (String) actualInput.get("agencyName");
+        String holdId = (String) actualInput.get("holdId");
+        // Parser dates
+        LocalDate arrivalDate;
+        LocalDate departureDate;
+        try {
+            arrivalDate = LocalDate.parse(arrivalDateStr, DATE_FORMATTER);
+            departureDate = LocalDate.parse(departureDateStr, DATE_FORMATTER);
+        } catch (Exception e) {
+            throw new RuntimeException("Invalid dates: " + arrivalDateStr + " - " + departureDateStr);
+        }
+        // roomId désigne une chambre ("201") ou un type ("T2-220"). Pour un type, la chambre est celle
+        // du hold de l'agence, sinon une chambre libre attribuée maintenant et bloquée jusqu'à l'enregistrement
+        boolean roomType = RoomTypeGroup.isTypeId(roomIdStr);
+        InventoryHoldStore.Hold claim = null;
+        int roomNumber;
+        InventoryHoldStore.Hold agencyHold = roomType && holdId != null && !holdId.isEmpty() ? holdStore.get(holdId) : null;
+        if (agencyHold != null) {
+            roomNumber = agencyHold.getRoomNumero();
+        } else if (roomType) {
+            claim = claimRoomOfType(tenant, roomIdStr, arrivalDate, departureDate, numPersons, agencyName, ROOM_CLAIM_TTL_SECONDS);
+            if (claim == null) {
+                throw new RuntimeException("No room of type " + roomIdStr + " available for the requested period");
+            }
+            roomNumber = claim.getRoomNumero();
+            holdId = null;
+        } else {
+            roomNumber = parseRoomNumber(roomIdStr);
+        }
+        // Vérifier que la chambre existe (chercher par numero dans l'hôtel, pas par id)
+        Optional<ChambreEntity> chambreOpt = chambreRepository.findByHotelIdAndNumero(tenant.getHotelDbId(), roomNumber);
+        if (!chambreOpt.isPresent()) {
+            log.error("[GraphQL] makeReservation - Room not found with numero: {}", roomNumber);
+            throw new RuntimeException("Room not found with numero: " + roomNumber);
+        }
+        ChambreEntity chambre = chambreOpt.get();
+        log.info("[GraphQL] makeReservation - Found room: id={}, numero={}, nbLits={}",
+                 chambre.getId(), chambre.getNumero(), chambre.getNbLits());
+        if (roomType && !RoomTypeGroup.fromId(tenant.getHotelDbId(), roomIdStr).matches(chambre)) {
+            throw new RuntimeException("Hold " + holdId + " does not match room type " + roomIdStr);
+        }
+        // Un hold valide garantit déjà la chambre : pas de nouvelle vérification de disponibilité.
+        // Il reste en place jusqu'à ce que la réservation soit dans l'index (consommé plus bas),
+        // et il est rendu si l'enregistrement échoue
+        InventoryHoldStore.Hold hold = null;
+        if (holdId != null && !holdId.isEmpty()) {
+            try {
+                hold = holdStore.acquire(holdId, chambre.getId(), arrivalDate, departureDate);
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                throw new RuntimeException(e.getMessage());
+            }
+            if (hold == null) {
+                log.warn("[GraphQL] makeReservation - hold {} unknown or expired, falling back to availability check", holdId);
+            }
+        }
+        // Vérifier la disponibilité
+        if (hold == null && claim == null && !isRoomAvailable(chambre, arrivalDate, departureDate)) {
+            throw new RuntimeException("Room not available for the requested period");
+        }
+        // Créer la réservation
+        ReservationEntity reservation = new ReservationEntity();
+        reservation.setChambre(chambre);
+        reservation.setClientNom(clientName);
+        reservation.setClientPrenom(clientFirstName);
+        reservation.setClientCarte(maskCard(clientCard));
+        reservation.setDebut(arrivalDate);
+        reservation.setFin(departureDate);
+        if (agencyName != null && !agencyName.isEmpty()) {
+            reservation.setAgence(agencyName);
+        }
+        // Le prix annoncé dans le jeton d'offre fait foi ; conservé avec la réservation
+        int numNights = (int) java.time.temporal.ChronoUnit.DAYS.between(arrivalDate, departureDate);
+        double totalPrice = offer != null ? offer.getTotalPrice() : chambre.getPrixParNuit() * numNights;
+        int bookedPersons = numPersons != null ? numPersons : chambre.getNbLits();
+        reservation.setNbPersonnes(bookedPersons);
+        reservation.setPrixTotal(totalPrice);
+        // Le code de confirmation sert de référence : le client peut retrouver ou annuler sa réservation avec
+        String confirmationCode = "CONF-" + idGenerator.nextCode();
+        reservation.setReference(confirmationCode);
+        // Sauvegarder
+        ReservationEntity savedReservation;
+        try {
+            savedReservation = reservationRepository.save(reservation);
+            availabilityIndex.reserved(chambre, savedReservation.getId(), arrivalDate, departureDate);
+        } catch (RuntimeException e) {
+            if (hold != null) {
+                holdStore.restore(hold);
+            }
+            throw e;
+        }
+        // La réservation est dans l'index : le hold de l'agence ou d'attribution n'a plus lieu d'être
+        if (hold != null) {
+            holdStore.consume(hold.getHoldId(), chambre.getId(), arrivalDate, departureDate);
+        }
+        if (claim != null) {
+            holdStore.consume(claim.getHoldId(), chambre.getId(), arrivalDate, departureDate);
+        }
+        // Construire la réponse
+        Map<String, Object> response = new HashMap<>();
+        response.put("reservationId", "RES-" + savedReservation.getId());
+        response.put("hotelId", tenant.getId());
+        response.put("clientName", clientName);
+        response.put("status", "CONFIRMED");
+        response.put("totalPrice", totalPrice);
+        response.put("createdAt", System.currentTimeMillis());
+        response.put("updatedAt", System.currentTimeMillis());
+        response.put("confirmationCode", confirmationCode);
+        response.put("room", reservedRoom(tenant, chambre));
+        response.put("arrivalDate", arrivalDateStr);
+        response.put("departureDate", departureDateStr);
+        response.put("numPersons", bookedPersons);
+        if (specialRequests != null) {
+            response.put("specialRequests", specialRequests);
+        }
+        log.info("[GraphQL] makeReservation success - hotel={}, reservationId={}, confirmationCode={}",
+                 tenant.getId(), savedReservation.getId(), confirmationCode);
+        return response;
+    }
+    // ==================== Mutation : holdOffer ====================
+    @MutationMapping
+    public Map<String, Object> holdOffer(@Argument Map<String, Object> input) {
+        log.info("[GraphQL] holdOffer - input={}", input);
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> actualInput = input.containsKey("input")
+            ? (Map<String, Object>) input.get("input")
+            : input;
+        actualInput = new HashMap<>(actualInput);
+        HotelTenant tenant = tenant((String) actualInput.get("hotelId"));
+        applyOfferToken(tenant, actualInput);
+
+        LocalDate arrivalDate = parseDate(actualInput.get("arrivalDate"));
+        LocalDate departureDate = parseDate(actualInput.get("departureDate"));
+        Integer numPersons = (Integer) actualInput.get("numPersons");
+        String agencyName = (String) actualInput.get("agencyName");
+        Integer ttlSeconds = (Integer) actualInput.get("ttlSeconds");
+
+        if (arrivalDate == null || departureDate == null || !departureDate.isAfter(arrivalDate)) {
+            throw new RuntimeException("Invalid dates: " + arrivalDate + " - " + departureDate);
+        }
+        String roomId = (String) actualInput.get("roomId");
+        if (RoomTypeGroup.isTypeId(roomId)) {
+            // Type de chambre : le hold porte sur la première chambre libre du type
+            InventoryHoldStore.Hold hold = claimRoomOfType(tenant, roomId, arrivalDate, departureDate, numPersons, agencyName,
+                ttlSeconds != null ? ttlSeconds.longValue() : null);
+            if (hold == null) {
+                throw new RuntimeException("No room of type " + roomId + " available for the requested period");
+            }
+            return toHoldMap(hold);
+        }
+        int roomNumber = parseRoomNumber(roomId);
+        ChambreEntity chambre = chambreRepository.findByHotelIdAndNumero(tenant.getHotelDbId(), roomNumber)
+            .orElseThrow(() -> new RuntimeException("Room not found with numero: " + roomNumber));
+        if (numPersons != null && chambre.getNbLits() < numPersons) {
+            throw new RuntimeException("Room " + roomNumber + " cannot accommodate " + numPersons + " persons");
+        }
+
+        InventoryHoldStore.Hold hold = holdStore.place(chambre, arrivalDate, departureDate,
+            numPersons != null ? numPersons : chambre.getNbLits(), agencyName,
+            ttlSeconds != null ? ttlSeconds.longValue() : null,
+            () -> availabilityIndex.isFree(chambre.getId(), arrivalDate, departureDate));
+        if (hold == null) {
+            throw new RuntimeException("Room not available for the requested period");
+        }
+
+        return toHoldMap(hold);
+    }
+
+    // ==================== Mutation : releaseHold ====================
+    @MutationMapping
+    public Boolean releaseHold(@Argument String holdId) {
+        log.info("[GraphQL] releaseHold - holdId={}", holdId);
+        return holdStore.release(holdId);
+    }
+
+    // ==================== Mutation : cancelReservation ====================
+    @MutationMapping
+    public Map<String, Object> cancelReservation(@Argument Map<String, Object> input) {
+        log.info("[GraphQL] cancelReservation - input={}", input);
+        @SuppressWarnings("unchecked")
+        Map<String, Object> actualInput = input.containsKey("input")
+            ? (Map<String, Object>) input.get("input")
+            : input;
+        String reservationId = (String) actualInput.get("reservationId");
+        String reason = (String) actualInput.get("reason");
+        HotelTenant tenant = tenant((String) actualInput.get("hotelId"));
+        String clientName = (String) actualInput.get("clientName");
+        String agencyName = (String) actualInput.get("agencyName");
+        if (clientName != null && clientName.isEmpty()) clientName = null;
+        if (agencyName != null && agencyName.isEmpty()) agencyName = null;
+        if (clientName == null && agencyName == null) {
+            throw new RuntimeException("clientName or agencyName is required to cancel a reservation");
+        }
+        // Lecture indexée (id ou référence) et suppression dans une seule transaction ;
+        // disponibilité et cache de recherche mis à jour pour les seules nuits libérées.
+        // Les identifiants RES-<n> se devinent : l'hôtel et le titulaire doivent correspondre
+        Optional<ReservationEntity> cancelled = hotelDatabaseService.cancelReservation(
+            reservationId, tenant.getHotelDbId(), clientName, agencyName);
+        Map<String, Object> response = new HashMap<>();
+        if (!cancelled.isPresent()) {
+            response.put("success", false);
+            response.put("message", "Reservation not found: " + reservationId);
+            response.put("refundAmount", 0.0);
+            return response;
+        }
+        Map<String, Object> reservation = toReservationMap(cancelled.get(), "CANCELLED");
+        response.put("success", true);
+        response.put("message", reason != null && !reason.isEmpty()
+            ? "Reservation cancelled: " + reason
+            : "Reservation cancelled");
+        response.put("cancelledReservation", reservation);
+        response.put("refundAmount", reservation.get("totalPrice"));
+        log.info("[GraphQL] cancelReservation success - reservationId={}, reference={}",
+                 reservation.get("reservationId"), reservation.get("confirmationCode"));
+        return response;
+    }
+    // ==================== Méthodes utilitaires ====================
+    /**
+     * Attribue une chambre libre d'un type ("T2-220") en y posant un hold : le hold est atomique,
+     * deux demandes concurrentes sur le même type obtiennent donc deux chambres différentes.
+     *
+     * @return le hold posé, ou null si aucune chambre du type n'est libre
+     */
+    private InventoryHoldStore.Hold claimRoomOfType(HotelTenant tenant, String typeId, LocalDate arrivalDate,
+                                                    LocalDate departureDate, Integer numPersons, String agencyName,
+                                                    Long ttlSeconds) {
+        RoomTypeGroup type;
+        try {
+            type = RoomTypeGroup.fromId(tenant.getHotelDbId(), typeId);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException(e.getMessage());
+        }
+        if (numPersons != null && type.getNbLits() < numPersons) {
+            throw new RuntimeException("Room type " + typeId + " cannot accommodate " + numPersons + " persons");
+        }
+        for (ChambreEntity chambre : roomSearchService.findRoomsOfType(type)) {
+            InventoryHoldStore.Hold hold = holdStore.place(chambre, arrivalDate, departureDate,
+                numPersons != null ? numPersons : type.getNbLits(), agencyName, ttlSeconds,
+                () -> availabilityIndex.isFree(chambre.getId(), arrivalDate, departureDate));
+            if (hold != null) {
+                log.info("[GraphQL] {} room type {} - room {} assigned ({})",
+                         tenant.getId(), typeId, chambre.getNumero(), hold.getHoldId());
+                return hold;
+            }
+        }
+        return null;
+    }
+    private Map<String, Object> toHoldMap(InventoryHoldStore.Hold hold) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("holdId", hold.getHoldId());
+        response.put("hotelId", tenants.byHotelDbId(hold.getHotelId()).getId());
+        response.put("roomId", String.valueOf(hold.getRoomNumero()));
+        response.put("arrivalDate", hold.getArrivalDate().toString());
+        response.put("departureDate", hold.getDepartureDate().toString());
+        response.put("numPersons", hold.getNumPersons());
+        response.put("expiresAt", hold.getExpiresAt());
+        response.put("ttlSeconds", (int) ((hold.getExpiresAt() - System.currentTimeMillis()) / 1000));
+        log.info("[GraphQL] holdOffer success - holdId={}, room={}", hold.getHoldId(), hold.getRoomNumero());
+        return response;
+    }
+    private boolean isRoomAvailable(ChambreEntity chambre, LocalDate arrivalDate, LocalDate departureDate) {
+        if (arrivalDate == null || departureDate == null) {
+            return true;
+        }
+
+        // Un hold actif (posé par une autre recherche) bloque la chambre
+        if (holdStore.isHeld(chambre.getId(), arrivalDate, departureDate)) {
+            log.debug("[GraphQL] Room {} held for {} to {}", chambre.getNumero(), arrivalDate, departureDate);
+            return false;
+        }
+
+        // Calendrier en mémoire : pas de requête par chambre
+        if (!availabilityIndex.isFree(chambre.getId(), arrivalDate, departureDate)) {
+            log.debug("[GraphQL] Room {} not available - conflict with an existing reservation", chambre.getNumero());
+            return false;
+        }
+        return true;
+    }
+    private boolean inCategory(ChambreEntity chambre, Map<Long, int[]> categoryCapacity) {
+        if (categoryCapacity.isEmpty()) {
+            return true;
+        }
+        int[] capacity = categoryCapacity.get(chambre.getHotel().getId());
+        return capacity != null && chambre.getNbLits() >= capacity[0] && chambre.getNbLits() <= capacity[1];
+    }
+    /**
+     * Hôtel servi sous ce hotelId.
+     */
+    private HotelTenant tenant(String hotelId) {
+        return tenants.find(hotelId).orElseThrow(() -> new RuntimeException("Hotel not found: " + hotelId));
+    }
+    /**
+     * Hôtel d'une chambre : l'identifiant du proxy d'hôtel se lit sans le charger.
+     */
+    private HotelTenant tenantOf(ChambreEntity chambre) {
+        HotelTenant tenant = tenants.byHotelDbId(chambre.getHotel().getId());
+        if (tenant == null) {
+            throw new RuntimeException("Hotel #" + chambre.getHotel().getId() + " is not served by " + serverId);
+        }
+        return tenant;
+    }
+    /**
+     * Vue GraphQL (type Hotel) commune aux offres et au catalogue.
+     */
+    private Map<String, Object> hotelInfo(HotelTenant tenant) {
+        Map<String, Object> hotelInfo = new HashMap<>();
+        hotelInfo.put("id", tenant.getId());
+        hotelInfo.put("name", tenant.getNom());
+        hotelInfo.put("stars", tenant.getNbEtoiles());
+        Map<String, Object> address = new HashMap<>();
+        address.put("city", tenant.getVille());
+        address.put("street", tenant.getStreet());
+        address.put("postalCode", tenant.getPostalCode());
+        address.put("country", tenant.getCountry());
+        hotelInfo.put("address", address);
+        return hotelInfo;
+    }
+    /**
+     * Vérifie le jeton d'offre (offerId) et complète l'input avec son contenu.
+     * Les champs envoyés explicitement doivent correspondre au jeton.
+     *
+     * @return le jeton décodé, ou null si l'input n'en contient pas
+     */
+    private OfferToken applyOfferToken(HotelTenant tenant, Map<String, Object> actualInput) {
+        String offerId = (String) actualInput.get("offerId");
+        if (offerId == null || offerId.isEmpty()) {
+            return null;
+        }
+        OfferToken offer;
+        try {
+            offer = offerTokenCodec.decode(offerId);
+        } catch (IllegalArgumentException e) {
+            log.warn("[GraphQL] Offer token rejected: {}", e.getMessage());
+            throw new RuntimeException(e.getMessage());
+        }
+        if (!tenant.getId().equalsIgnoreCase(offer.getHotelId())) {
+            throw new RuntimeException("Offer was issued by hotel " + offer.getHotelId());
+        }
+        matchOrFill(actualInput, "roomId", offer.getRoomId());
+        matchOrFill(actualInput, "arrivalDate", offer.getArrivalDate().toString());
+        matchOrFill(actualInput, "departureDate", offer.getDepartureDate().toString());
+        Integer numPersons = (Integer) actualInput.get("numPersons");
+        if (numPersons == null) {
+            actualInput.put("numPersons", offer.getNumPersons());
+        } else if (numPersons > offer.getNumPersons()) {
+            throw new RuntimeException("Offer was quoted for " + offer.getNumPersons() + " persons");
+        }
+        return offer;
+    }
+
+    private void matchOrFill(Map<String, Object> actualInput, String field, String expected) {
+        Object value = actualInput.get(field);
+        if (value == null) {
+            actualInput.put(field, expected);
+        } else if (!expected.equals(value.toString())) {
+            throw new RuntimeException("Offer does not match " + field + ": " + value);
+        }
+    }
+    /**
+     * Vue GraphQL (type Reservation) d'une réservation en base. La chambre doit être chargée.
+     * Une réservation annulée est supprimée : une ligne en base est CONFIRMED, sauf pour la
+     * réponse d'annulation (CANCELLED). Nombre de personnes et prix sont ceux enregistrés à la
+     * réservation ; les lignes plus anciennes retombent sur la capacité et le tarif de la chambre.
+     */
+    private Map<String, Object> toReservationMap(ReservationEntity r, String status) {
+        ChambreEntity chambre = r.getChambre();
+        HotelTenant tenant = tenantOf(chambre);
+        int numNights = (int) java.time.temporal.ChronoUnit.DAYS.between(r.getDebut(), r.getFin());
+        int numPersons = r.getNbPersonnes() != null ? r.getNbPersonnes() : chambre.getNbLits();
+        double totalPrice = r.getPrixTotal() != null ? r.getPrixTotal() : (double) chambre.getPrixParNuit() * numNights;
+        Map<String, Object> reservation = new HashMap<>();
+        reservation.put("reservationId", "RES-" + r.getId());
+        reservation.put("hotelId", tenant.getId());
+        reservation.put("room", reservedRoom(tenant, chambre));
+        reservation.put("clientName", r.getClientNom());
+        reservation.put("arrivalDate", r.getDebut().toString());
+        reservation.put("departureDate", r.getFin().toString());
+        reservation.put("numPersons", numPersons);
+        reservation.put("totalPrice", totalPrice);
+        reservation.put("status", status);
+        reservation.put("createdAt", createdAtOf(r.getReference()));
+        reservation.put("updatedAt", System.currentTimeMillis());
+        reservation.put("confirmationCode", r.getReference());
+        return reservation;
+    }
+    private Map<String, Object> toReservationPage(List<ReservationEntity> rows, int pageSize) {
+        boolean hasNextPage = rows.size() > pageSize;
+        List<ReservationEntity> page = hasNextPage ? rows.subList(0, pageSize) : rows;
+        List<Map<String, Object>> reservations = page.stream()
+            .map(r -> toReservationMap(r, "CONFIRMED"))
+            .collect(Collectors.toList());
+        Map<String, Object> response = new HashMap<>();
+        response.put("reservations", reservations);
+        response.put("pageSize", pageSize);
+        response.put("hasNextPage", hasNextPage);
+        // Curseur = id de la dernière réservation de la page
+        response.put("nextCursor", hasNextPage ? String.valueOf(page.get(page.size() - 1).getId()) : null);
+        return response;
+    }
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> nestedArgument(Map<String, Object> arguments, String name) {
+        // Un @Argument de type Map reçoit tous les arguments du champ
+        Object value = arguments != null ? arguments.get(name) : null;
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+    private int pageSize(Map<String, Object> pagination) {
+        Object value = pagination != null ? pagination.get("pageSize") : null;
+        int pageSize = value instanceof Number ? ((Number) value).intValue() : DEFAULT_PAGE_SIZE;
+        return Math.max(1, Math.min(pageSize, MAX_PAGE_SIZE));
+    }
+    /**
+     * Tri et page demandés (PaginationInput, RoomSortInput), poussés dans la requête des chambres.
+     */
+    private RoomQuery roomQuery(Map<String, Object> pagination, Map<String, Object> sort) {
+        RoomQuery query = new RoomQuery()
+            .pageSize(pageSize(pagination))
+            .after(pagination != null ? (String) pagination.get("after") : null);
+        if (sort != null) {
+            query.sort(RoomSort.parse(sort.get("field")))
+                 .descending("DESC".equals(String.valueOf(sort.get("direction"))));
+        }
+        return query;
+    }
+    private long afterCursor(Map<String, Object> pagination) {
+        Object after = pagination != null ? pagination.get("after") : null;
+        if (after == null || after.toString().isEmpty()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(after.toString());
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid pagination cursor: " + after);
+        }
+    }
+    /**
+     * Chambre concrète attribuée à une réservation (type RoomType).
+     */
+    private Map<String, Object> reservedRoom(HotelTenant tenant, ChambreEntity chambre) {
+        Map<String, Object> room = new HashMap<>();
+        room.put("id", String.valueOf(chambre.getNumero()));
+        room.put("category", tenant.category(chambre.getNbLits()));
+        room.put("capacity", chambre.getNbLits());
+        room.put("pricePerNight", (double) chambre.getPrixParNuit());
+        room.put("features", Collections.emptyList());
+        room.put("availableCount", 1);
+        room.put("images", Collections.emptyList());
+        return room;
+    }
+    /**
+     * Les références "CONF-<code>" portent leur date de création (identifiant Snowflake).
+     */
+    private long createdAtOf(String reference) {
+        if (reference != null && reference.startsWith("CONF-")) {
+            try {
+                return SnowflakeIdGenerator.timestampOf(SnowflakeIdGenerator.decode(reference.substring(5)));
+            } catch (IllegalArgumentException e) {
+                // Ancienne référence : date inconnue
+            }
+        }
+        return 0L;
+    }
+    private int parseRoomNumber(String roomIdStr) {
+        try {
+            return Integer.parseInt(roomIdStr);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Invalid roomId: " + roomIdStr);
+        }
+    }
+
+    private LocalDate parseDate(Object value) {
+        if (value instanceof LocalDate) {
+            return (LocalDate) value;
+        }
+        if (value instanceof String) {
+            try {
+                return LocalDate.parse((String) value, DATE_FORMATTER);
+            } catch (Exception e) {
+                throw new RuntimeException("Invalid date: " + value);
+            }
+        }
+        return null;
+    }
+
+    private LocalDate parseDateOrNull(Object value) {
+        try {
+            return parseDate(value);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+    private String maskCard(String card) {
+        if (card == null || card.length() < 4) {
+            return "****";
+        }
+        return "****" + card.substring(card.length() - 4);
+    }
+    private Map<String, Object> createEmptyOffersResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("offers", Collections.emptyList());
+        response.put("totalCount", 0);
+        response.put("hasNextPage", false);
+        return response;
+    }
+}
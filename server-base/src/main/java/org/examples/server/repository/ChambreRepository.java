@@ -9,7 +9,9 @@ import java.util.List;
 @Repository
 public interface ChambreRepository extends JpaRepository<ChambreEntity, Long> {
     List<ChambreEntity> findByHotelId(Long hotelId);
-    java.util.Optional<ChambreEntity> findByNumero(int numero);
+    // Numéros uniques par hôtel seulement : un serveur peut héberger plusieurs hôtels
+    java.util.Optional<ChambreEntity> findByHotelIdAndNumero(Long hotelId, int numero);
+    long countByHotelId(Long hotelId);
     @Query("SELECT c FROM ChambreEntity c WHERE c.hotel.id = :hotelId AND c.nbLits >= :nbPersonnes " +
            "AND c.id NOT IN (" +
            "  SELECT DISTINCT r.chambre.id FROM ReservationEntity r " +
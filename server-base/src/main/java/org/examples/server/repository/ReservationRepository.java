@@ -1,14 +1,34 @@
 package org.examples.server.repository;
 import org.examples.server.entity.ReservationEntity;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 @Repository
 public interface ReservationRepository extends JpaRepository<ReservationEntity, Long> {
     List<ReservationEntity> findByChambreId(Long chambreId);
+    // Chambre chargée dans la même requête : l'annulation n'a besoin d'aucun autre accès
+    @Query("SELECT r FROM ReservationEntity r JOIN FETCH r.chambre WHERE r.id = :id")
+    Optional<ReservationEntity> findWithChambreById(@Param("id") Long id);
+    @Query("SELECT r FROM ReservationEntity r JOIN FETCH r.chambre WHERE r.reference = :reference")
+    Optional<ReservationEntity> findWithChambreByReference(@Param("reference") String reference);
+    // Pagination keyset : "id > curseur" parcourt idx_reservation_client / idx_reservation_agence, sans OFFSET
+    @Query("SELECT r FROM ReservationEntity r JOIN FETCH r.chambre " +
+           "WHERE r.clientNom = :clientNom AND r.id > :afterId ORDER BY r.id")
+    List<ReservationEntity> findPageByClientNom(@Param("clientNom") String clientNom,
+                                                @Param("afterId") Long afterId, Pageable pageable);
+    @Query("SELECT r FROM ReservationEntity r JOIN FETCH r.chambre " +
+           "WHERE r.agence = :agence AND r.id > :afterId ORDER BY r.id")
+    List<ReservationEntity> findPageByAgence(@Param("agence") String agence,
+                                             @Param("afterId") Long afterId, Pageable pageable);
+    @Modifying
+    @Query("DELETE FROM ReservationEntity r WHERE r.id = :id")
+    int deleteReservationById(@Param("id") Long id);
     @Query("SELECT r FROM ReservationEntity r WHERE r.chambre.id = :chambreId " +
            "AND r.debut < :fin AND r.fin > :debut")
     List<ReservationEntity> findOverlappingReservations(
@@ -0,0 +1,112 @@
+package org.examples.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Auto-enregistrement des hôtels servis ici auprès des agences.
+ * <p>
+ * Pour chaque agence de {@code hotel.registration.agencies} (host:port TCP), envoie une ligne
+ * {@code {"op":"hotel.register","payload":{"hotelId":..,"url":..,"secret":..}}} par hôtel, au démarrage
+ * puis toutes les {@code hotel.registration.refresh-ms} : une agence redémarrée retrouve ainsi ses hôtels.
+ * Le secret ({@code hotel.registration.secret}) est celui de l'agence ({@code agency.registry.secret}).
+ * Désactivé tant que {@code hotel.registration.url} (endpoint GraphQL public) n'est pas renseigné.
+ */
+@Service
+public class AgencyRegistrationService {
+    private static final Logger log = LoggerFactory.getLogger(AgencyRegistrationService.class);
+
+    @Autowired
+    private HotelTenantRegistry tenants;
+
+    @Value("${hotel.registration.url:}")
+    private String url;
+
+    @Value("${hotel.registration.agencies:}")
+    private String agencies;
+
+    @Value("${hotel.registration.secret:}")
+    private String secret;
+
+    @Value("${hotel.registration.refresh-ms:60000}")
+    private long refreshMs;
+
+    private ScheduledExecutorService scheduler;
+
+    // Après le rattachement des hôtels à la base (HotelTenantRegistry)
+    @Order
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (url.isEmpty() || agencies.isEmpty()) {
+            log.info("[REGISTER] Self-registration disabled (hotel.registration.url / hotel.registration.agencies)");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "agency-registration");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::registerAll, 0, refreshMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void registerAll() {
+        List<String> hotelIds = new ArrayList<>();
+        for (HotelTenant tenant : tenants.all()) {
+            hotelIds.add(tenant.getId());
+        }
+        for (String agency : agencies.split(",")) {
+            agency = agency.trim();
+            if (agency.isEmpty()) continue;
+            try {
+                register(agency, hotelIds);
+            } catch (Exception e) {
+                log.debug("[REGISTER] Agency {} unreachable: {}", agency, e.toString());
+            }
+        }
+    }
+
+    private void register(String agency, List<String> hotelIds) throws Exception {
+        int sep = agency.lastIndexOf(':');
+        String host = sep > 0 ? agency.substring(0, sep) : "localhost";
+        int port = Integer.parseInt(agency.substring(sep + 1));
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), 2000);
+            socket.setSoTimeout(2000);
+            PrintWriter out = new PrintWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8), true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            for (String hotelId : hotelIds) {
+                out.println("{\"op\":\"hotel.register\",\"payload\":{\"hotelId\":\"" + hotelId
+                        + "\",\"url\":\"" + url + "\",\"secret\":\"" + secret + "\"}}");
+                String response = in.readLine();
+                if (response == null || !response.contains("\"status\":\"ok\"")) {
+                    log.warn("[REGISTER] Agency {} refused hotel {}: {}", agency, hotelId, response);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package org.examples.server.service;
+
+import java.time.LocalDate;
+
+/**
+ * Publié quand la disponibilité d'une chambre change sur des nuits données
+ * (réservation créée ou annulée, hold posé, libéré ou expiré).
+ * Les caches de recherche n'invalident que les séjours de cet hôtel qui touchent ces nuits.
+ */
+public class AvailabilityChangedEvent {
+
+    /** Nature du changement : réservation créée ou annulée, hold posé ou levé (libéré ou expiré) */
+    public enum Change { BOOKED, CANCELLED, HELD, RELEASED }
+
+    private final Long hotelId;
+    private final int roomNumero;
+    private final LocalDate debut;
+    private final LocalDate fin;
+    private final Change change;
+
+    /**
+     * @param hotelId clé primaire de l'hôtel de la chambre
+     * @param debut   première nuit concernée (incluse)
+     * @param fin     date de départ (exclue)
+     */
+    public AvailabilityChangedEvent(Long hotelId, int roomNumero, LocalDate debut, LocalDate fin, Change change) {
+        this.hotelId = hotelId;
+        this.roomNumero = roomNumero;
+        this.debut = debut;
+        this.fin = fin;
+        this.change = change;
+    }
+
+    public Long getHotelId() { return hotelId; }
+    public int getRoomNumero() { return roomNumero; }
+    public LocalDate getDebut() { return debut; }
+    public LocalDate getFin() { return fin; }
+    public Change getChange() { return change; }
+
+    @Override
+    public String toString() {
+        return "AvailabilityChangedEvent{" + change + ", hotel=" + hotelId + ", room=" + roomNumero + ", [" + debut + ".." + fin + ")}";
+    }
+}
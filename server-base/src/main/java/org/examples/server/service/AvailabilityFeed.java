@@ -0,0 +1,51 @@
+package org.examples.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+/**
+ * Flux des {@link AvailabilityChangedEvent} du serveur, diffusé aux abonnés de la subscription
+ * GraphQL {@code availabilityChanged} (agences, via WebSocket).
+ * <p>
+ * Diffusion sans mémoire : chaque abonné a un tampon borné ({@code hotel.availability-feed.buffer-size}
+ * événements) et un abonné trop lent pour le vider voit son abonnement terminé en erreur plutôt
+ * que de perdre des événements sans le savoir. Un abonné qui se reconnecte ne reçoit pas ceux émis
+ * entre-temps : l'agence doit donc invalider ses caches de l'hôtel à chaque (re)connexion.
+ */
+@Component
+public class AvailabilityFeed {
+
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityFeed.class);
+
+    private final Sinks.Many<AvailabilityChangedEvent> sink = Sinks.many().multicast().directBestEffort();
+
+    @Value("${hotel.availability-feed.buffer-size:256}")
+    private int bufferSize;
+
+    public Flux<AvailabilityChangedEvent> events() {
+        return sink.asFlux()
+                .onBackpressureBuffer(bufferSize,
+                        event -> log.warn("[FEED] Subscriber too slow ({} events pending) - subscription closed",
+                                          bufferSize),
+                        BufferOverflowStrategy.ERROR);
+    }
+
+    // Émissions sérialisées : les événements arrivent de plusieurs threads (requêtes, roue des holds)
+    @EventListener
+    public synchronized void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        Sinks.EmitResult result = sink.tryEmitNext(event);
+        if (result.isFailure() && result != Sinks.EmitResult.FAIL_ZERO_SUBSCRIBER) {
+            log.warn("[FEED] {} not published: {}", event, result);
+        }
+    }
+
+    public int subscribers() {
+        return sink.currentSubscriberCount();
+    }
+}
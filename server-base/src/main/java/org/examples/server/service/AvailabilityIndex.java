@@ -0,0 +1,153 @@
+package org.examples.server.service;
+
+import org.examples.server.entity.ChambreEntity;
+import org.examples.server.entity.ReservationEntity;
+import org.examples.server.repository.ReservationRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendrier des réservations par chambre, en mémoire.
+ * <p>
+ * Chaque chambre garde ses séjours triés par date d'arrivée ; comme ils ne se chevauchent pas,
+ * un test de disponibilité ne regarde que le dernier séjour commençant avant le départ demandé
+ * (O(log n), sans requête). Le calendrier d'une chambre est chargé depuis la base au premier
+ * accès, puis tenu à jour séjour par séjour : une création ou une annulation ne touche que
+ * les nuits concernées, jamais une reconstruction complète.
+ * <p>
+ * Les chambres sont désignées par leur clé primaire : l'index est partagé par tous les hôtels
+ * du serveur, dont les numéros de chambre peuvent se recouper.
+ */
+@Component
+public class AvailabilityIndex {
+    private static final Logger log = LoggerFactory.getLogger(AvailabilityIndex.class);
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, RoomCalendar> calendars = new ConcurrentHashMap<>();
+
+    /**
+     * Séjours d'une chambre : arrivée → séjour. Protégé par son propre moniteur.
+     */
+    private static final class RoomCalendar {
+        private final TreeMap<LocalDate, Stay> stays = new TreeMap<>();
+
+        synchronized boolean isFree(LocalDate debut, LocalDate fin) {
+            Map.Entry<LocalDate, Stay> last = stays.lowerEntry(fin);
+            return last == null || !last.getValue().fin.isAfter(debut);
+        }
+
+        synchronized void add(Stay stay) {
+            stays.put(stay.debut, stay);
+        }
+
+        synchronized boolean remove(long reservationId, LocalDate debut) {
+            Stay stay = stays.get(debut);
+            if (stay != null && stay.reservationId == reservationId) {
+                stays.remove(debut);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Stay {
+        final long reservationId;
+        final LocalDate debut;
+        final LocalDate fin;
+
+        Stay(long reservationId, LocalDate debut, LocalDate fin) {
+            this.reservationId = reservationId;
+            this.debut = debut;
+            this.fin = fin;
+        }
+    }
+
+    /**
+     * Indique si aucune réservation n'occupe la chambre sur [debut, fin).
+     * Les holds sont gérés à part par {@link InventoryHoldStore}.
+     */
+    public boolean isFree(long chambreId, LocalDate debut, LocalDate fin) {
+        return calendar(chambreId).isFree(debut, fin);
+    }
+
+    /**
+     * Enregistre une réservation. Dans une transaction, l'index n'est modifié qu'après le commit.
+     */
+    public void reserved(ChambreEntity chambre, long reservationId, LocalDate debut, LocalDate fin) {
+        AvailabilityChangedEvent event = changed(chambre, debut, fin, AvailabilityChangedEvent.Change.BOOKED);
+        long chambreId = chambre.getId();
+        afterCommit(() -> {
+            // computeIfPresent attend la fin d'un chargement en cours de la même chambre
+            calendars.computeIfPresent(chambreId, (k, calendar) -> {
+                calendar.add(new Stay(reservationId, debut, fin));
+                return calendar;
+            });
+            log.debug("[AVAILABILITY] {} reserved by #{}", event, reservationId);
+            eventPublisher.publishEvent(event);
+        });
+    }
+
+    /**
+     * Retire une réservation annulée. Dans une transaction, l'index n'est modifié qu'après le commit.
+     */
+    public void released(ChambreEntity chambre, long reservationId, LocalDate debut, LocalDate fin) {
+        AvailabilityChangedEvent event = changed(chambre, debut, fin, AvailabilityChangedEvent.Change.CANCELLED);
+        long chambreId = chambre.getId();
+        afterCommit(() -> {
+            calendars.computeIfPresent(chambreId, (k, calendar) -> {
+                calendar.remove(reservationId, debut);
+                return calendar;
+            });
+            log.info("[AVAILABILITY] {} released by cancellation of #{}", event, reservationId);
+            eventPublisher.publishEvent(event);
+        });
+    }
+
+    private RoomCalendar calendar(long chambreId) {
+        // computeIfAbsent sérialise le chargement avec les mises à jour de la même chambre
+        return calendars.computeIfAbsent(chambreId, this::load);
+    }
+
+    private RoomCalendar load(long chambreId) {
+        RoomCalendar calendar = new RoomCalendar();
+        for (ReservationEntity r : reservationRepository.findByChambreId(chambreId)) {
+            calendar.add(new Stay(r.getId(), r.getDebut(), r.getFin()));
+        }
+        log.info("[AVAILABILITY] Loaded room #{} calendar - {} stays", chambreId, calendar.stays.size());
+        return calendar;
+    }
+
+    private static AvailabilityChangedEvent changed(ChambreEntity chambre, LocalDate debut, LocalDate fin,
+                                                    AvailabilityChangedEvent.Change change) {
+        // L'identifiant d'un proxy d'hôtel se lit sans le charger
+        return new AvailabilityChangedEvent(chambre.getHotel().getId(), chambre.getNumero(), debut, fin, change);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package org.examples.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+
+/**
+ * Versions des catalogues des hôtels et journal de leurs changements, pour la synchronisation
+ * incrémentale des répliques des agences (query {@code catalogChanges(hotelId, since)}).
+ * <p>
+ * Chaque changement reçoit le numéro suivant d'un compteur commun au serveur, qui part de l'heure
+ * de démarrage en millisecondes : après un redémarrage, les versions dépassent toutes celles de
+ * l'instance précédente, dont le journal est perdu ; une version antérieure au démarrage impose
+ * donc une resynchronisation complète. Le journal d'un hôtel garde ses
+ * {@code hotel.catalog.change-log-size} derniers changements ; au-delà, même conséquence.
+ * <p>
+ * Un changement désigne un type de chambre ({@link RoomTypeGroup#getId()}) créé, modifié ou
+ * supprimé, ou tout le catalogue (infos de l'hôtel, chambre changée de type).
+ */
+@Component
+public class CatalogChangeLog {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogChangeLog.class);
+
+    private final long baseVersion = System.currentTimeMillis();
+    private long lastVersion = baseVersion;
+
+    @Value("${hotel.catalog.change-log-size:1000}")
+    private int maxChanges;
+
+    private static final class Change {
+        final long version;
+        /** null : tout le catalogue */
+        final String roomTypeId;
+
+        Change(long version, String roomTypeId) {
+            this.version = version;
+            this.roomTypeId = roomTypeId;
+        }
+    }
+
+    private static final class HotelLog {
+        long version;
+        // Versions <= truncatedAt ne sont plus dans le journal
+        long truncatedAt;
+        final Deque<Change> changes = new ArrayDeque<>();
+    }
+
+    private final Map<Long, HotelLog> hotels = new HashMap<>();
+
+    /**
+     * Changements d'un catalogue depuis une version.
+     */
+    public static final class Delta {
+        private final long version;
+        private final boolean full;
+        private final Set<String> roomTypeIds;
+
+        Delta(long version, boolean full, Set<String> roomTypeIds) {
+            this.version = version;
+            this.full = full;
+            this.roomTypeIds = roomTypeIds;
+        }
+
+        /** Version courante du catalogue, à renvoyer comme {@code since} à la synchronisation suivante */
+        public long getVersion() { return version; }
+        /** Vrai si le delta ne peut être calculé : le catalogue complet est à renvoyer */
+        public boolean isFull() { return full; }
+        /** Types de chambres touchés depuis {@code since} (vide si {@link #isFull()}) */
+        public Set<String> getRoomTypeIds() { return roomTypeIds; }
+    }
+
+    public synchronized long version(Long hotelDbId) {
+        HotelLog hotel = hotels.get(hotelDbId);
+        return hotel != null ? hotel.version : baseVersion;
+    }
+
+    public synchronized Delta since(Long hotelDbId, long since) {
+        HotelLog hotel = hotels.get(hotelDbId);
+        long version = hotel != null ? hotel.version : baseVersion;
+        if (since < baseVersion || since > version || (hotel != null && since < hotel.truncatedAt)) {
+            return new Delta(version, true, Collections.emptySet());
+        }
+        Set<String> roomTypeIds = new LinkedHashSet<>();
+        if (hotel != null) {
+            for (Iterator<Change> it = hotel.changes.descendingIterator(); it.hasNext(); ) {
+                Change change = it.next();
+                if (change.version <= since) {
+                    break;
+                }
+                if (change.roomTypeId == null) {
+                    return new Delta(version, true, Collections.emptySet());
+                }
+                roomTypeIds.add(change.roomTypeId);
+            }
+        }
+        return new Delta(version, false, roomTypeIds);
+    }
+
+    /**
+     * Type de chambre créé, modifié ou vidé de ses chambres. Dans une transaction, enregistré après le commit.
+     */
+    public void roomTypeChanged(Long hotelDbId, String roomTypeId) {
+        afterCommit(() -> record(hotelDbId, roomTypeId));
+    }
+
+    /**
+     * Tout le catalogue de l'hôtel est à relire. Dans une transaction, enregistré après le commit.
+     */
+    public void catalogChanged(Long hotelDbId) {
+        afterCommit(() -> record(hotelDbId, null));
+    }
+
+    private synchronized void record(Long hotelDbId, String roomTypeId) {
+        HotelLog hotel = hotels.computeIfAbsent(hotelDbId, id -> new HotelLog());
+        hotel.version = ++lastVersion;
+        hotel.changes.addLast(new Change(hotel.version, roomTypeId));
+        while (hotel.changes.size() > Math.max(1, maxChanges)) {
+            hotel.truncatedAt = hotel.changes.removeFirst().version;
+        }
+        log.debug("[CATALOG] hotel #{} version {} ({})", hotelDbId, hotel.version,
+                  roomTypeId != null ? roomTypeId : "full catalog");
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package org.examples.server.service;
+
+import org.examples.server.entity.ChambreEntity;
+import org.examples.server.entity.HotelEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * Reporte dans le {@link CatalogChangeLog} les écritures JPA qui modifient un catalogue
+ * (instancié par Hibernate via le conteneur de beans Spring).
+ * <p>
+ * Une chambre modifiée peut avoir changé de type sans que l'ancien soit connu ici :
+ * tout le catalogue de l'hôtel est alors à relire.
+ */
+public class CatalogEntityListener {
+
+    @Autowired
+    private CatalogChangeLog changeLog;
+
+    @PostPersist
+    @PostRemove
+    public void roomAddedOrRemoved(Object entity) {
+        if (entity instanceof ChambreEntity) {
+            ChambreEntity chambre = (ChambreEntity) entity;
+            changeLog.roomTypeChanged(chambre.getHotel().getId(),
+                new RoomTypeGroup(chambre.getHotel().getId(), chambre.getNbLits(), chambre.getPrixParNuit()).getId());
+        }
+    }
+
+    @PostUpdate
+    public void updated(Object entity) {
+        if (entity instanceof ChambreEntity) {
+            changeLog.catalogChanged(((ChambreEntity) entity).getHotel().getId());
+        } else if (entity instanceof HotelEntity) {
+            changeLog.catalogChanged(((HotelEntity) entity).getId());
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package org.examples.server.service;
+
+/**
+ * Budget de la requête épuisé : renvoyé à l'agence avec le code DEADLINE_EXCEEDED.
+ */
+public class DeadlineExceededException extends RuntimeException {
+    public DeadlineExceededException(String message) {
+        super(message);
+    }
+}
@@ -2,7 +2,9 @@ package org.examples.server.service;
 
 import org.examples.server.entity.*;
 import org.examples.server.repository.*;
+import org.examples.server.util.SnowflakeIdGenerator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.slf4j.Logger;
@@ -11,7 +13,6 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @Transactional
@@ -30,6 +31,12 @@ public class HotelDatabaseService {
     @Autowired
     private AgenceRepository agenceRepository;
 
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private AvailabilityIndex availabilityIndex;
+
     public HotelEntity saveHotel(HotelEntity hotel) {
         log.info("[DB] Saving hotel: {}", hotel.getNom());
         return hotelRepository.save(hotel);
@@ -76,12 +83,90 @@ public class HotelDatabaseService {
         reservation.setChambre(chambre);
         reservation.setClientCarte(carte);
         reservation.setAgence(agence);
-        reservation.setReference(UUID.randomUUID().toString().substring(0, 8).toUpperCase());
+        reservation.setReference(idGenerator.nextCode());
         
         log.info("[DB] Creating reservation ref: {} for chambre: {} from {} to {}", 
                  reservation.getReference(), chambre.getNumero(), debut, fin);
         
-        return reservationRepository.save(reservation);
+        ReservationEntity saved = reservationRepository.save(reservation);
+        availabilityIndex.reserved(chambre, saved.getId(), debut, fin);
+        return saved;
+    }
+
+    /**
+     * Recherche une réservation par identifiant ("RES-42" ou "42") ou par référence,
+     * toujours via index (clé primaire ou idx_reservation_reference). La chambre est chargée.
+     */
+    @Transactional(readOnly = true)
+    public Optional<ReservationEntity> findReservation(String reservationIdOrReference) {
+        if (reservationIdOrReference == null || reservationIdOrReference.isEmpty()) {
+            return Optional.empty();
+        }
+        Long id = parseReservationId(reservationIdOrReference);
+        if (id != null) {
+            Optional<ReservationEntity> byId = reservationRepository.findWithChambreById(id);
+            if (byId.isPresent()) {
+                return byId;
+            }
+        }
+        return reservationRepository.findWithChambreByReference(reservationIdOrReference);
+    }
+
+    /**
+     * Annule une réservation en une seule transaction (lecture indexée + DELETE).
+     * Le calendrier de disponibilité et les recherches en cache ne sont mis à jour
+     * qu'au commit, et uniquement pour la chambre et les nuits libérées.
+     * <p>
+     * La réservation doit être dans l'hôtel {@code hotelDbId} et au nom du client {@code clientNom}
+     * ou de l'agence {@code agence} (null : critère non fourni) ; sinon elle est traitée comme inconnue.
+     *
+     * @return la réservation supprimée, ou empty si elle est inconnue
+     */
+    public Optional<ReservationEntity> cancelReservation(String reservationIdOrReference, Long hotelDbId,
+                                                         String clientNom, String agence) {
+        Optional<ReservationEntity> found = findReservation(reservationIdOrReference)
+            .filter(r -> r.getChambre().getHotel().getId().equals(hotelDbId))
+            .filter(r -> (clientNom != null && clientNom.equals(r.getClientNom()))
+                || (agence != null && agence.equals(r.getAgence())));
+        if (!found.isPresent()) {
+            log.warn("[DB] Cancellation requested for unknown reservation: {} (hotel #{}, client={}, agence={})",
+                     reservationIdOrReference, hotelDbId, clientNom, agence);
+            return found;
+        }
+        ReservationEntity reservation = found.get();
+        reservationRepository.deleteReservationById(reservation.getId());
+        availabilityIndex.released(reservation.getChambre(), reservation.getId(),
+                                   reservation.getDebut(), reservation.getFin());
+        log.info("[DB] Cancelled reservation ref: {} for chambre: {} from {} to {}",
+                 reservation.getReference(), reservation.getChambre().getNumero(),
+                 reservation.getDebut(), reservation.getFin());
+        return found;
+    }
+
+    /**
+     * Page de réservations d'un client, après la réservation {@code afterId} (exclue), par id croissant.
+     * Renvoie jusqu'à {@code limit} lignes : demander pageSize + 1 pour savoir s'il reste une page.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationEntity> findReservationsByClient(String clientNom, long afterId, int limit) {
+        return reservationRepository.findPageByClientNom(clientNom, afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Page de réservations d'une agence, même contrat que {@link #findReservationsByClient}.
+     */
+    @Transactional(readOnly = true)
+    public List<ReservationEntity> findReservationsByAgence(String agence, long afterId, int limit) {
+        return reservationRepository.findPageByAgence(agence, afterId, PageRequest.of(0, limit));
+    }
+
+    private static Long parseReservationId(String value) {
+        String digits = value.startsWith("RES-") ? value.substring(4) : value;
+        try {
+            return Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 
     public List<ReservationEntity> findReservationsByChambre(Long chambreId) {
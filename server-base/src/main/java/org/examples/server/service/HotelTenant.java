@@ -0,0 +1,82 @@
+package org.examples.server.service;
+
+import org.examples.server.config.HotelTenantProperties;
+import org.examples.server.entity.HotelEntity;
+
+import java.util.List;
+
+/**
+ * Un hôtel servi par le moteur GraphQL : sa configuration ({@code hotel.tenants.<id>})
+ * et l'hôtel correspondant en base (identifiant, ville, étoiles).
+ */
+public class HotelTenant {
+
+    private final String id;
+    private final HotelTenantProperties.Tenant config;
+    private final Long hotelDbId;
+    private final String nom;
+    private final String ville;
+    private final int nbEtoiles;
+
+    HotelTenant(String id, HotelTenantProperties.Tenant config, HotelEntity hotel) {
+        this.id = id;
+        this.config = config;
+        this.hotelDbId = hotel.getId();
+        this.nom = hotel.getNom();
+        this.ville = hotel.getVille();
+        this.nbEtoiles = hotel.getNbEtoiles();
+    }
+
+    /** hotelId GraphQL */
+    public String getId() { return id; }
+    /** Clé primaire de l'hôtel en base : c'est elle qui scope chambres, holds et index */
+    public Long getHotelDbId() { return hotelDbId; }
+    public String getNom() { return nom; }
+    public String getVille() { return ville; }
+    public int getNbEtoiles() { return nbEtoiles; }
+
+    public String getStreet() { return config.getStreet(); }
+    public String getPostalCode() { return config.getPostalCode(); }
+    public String getCountry() { return config.getCountry(); }
+    public String getPhone() { return config.getPhone(); }
+    public String getEmail() { return config.getEmail() != null ? config.getEmail() : id + "@hotel.com"; }
+    public List<String> getAmenities() { return config.getAmenities(); }
+    public double getLatitude() { return config.getLatitude(); }
+    public double getLongitude() { return config.getLongitude(); }
+
+    /**
+     * Catégorie d'une chambre d'après son nombre de lits.
+     */
+    public String category(int nbLits) {
+        List<String> categories = config.getCategories();
+        if (nbLits < 1 || categories.isEmpty()) {
+            return config.getFallbackCategory();
+        }
+        return categories.get(Math.min(nbLits, categories.size()) - 1);
+    }
+
+    /**
+     * Capacités [min, max] d'une catégorie (inverse de {@link #category}), null si elle est inconnue.
+     */
+    public int[] categoryCapacity(String category) {
+        List<String> categories = config.getCategories();
+        for (int i = 0; i < categories.size(); i++) {
+            if (categories.get(i).equalsIgnoreCase(category)) {
+                return new int[] {i + 1, i == categories.size() - 1 ? Integer.MAX_VALUE : i + 1};
+            }
+        }
+        if (config.getFallbackCategory().equalsIgnoreCase(category)) {
+            return new int[] {Integer.MIN_VALUE, 0};
+        }
+        return null;
+    }
+
+    public boolean isInCity(String city) {
+        return city == null || city.isEmpty() || city.equalsIgnoreCase(ville);
+    }
+
+    @Override
+    public String toString() {
+        return id + "#" + hotelDbId;
+    }
+}
@@ -0,0 +1,118 @@
+package org.examples.server.service;
+
+import org.examples.server.config.HotelTenantProperties;
+import org.examples.server.entity.HotelEntity;
+import org.examples.server.repository.HotelRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Hôtels servis par ce serveur, indexés par hotelId et par clé primaire en base.
+ * <p>
+ * Un même processus sert autant d'hôtels que {@code hotel.tenants} en déclare : ils partagent
+ * la base, le pool de connexions, les caches et les index, le routage se fait sur le hotelId.
+ * Chaque hôtel est rattaché à sa ligne en base au démarrage (après l'initialisation des données),
+ * ou à la première requête s'il a été créé depuis.
+ */
+@Component
+public class HotelTenantRegistry {
+    private static final Logger log = LoggerFactory.getLogger(HotelTenantRegistry.class);
+
+    @Autowired
+    private HotelTenantProperties properties;
+
+    @Autowired
+    private HotelRepository hotelRepository;
+
+    private final Map<String, HotelTenant> byId = new ConcurrentHashMap<>();
+    private final Map<Long, HotelTenant> byHotelDbId = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void bindAll() {
+        if (properties.getTenants().isEmpty()) {
+            log.warn("[TENANT] No hotel configured (hotel.tenants.<id>.*) - every request will be rejected");
+            return;
+        }
+        for (String id : properties.getTenants().keySet()) {
+            bind(key(id));
+        }
+        log.info("[TENANT] {} hotel(s) served: {}", byId.size(), byId.values());
+    }
+
+    /**
+     * Hôtel servi sous cet identifiant (insensible à la casse), ou empty s'il n'est pas configuré
+     * ou absent de la base.
+     */
+    public Optional<HotelTenant> find(String hotelId) {
+        if (hotelId == null || hotelId.isEmpty()) {
+            return Optional.empty();
+        }
+        String key = key(hotelId);
+        HotelTenant tenant = byId.get(key);
+        return Optional.ofNullable(tenant != null ? tenant : bind(key));
+    }
+
+    /**
+     * @throws IllegalArgumentException si l'hôtel n'est pas servi ici
+     */
+    public HotelTenant require(String hotelId) {
+        return find(hotelId).orElseThrow(() -> new IllegalArgumentException("Hotel not found: " + hotelId));
+    }
+
+    /** Hôtel d'une chambre ou d'une réservation, d'après la clé primaire de l'hôtel en base */
+    public HotelTenant byHotelDbId(Long hotelDbId) {
+        return byHotelDbId.get(hotelDbId);
+    }
+
+    /** Hôtels servis dans une ville (toutes villes si {@code city} est vide) */
+    public List<HotelTenant> inCity(String city) {
+        List<HotelTenant> tenants = new ArrayList<>();
+        for (HotelTenant tenant : byId.values()) {
+            if (tenant.isInCity(city)) {
+                tenants.add(tenant);
+            }
+        }
+        return tenants;
+    }
+
+    public Collection<HotelTenant> all() {
+        return byId.values();
+    }
+
+    private HotelTenant bind(String key) {
+        HotelTenantProperties.Tenant config = null;
+        for (Map.Entry<String, HotelTenantProperties.Tenant> e : properties.getTenants().entrySet()) {
+            if (key(e.getKey()).equals(key)) {
+                config = e.getValue();
+            }
+        }
+        if (config == null) {
+            return null;
+        }
+        Optional<HotelEntity> hotel = hotelRepository.findByNom(key);
+        if (!hotel.isPresent()) {
+            log.warn("[TENANT] Hotel '{}' is configured but not in the database yet", key);
+            return null;
+        }
+        HotelTenant tenant = new HotelTenant(key, config, hotel.get());
+        byHotelDbId.put(tenant.getHotelDbId(), tenant);
+        byId.put(key, tenant);
+        return tenant;
+    }
+
+    private static String key(String hotelId) {
+        return hotelId.toLowerCase(Locale.ROOT);
+    }
+}
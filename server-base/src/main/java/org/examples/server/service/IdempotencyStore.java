@@ -0,0 +1,123 @@
+package org.examples.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Magasin de déduplication des mutations (clé d'idempotence → confirmation).
+ * <p>
+ * Borné en taille (éviction FIFO des plus anciennes clés) et à expiration :
+ * une requête rejouée avec la même clé reçoit la confirmation d'origine sans
+ * toucher à la base. Deux requêtes concurrentes portant la même clé partagent
+ * le même résultat : la seconde attend la fin de la première.
+ */
+@Component
+public class IdempotencyStore {
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    @Value("${hotel.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${hotel.idempotency.ttl-seconds:86400}")
+    private long ttlSeconds;
+
+    private final LinkedHashMap<String, Slot> entries = new LinkedHashMap<String, Slot>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Slot> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private static final class Slot {
+        final String fingerprint;
+        final long expiresAt;
+        final CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+
+        Slot(String fingerprint, long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Exécute {@code action} une seule fois par clé. Sans clé, l'action est exécutée directement.
+     *
+     * @param key         clé d'idempotence fournie par l'appelant (peut être null)
+     * @param fingerprint empreinte de la requête, pour refuser une clé réutilisée avec un autre contenu
+     * @param action      traitement à protéger
+     * @return le résultat d'origine si la clé a déjà été traitée, sinon celui de l'action
+     */
+    public Map<String, Object> execute(String key, String fingerprint, Supplier<Map<String, Object>> action) {
+        if (key == null || key.isEmpty()) {
+            return action.get();
+        }
+
+        long now = System.currentTimeMillis();
+        Slot entry;
+        boolean owner = false;
+        synchronized (entries) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt <= now) {
+                entries.remove(key);
+                entry = null;
+            }
+            if (entry == null) {
+                entry = new Slot(fingerprint, now + ttlSeconds * 1000L);
+                entries.put(key, entry);
+                owner = true;
+            }
+        }
+
+        if (!owner) {
+            if (!Objects.equals(entry.fingerprint, fingerprint)) {
+                throw new IllegalArgumentException("Idempotency key already used for a different request: " + key);
+            }
+            log.info("[IDEMPOTENCY] Replay detected - key={}, returning original result", key);
+            return await(entry);
+        }
+
+        try {
+            Map<String, Object> result = action.get();
+            entry.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // Échec : on libère la clé pour qu'un nouvel essai puisse aboutir
+            synchronized (entries) {
+                entries.remove(key, entry);
+            }
+            entry.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private Map<String, Object> await(Slot entry) {
+        try {
+            return entry.result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for original request", e);
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
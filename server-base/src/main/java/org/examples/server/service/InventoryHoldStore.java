@@ -0,0 +1,275 @@
+package org.examples.server.service;
+
+import org.examples.server.entity.ChambreEntity;
+import org.examples.server.util.HashedTimingWheel;
+import org.examples.server.util.SnowflakeIdGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Blocages temporaires de chambres (holds) entre la recherche et la réservation.
+ * <p>
+ * Les holds vivent en mémoire et expirent via une {@link HashedTimingWheel} :
+ * aucune requête périodique sur la base. Un hold actif rend la chambre
+ * indisponible pour les autres recherches et réservations sur ses nuits.
+ * Les chambres sont désignées par leur clé primaire : un seul store pour tous les hôtels du serveur.
+ */
+@Component
+public class InventoryHoldStore {
+    private static final Logger log = LoggerFactory.getLogger(InventoryHoldStore.class);
+
+    @Value("${hotel.hold.ttl-seconds:600}")
+    private long defaultTtlSeconds;
+
+    @Value("${hotel.hold.max-ttl-seconds:1800}")
+    private long maxTtlSeconds;
+
+    @Value("${hotel.hold.wheel.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${hotel.hold.wheel.size:512}")
+    private int wheelSize;
+
+    @Autowired
+    private SnowflakeIdGenerator idGenerator;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private HashedTimingWheel wheel;
+
+    // Protégés par le moniteur de l'instance
+    private final Map<String, Hold> holdsById = new HashMap<>();
+    private final Map<Long, List<Hold>> holdsByRoom = new HashMap<>();
+
+    /**
+     * Blocage d'une chambre sur une période [arrivalDate, departureDate).
+     */
+    public static final class Hold {
+        private final String holdId;
+        private final long chambreId;
+        private final Long hotelId;
+        private final int roomNumero;
+        private final LocalDate arrivalDate;
+        private final LocalDate departureDate;
+        private final int numPersons;
+        private final String agencyName;
+        private final long expiresAt;
+        private HashedTimingWheel.Timeout timeout;
+        // Réservation en cours d'enregistrement avec ce hold (acquire) : l'expiration attend
+        private boolean inUse;
+
+        Hold(String holdId, ChambreEntity chambre, LocalDate arrivalDate, LocalDate departureDate,
+             int numPersons, String agencyName, long expiresAt) {
+            this.holdId = holdId;
+            this.chambreId = chambre.getId();
+            this.hotelId = chambre.getHotel().getId();
+            this.roomNumero = chambre.getNumero();
+            this.arrivalDate = arrivalDate;
+            this.departureDate = departureDate;
+            this.numPersons = numPersons;
+            this.agencyName = agencyName;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getHoldId() { return holdId; }
+        public long getChambreId() { return chambreId; }
+        /** Clé primaire de l'hôtel de la chambre */
+        public Long getHotelId() { return hotelId; }
+        public int getRoomNumero() { return roomNumero; }
+        public LocalDate getArrivalDate() { return arrivalDate; }
+        public LocalDate getDepartureDate() { return departureDate; }
+        public int getNumPersons() { return numPersons; }
+        public String getAgencyName() { return agencyName; }
+        public long getExpiresAt() { return expiresAt; }
+
+        boolean covers(long chambreId, LocalDate debut, LocalDate fin) {
+            return this.chambreId == chambreId && arrivalDate.equals(debut) && departureDate.equals(fin);
+        }
+
+        boolean overlaps(LocalDate debut, LocalDate fin) {
+            return arrivalDate.isBefore(fin) && debut.isBefore(departureDate);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedTimingWheel("hold-expiry", tickMs, wheelSize);
+        log.info("[HOLD] Timing wheel started - tick={}ms, size={}, defaultTtl={}s", tickMs, wheelSize, defaultTtlSeconds);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (wheel != null) wheel.close();
+    }
+
+    /**
+     * Pose un hold si la chambre est libre. La vérification des réservations existantes
+     * ({@code freeOfReservations}) s'exécute sous le même verrou que la vérification des holds,
+     * deux holds concurrents ne peuvent donc pas se chevaucher.
+     *
+     * @return le hold créé, ou null si la chambre n'est pas disponible
+     */
+    public synchronized Hold place(ChambreEntity chambre, LocalDate arrivalDate, LocalDate departureDate,
+                                   int numPersons, String agencyName, Long ttlSeconds,
+                                   BooleanSupplier freeOfReservations) {
+        if (isHeld(chambre.getId(), arrivalDate, departureDate) || !freeOfReservations.getAsBoolean()) {
+            return null;
+        }
+        long ttl = ttlSeconds != null && ttlSeconds > 0 ? Math.min(ttlSeconds, maxTtlSeconds) : defaultTtlSeconds;
+        String holdId = "HOLD-" + idGenerator.nextCode();
+        Hold hold = new Hold(holdId, chambre, arrivalDate, departureDate, numPersons, agencyName,
+                             System.currentTimeMillis() + ttl * 1000L);
+        holdsById.put(holdId, hold);
+        holdsByRoom.computeIfAbsent(hold.chambreId, k -> new ArrayList<>()).add(hold);
+        hold.timeout = wheel.schedule(() -> expire(holdId), ttl, TimeUnit.SECONDS);
+        log.info("[HOLD] Placed {} - hotel={}, room={}, period=[{}..{}), ttl={}s",
+                 holdId, hold.hotelId, hold.roomNumero, arrivalDate, departureDate, ttl);
+        eventPublisher.publishEvent(changed(hold, AvailabilityChangedEvent.Change.HELD));
+        return hold;
+    }
+
+    /**
+     * Hold actif, ou null s'il est inconnu ou expiré.
+     */
+    public synchronized Hold get(String holdId) {
+        return holdsById.get(holdId);
+    }
+
+    /**
+     * Indique si un hold actif couvre au moins une nuit de la période demandée.
+     */
+    public synchronized boolean isHeld(long chambreId, LocalDate debut, LocalDate fin) {
+        List<Hold> holds = holdsByRoom.get(chambreId);
+        if (holds == null) return false;
+        for (Hold h : holds) {
+            if (h.overlaps(debut, fin)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Réserve un hold pour la réservation en cours d'enregistrement, sans le retirer : la chambre
+     * reste bloquée (le hold n'expire pas et ne peut être libéré) jusqu'à {@link #consume} une fois
+     * la réservation dans l'index, ou {@link #restore} si l'enregistrement échoue.
+     *
+     * @return le hold, ou null s'il est inconnu ou déjà expiré
+     * @throws IllegalArgumentException si le hold ne correspond pas à la réservation
+     * @throws IllegalStateException si une autre réservation est en train d'utiliser ce hold
+     */
+    public synchronized Hold acquire(String holdId, long chambreId, LocalDate arrivalDate, LocalDate departureDate) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null) {
+            return null;
+        }
+        if (!hold.covers(chambreId, arrivalDate, departureDate)) {
+            throw new IllegalArgumentException("Hold " + holdId + " does not match the reservation");
+        }
+        if (hold.inUse) {
+            throw new IllegalStateException("Hold " + holdId + " is already being used by another reservation");
+        }
+        hold.inUse = true;
+        return hold;
+    }
+
+    /**
+     * Rend un hold réservé par {@link #acquire} après l'échec de la réservation : il reste actif
+     * jusqu'à son expiration normale. L'échéance de la roue a pu passer pendant l'enregistrement
+     * (ignorée, voir {@link #expire}) : elle est reprogrammée pour le reste du TTL.
+     */
+    public synchronized void restore(Hold hold) {
+        hold.inUse = false;
+        if (holdsById.get(hold.holdId) != hold) {
+            return;
+        }
+        long remainingMs = hold.expiresAt - System.currentTimeMillis();
+        if (remainingMs <= 0) {
+            expire(hold.holdId);
+        } else {
+            hold.timeout.cancel();
+            hold.timeout = wheel.schedule(() -> expire(hold.holdId), remainingMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Consomme un hold pour le transformer en réservation. Le hold doit porter
+     * sur la même chambre et les mêmes dates que la réservation.
+     *
+     * @return le hold retiré, ou null s'il est inconnu ou déjà expiré
+     * @throws IllegalArgumentException si le hold ne correspond pas à la réservation
+     */
+    public synchronized Hold consume(String holdId, long chambreId, LocalDate arrivalDate, LocalDate departureDate) {
+        Hold hold = holdsById.get(holdId);
+        if (hold == null) {
+            return null;
+        }
+        if (!hold.covers(chambreId, arrivalDate, departureDate)) {
+            throw new IllegalArgumentException("Hold " + holdId + " does not match the reservation");
+        }
+        remove(holdId);
+        hold.timeout.cancel();
+        log.info("[HOLD] Consumed {} - room={}", holdId, hold.roomNumero);
+        return hold;
+    }
+
+    /**
+     * Libère un hold avant son expiration.
+     */
+    public synchronized boolean release(String holdId) {
+        Hold current = holdsById.get(holdId);
+        if (current == null || current.inUse) return false;
+        Hold hold = remove(holdId);
+        hold.timeout.cancel();
+        log.info("[HOLD] Released {} - room={}", holdId, hold.roomNumero);
+        eventPublisher.publishEvent(changed(hold, AvailabilityChangedEvent.Change.RELEASED));
+        return true;
+    }
+
+    public synchronized int activeHolds() {
+        return holdsById.size();
+    }
+
+    private synchronized void expire(String holdId) {
+        Hold current = holdsById.get(holdId);
+        if (current != null && current.inUse) {
+            // Réservation en cours : consume() ou restore() décidera
+            return;
+        }
+        Hold hold = remove(holdId);
+        if (hold != null) {
+            log.info("[HOLD] Expired {} - room={}, period=[{}..{})", holdId, hold.roomNumero,
+                     hold.arrivalDate, hold.departureDate);
+            eventPublisher.publishEvent(changed(hold, AvailabilityChangedEvent.Change.RELEASED));
+        }
+    }
+
+    private static AvailabilityChangedEvent changed(Hold hold, AvailabilityChangedEvent.Change change) {
+        return new AvailabilityChangedEvent(hold.hotelId, hold.roomNumero, hold.arrivalDate, hold.departureDate, change);
+    }
+
+    private Hold remove(String holdId) {
+        Hold hold = holdsById.remove(holdId);
+        if (hold != null) {
+            List<Hold> holds = holdsByRoom.get(hold.chambreId);
+            if (holds != null) {
+                holds.remove(hold);
+                if (holds.isEmpty()) holdsByRoom.remove(hold.chambreId);
+            }
+        }
+        return hold;
+    }
+}
@@ -0,0 +1,62 @@
+package org.examples.server.service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Échéance de la requête GraphQL en cours sur ce thread, transmise par l'agence
+ * (en-tête {@value #HEADER} : budget restant en ms).
+ * <p>
+ * Posée pendant l'exécution de chaque data fetcher (voir {@code GraphQLDeadlineConfiguration}) ;
+ * les traitements longs la consultent pour s'arrêter dès que l'appelant a abandonné.
+ */
+public final class RequestDeadline {
+
+    public static final String HEADER = "X-Deadline-Ms";
+
+    /** Clé de l'échéance ({@link System#nanoTime()}) dans le contexte GraphQL */
+    public static final String CONTEXT_KEY = "deadlineNanos";
+
+    private static final ThreadLocal<Long> CURRENT = new ThreadLocal<>();
+
+    private RequestDeadline() {}
+
+    /** Échéance d'un budget de {@code budgetMs} à partir de maintenant */
+    public static long fromBudget(long budgetMs) {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(budgetMs);
+    }
+
+    static void set(Long deadlineNanos) {
+        if (deadlineNanos == null) CURRENT.remove(); else CURRENT.set(deadlineNanos);
+    }
+
+    /** Exécute {@code action} sous l'échéance donnée (null : pas d'échéance) */
+    public static <T> T within(Long deadlineNanos, Callable<T> action) throws Exception {
+        Long previous = CURRENT.get();
+        set(deadlineNanos);
+        try {
+            return action.call();
+        } finally {
+            set(previous);
+        }
+    }
+
+    public static boolean isExpired(Long deadlineNanos) {
+        return deadlineNanos != null && deadlineNanos - System.nanoTime() <= 0;
+    }
+
+    /** Budget restant en ms, ou -1 si la requête n'a pas d'échéance */
+    public static long remainingMs() {
+        Long deadline = CURRENT.get();
+        return deadline == null ? -1 : Math.max(0, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+    }
+
+    /**
+     * @throws DeadlineExceededException si l'échéance de la requête courante est dépassée
+     */
+    public static void check(String step) {
+        if (isExpired(CURRENT.get())) {
+            throw new DeadlineExceededException("Deadline exceeded during " + step);
+        }
+    }
+}
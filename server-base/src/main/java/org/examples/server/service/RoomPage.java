@@ -0,0 +1,24 @@
+package org.examples.server.service;
+
+import java.util.List;
+
+/**
+ * Page de types de chambres renvoyée par {@link RoomSearchService}.
+ */
+public class RoomPage {
+
+    private final List<RoomTypeGroup> roomTypes;
+    private final boolean hasNextPage;
+    private final String nextCursor;
+
+    public RoomPage(List<RoomTypeGroup> roomTypes, boolean hasNextPage, String nextCursor) {
+        this.roomTypes = roomTypes;
+        this.hasNextPage = hasNextPage;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<RoomTypeGroup> getRoomTypes() { return roomTypes; }
+    public boolean hasNextPage() { return hasNextPage; }
+    /** Curseur à repasser pour obtenir la page suivante, null s'il n'y en a pas */
+    public String getNextCursor() { return nextCursor; }
+}
@@ -0,0 +1,68 @@
+package org.examples.server.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Critères d'une recherche de chambres paginée (voir {@link RoomSearchService}).
+ */
+public class RoomQuery {
+
+    private final List<Long> hotelIds = new ArrayList<>();
+    private RoomSort sort = RoomSort.PRICE;
+    private boolean descending;
+    private String after;
+    private int pageSize = 20;
+    private int minCapacity;
+    private Integer maxCapacity;
+    private Integer minPricePerNight;
+    private Integer maxPricePerNight;
+
+    /** Hôtels recherchés (clés primaires) ; une recherche sans hôtel ne renvoie rien */
+    public List<Long> getHotelIds() { return hotelIds; }
+    public RoomQuery hotels(Collection<Long> hotelIds) { this.hotelIds.addAll(hotelIds); return this; }
+
+    public RoomSort getSort() { return sort; }
+    public RoomQuery sort(RoomSort sort) { this.sort = sort; return this; }
+
+    public boolean isDescending() { return descending; }
+    public RoomQuery descending(boolean descending) { this.descending = descending; return this; }
+
+    /** Curseur de la page précédente (null pour la première page) */
+    public String getAfter() { return after; }
+    public RoomQuery after(String after) { this.after = after; return this; }
+
+    public int getPageSize() { return pageSize; }
+    public RoomQuery pageSize(int pageSize) { this.pageSize = pageSize; return this; }
+
+    public int getMinCapacity() { return minCapacity; }
+    public RoomQuery minCapacity(int minCapacity) { this.minCapacity = minCapacity; return this; }
+
+    public Integer getMaxCapacity() { return maxCapacity; }
+    public RoomQuery maxCapacity(Integer maxCapacity) { this.maxCapacity = maxCapacity; return this; }
+
+    public Integer getMinPricePerNight() { return minPricePerNight; }
+    public Integer getMaxPricePerNight() { return maxPricePerNight; }
+
+    /**
+     * Fourchette sur le prix total du séjour, convertie en bornes sur le prix par nuit :
+     * les prix étant entiers, {@code prix * nuits >= min} équivaut à {@code prix >= ceil(min / nuits)}
+     * (et de même pour le maximum), ce qui laisse la colonne indexée seule dans le prédicat.
+     */
+    public RoomQuery totalPriceRange(Integer minTotal, Integer maxTotal, int nights) {
+        int n = Math.max(nights, 1);
+        this.minPricePerNight = minTotal != null ? Math.floorDiv(minTotal + n - 1, n) : null;
+        this.maxPricePerNight = maxTotal != null ? Math.floorDiv(maxTotal, n) : null;
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return "RoomQuery{hotels=" + hotelIds + ", sort=" + sort + (descending ? " DESC" : " ASC") + ", pageSize=" + pageSize
+            + ", capacity=[" + minCapacity + ".." + (maxCapacity != null ? maxCapacity : "") + "]"
+            + ", pricePerNight=[" + (minPricePerNight != null ? minPricePerNight : "")
+            + ".." + (maxPricePerNight != null ? maxPricePerNight : "") + "]"
+            + ", after=" + after + "}";
+    }
+}
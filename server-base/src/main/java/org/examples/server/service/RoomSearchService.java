@@ -0,0 +1,237 @@
+package org.examples.server.service;
+
+import org.examples.server.entity.ChambreEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.QueryTimeoutException;
+import javax.persistence.TypedQuery;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Recherche de types de chambres paginée par curseur (keyset) et triée en base.
+ * <p>
+ * Le tri et la reprise après le curseur sont dans la requête SQL
+ * ({@code ORDER BY clé, clé secondaire, hôtel, numéro} + {@code WHERE (clés) > curseur}, sans OFFSET).
+ * Les deux clés de tri étant la capacité et le prix, les chambres d'un même type
+ * ({@link RoomTypeGroup}, par hôtel) arrivent consécutives : elles sont regroupées au fil de la lecture,
+ * et une page contient des types complets avec leur nombre de chambres libres. Les chambres
+ * sont lues par lots jusqu'à remplir la page.
+ * <p>
+ * Capacité et prix sont aussi des prédicats de la requête : les chambres hors critères ne sont
+ * jamais lues.
+ * <p>
+ * Une recherche porte sur un ou plusieurs hôtels du serveur ; sur plusieurs hôtels, les types
+ * sont fusionnés dans l'ordre de tri par la même requête.
+ */
+@Service
+public class RoomSearchService {
+    private static final Logger log = LoggerFactory.getLogger(RoomSearchService.class);
+
+    private static final int MIN_BATCH_SIZE = 32;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Page de types ayant au moins une chambre retenue par {@code available}.
+     *
+     * @param query     tri, curseur, taille de page (en types), fourchettes de capacité et de prix
+     * @param available filtre appliqué à chaque chambre lue (disponibilité sur le séjour)
+     */
+    @Transactional(readOnly = true)
+    public RoomPage search(RoomQuery query, Predicate<ChambreEntity> available) {
+        if (query.getHotelIds().isEmpty()) {
+            return new RoomPage(new ArrayList<>(), false, null);
+        }
+        Cursor after = Cursor.decode(query.getAfter(), query.getSort(), query.isDescending());
+        int batchSize = Math.max(query.getPageSize() + 1, MIN_BATCH_SIZE);
+        List<RoomTypeGroup> types = new ArrayList<>();
+        RoomTypeGroup current = null;
+        boolean hasNextPage = false;
+        int scanned = 0;
+        scan:
+        while (true) {
+            // L'appelant a abandonné : inutile de lire d'autres lots
+            RequestDeadline.check("room search");
+            List<ChambreEntity> batch = fetch(query, after, batchSize);
+            scanned += batch.size();
+            for (ChambreEntity chambre : batch) {
+                after = Cursor.of(chambre);
+                if (current == null || !current.matches(chambre)) {
+                    if (current != null && current.getAvailableCount() > 0) {
+                        types.add(current);
+                    }
+                    current = new RoomTypeGroup(chambre.getHotel().getId(), chambre.getNbLits(), chambre.getPrixParNuit());
+                }
+                boolean free = available.test(chambre);
+                if (free && types.size() == query.getPageSize()) {
+                    // Un type de plus a une chambre libre : il ouvrira la page suivante
+                    hasNextPage = true;
+                    break scan;
+                }
+                current.add(chambre, free);
+            }
+            if (batch.size() < batchSize) {
+                break;
+            }
+        }
+        if (!hasNextPage && current != null && current.getAvailableCount() > 0) {
+            types.add(current);
+        }
+        // La page suivante reprend après le dernier type renvoyé
+        String nextCursor = hasNextPage
+            ? Cursor.after(types.get(types.size() - 1), query.isDescending()).encode(query.getSort(), query.isDescending())
+            : null;
+        log.debug("[ROOM-SEARCH] {} - {} room types returned, {} rooms scanned, hasNextPage={}",
+                  query, types.size(), scanned, hasNextPage);
+        return new RoomPage(types, hasNextPage, nextCursor);
+    }
+
+    /**
+     * Chambres d'un type, par numéro (index idx_chambre_hotel_capacite) : candidates à l'attribution
+     * d'une chambre concrète lors d'un hold ou d'une réservation.
+     */
+    @Transactional(readOnly = true)
+    public List<ChambreEntity> findRoomsOfType(RoomTypeGroup type) {
+        return entityManager.createQuery(
+                "SELECT c FROM ChambreEntity c WHERE c.hotel.id = :hotelId AND c.nbLits = :nbLits"
+                    + " AND c.prixParNuit = :prix ORDER BY c.numero",
+                ChambreEntity.class)
+            .setParameter("hotelId", type.getHotelId())
+            .setParameter("nbLits", type.getNbLits())
+            .setParameter("prix", type.getPrixParNuit())
+            .getResultList();
+    }
+
+    private List<ChambreEntity> fetch(RoomQuery query, Cursor after, int limit) {
+        String primary = "c." + query.getSort().primary();
+        String secondary = "c." + query.getSort().secondary();
+        String cmp = query.isDescending() ? " < " : " > ";
+        String dir = query.isDescending() ? " DESC" : " ASC";
+
+        StringBuilder jpql = new StringBuilder(
+            "SELECT c FROM ChambreEntity c WHERE c.hotel.id IN :hotelIds AND c.nbLits >= :minCapacity");
+        if (query.getMaxCapacity() != null) {
+            jpql.append(" AND c.nbLits <= :maxCapacity");
+        }
+        if (query.getMinPricePerNight() != null) {
+            jpql.append(" AND c.prixParNuit >= :minPrice");
+        }
+        if (query.getMaxPricePerNight() != null) {
+            jpql.append(" AND c.prixParNuit <= :maxPrice");
+        }
+        if (after != null) {
+            jpql.append(" AND (").append(primary).append(cmp).append(":p OR (")
+                .append(primary).append(" = :p AND (").append(secondary).append(cmp).append(":s OR (")
+                .append(secondary).append(" = :s AND (c.hotel.id").append(cmp).append(":h OR (")
+                .append("c.hotel.id = :h AND c.numero").append(cmp).append(":n))))))");
+        }
+        jpql.append(" ORDER BY ").append(primary).append(dir)
+            .append(", ").append(secondary).append(dir)
+            .append(", c.hotel.id").append(dir)
+            .append(", c.numero").append(dir);
+
+        TypedQuery<ChambreEntity> q = entityManager.createQuery(jpql.toString(), ChambreEntity.class)
+            .setParameter("hotelIds", query.getHotelIds())
+            .setParameter("minCapacity", query.getMinCapacity())
+            .setMaxResults(limit);
+        long remainingMs = RequestDeadline.remainingMs();
+        if (remainingMs >= 0) {
+            // La base interrompt la requête au-delà du budget restant
+            q.setHint("javax.persistence.query.timeout", (int) Math.max(1, Math.min(remainingMs, Integer.MAX_VALUE)));
+        }
+        if (query.getMaxCapacity() != null) {
+            q.setParameter("maxCapacity", query.getMaxCapacity());
+        }
+        if (query.getMinPricePerNight() != null) {
+            q.setParameter("minPrice", query.getMinPricePerNight());
+        }
+        if (query.getMaxPricePerNight() != null) {
+            q.setParameter("maxPrice", query.getMaxPricePerNight());
+        }
+        if (after != null) {
+            q.setParameter("p", after.value(query.getSort().primary()))
+             .setParameter("s", after.value(query.getSort().secondary()))
+             .setParameter("h", after.hotelId)
+             .setParameter("n", after.numero);
+        }
+        try {
+            return q.getResultList();
+        } catch (QueryTimeoutException e) {
+            if (remainingMs >= 0) {
+                throw new DeadlineExceededException("Deadline exceeded during room search query");
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Position dans l'ordre de tri. Le curseur public ne porte que le type (capacité, prix, hôtel) :
+     * il est encodé avec le tri demandé et ne peut pas être rejoué avec un autre tri.
+     */
+    private static final class Cursor {
+        final int prixParNuit;
+        final int nbLits;
+        final long hotelId;
+        final int numero;
+
+        Cursor(int prixParNuit, int nbLits, long hotelId, int numero) {
+            this.prixParNuit = prixParNuit;
+            this.nbLits = nbLits;
+            this.hotelId = hotelId;
+            this.numero = numero;
+        }
+
+        static Cursor of(ChambreEntity chambre) {
+            return new Cursor(chambre.getPrixParNuit(), chambre.getNbLits(), chambre.getHotel().getId(), chambre.getNumero());
+        }
+
+        /** Position après toutes les chambres d'un type : numéro au-delà du dernier possible */
+        static Cursor after(RoomTypeGroup type, boolean descending) {
+            return new Cursor(type.getPrixParNuit(), type.getNbLits(), type.getHotelId(),
+                              descending ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+        }
+
+        int value(String attribute) {
+            return "prixParNuit".equals(attribute) ? prixParNuit : nbLits;
+        }
+
+        String encode(RoomSort sort, boolean descending) {
+            String raw = sort + ":" + (descending ? "DESC" : "ASC") + ":" + prixParNuit + ":" + nbLits + ":" + hotelId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor, RoomSort sort, boolean descending) {
+            if (cursor == null || cursor.isEmpty()) {
+                return null;
+            }
+            String[] parts;
+            try {
+                parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Invalid pagination cursor: " + cursor);
+            }
+            if (parts.length != 5) {
+                throw new IllegalArgumentException("Invalid pagination cursor: " + cursor);
+            }
+            if (!parts[0].equals(sort.name()) || !parts[1].equals(descending ? "DESC" : "ASC")) {
+                throw new IllegalArgumentException("Pagination cursor was issued for another sort order");
+            }
+            try {
+                return new Cursor(Integer.parseInt(parts[2]), Integer.parseInt(parts[3]), Long.parseLong(parts[4]),
+                                  descending ? Integer.MIN_VALUE : Integer.MAX_VALUE);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid pagination cursor: " + cursor);
+            }
+        }
+    }
+}
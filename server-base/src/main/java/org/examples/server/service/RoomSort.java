@@ -0,0 +1,46 @@
+package org.examples.server.service;
+
+/**
+ * Tri des chambres (RoomSortField du schéma GraphQL).
+ * <p>
+ * Chaque tri est un ordre total sur (clé principale, clé secondaire, numéro) : c'est ce
+ * triplet que porte le curseur de pagination. La catégorie d'une chambre se déduit de son
+ * nombre de lits, elle se trie donc comme la capacité.
+ */
+public enum RoomSort {
+    PRICE("prixParNuit", "nbLits"),
+    CAPACITY("nbLits", "prixParNuit"),
+    CATEGORY("nbLits", "prixParNuit");
+
+    private final String primary;
+    private final String secondary;
+
+    RoomSort(String primary, String secondary) {
+        this.primary = primary;
+        this.secondary = secondary;
+    }
+
+    /** Attribut JPA de la clé principale */
+    public String primary() {
+        return primary;
+    }
+
+    /** Attribut JPA départageant les chambres de même clé principale */
+    public String secondary() {
+        return secondary;
+    }
+
+    /**
+     * Tri demandé (nom de l'enum GraphQL), PRICE par défaut.
+     */
+    public static RoomSort parse(Object value) {
+        if (value == null) {
+            return PRICE;
+        }
+        try {
+            return valueOf(value.toString());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown sort field: " + value);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.examples.server.service;
+
+import org.examples.server.entity.ChambreEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Type de chambre : les chambres d'un hôtel de même capacité et de même prix par nuit
+ * (les équipements sont communs à toutes les chambres d'un hôtel).
+ * <p>
+ * Une recherche renvoie une offre par type, avec le nombre de chambres libres ;
+ * la chambre concrète n'est choisie qu'au moment du hold ou de la réservation.
+ */
+public class RoomTypeGroup {
+
+    private static final String ID_PREFIX = "T";
+
+    private final Long hotelId;
+    private final int nbLits;
+    private final int prixParNuit;
+    private final List<ChambreEntity> availableRooms = new ArrayList<>();
+    private int roomCount;
+
+    public RoomTypeGroup(Long hotelId, int nbLits, int prixParNuit) {
+        this.hotelId = hotelId;
+        this.nbLits = nbLits;
+        this.prixParNuit = prixParNuit;
+    }
+
+    /**
+     * Identifiant stable du type dans son hôtel, utilisé comme RoomType.id et dans les jetons d'offre : "T2-220".
+     */
+    public String getId() {
+        return ID_PREFIX + nbLits + "-" + prixParNuit;
+    }
+
+    public static boolean isTypeId(String roomId) {
+        return roomId != null && roomId.startsWith(ID_PREFIX);
+    }
+
+    /**
+     * Type désigné par un identifiant "T<lits>-<prix>" dans un hôtel (sans chambres).
+     *
+     * @throws IllegalArgumentException si l'identifiant n'est pas valide
+     */
+    public static RoomTypeGroup fromId(Long hotelId, String typeId) {
+        int dash = isTypeId(typeId) ? typeId.indexOf('-') : -1;
+        if (dash < 0) {
+            throw new IllegalArgumentException("Invalid room type: " + typeId);
+        }
+        try {
+            return new RoomTypeGroup(hotelId, Integer.parseInt(typeId.substring(ID_PREFIX.length(), dash)),
+                                     Integer.parseInt(typeId.substring(dash + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid room type: " + typeId);
+        }
+    }
+
+    public boolean matches(ChambreEntity chambre) {
+        return chambre.getNbLits() == nbLits && chambre.getPrixParNuit() == prixParNuit
+            && hotelId.equals(chambre.getHotel().getId());
+    }
+
+    void add(ChambreEntity chambre, boolean available) {
+        roomCount++;
+        if (available) {
+            availableRooms.add(chambre);
+        }
+    }
+
+    /** Clé primaire de l'hôtel du type */
+    public Long getHotelId() { return hotelId; }
+    public int getNbLits() { return nbLits; }
+    public int getPrixParNuit() { return prixParNuit; }
+
+    /** Chambres du type retenues par le filtre de disponibilité, par ordre de tri */
+    public List<ChambreEntity> getAvailableRooms() { return availableRooms; }
+    public int getAvailableCount() { return availableRooms.size(); }
+    /** Nombre total de chambres du type répondant aux critères */
+    public int getRoomCount() { return roomCount; }
+
+    /** Chambre représentative (images, description) */
+    public ChambreEntity getSample() {
+        return availableRooms.isEmpty() ? null : availableRooms.get(0);
+    }
+}
@@ -0,0 +1,179 @@
+package org.examples.server.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache court des réponses searchOffers, indexé par hôtel et par nuit.
+ * <p>
+ * Chaque entrée est rattachée aux nuits de son séjour dans chacun des hôtels recherchés.
+ * Un {@link AvailabilityChangedEvent} n'invalide que les entrées de cet hôtel dont le séjour
+ * touche les nuits modifiées : les recherches sur d'autres dates ou d'autres hôtels restent en cache.
+ */
+@Component
+public class SearchResultCache {
+    private static final Logger log = LoggerFactory.getLogger(SearchResultCache.class);
+
+    @Value("${hotel.search-cache.ttl-seconds:30}")
+    private long ttlSeconds;
+
+    @Value("${hotel.search-cache.max-entries:1000}")
+    private int maxEntries;
+
+    private final Map<String, CachedResult> entries = new ConcurrentHashMap<>();
+    private final Map<HotelNight, Set<String>> keysByNight = new ConcurrentHashMap<>();
+    // Incrémenté à chaque invalidation : un résultat calculé avant une invalidation n'est pas mis en cache
+    private final AtomicLong version = new AtomicLong();
+
+    private static final class CachedResult {
+        final Map<String, Object> value;
+        final Collection<Long> hotelIds;
+        final LocalDate debut;
+        final LocalDate fin;
+        final long expiresAt;
+
+        CachedResult(Map<String, Object> value, Collection<Long> hotelIds, LocalDate debut, LocalDate fin, long expiresAt) {
+            this.value = value;
+            this.hotelIds = hotelIds;
+            this.debut = debut;
+            this.fin = fin;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private static final class HotelNight {
+        final Long hotelId;
+        final LocalDate night;
+
+        HotelNight(Long hotelId, LocalDate night) {
+            this.hotelId = hotelId;
+            this.night = night;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof HotelNight)) return false;
+            HotelNight other = (HotelNight) o;
+            return Objects.equals(hotelId, other.hotelId) && night.equals(other.night);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * Objects.hashCode(hotelId) + night.hashCode();
+        }
+    }
+
+    public Map<String, Object> get(String key) {
+        CachedResult cached = entries.get(key);
+        if (cached == null) {
+            return null;
+        }
+        if (cached.expiresAt <= System.currentTimeMillis()) {
+            remove(key, cached);
+            return null;
+        }
+        return cached.value;
+    }
+
+    /**
+     * Version à relever avant de calculer un résultat, puis à passer à {@link #put}.
+     */
+    public long version() {
+        return version.get();
+    }
+
+    /**
+     * Met en cache le résultat d'une recherche sur le séjour [debut, fin) dans les hôtels {@code hotelIds}
+     * (clés primaires), sauf si la disponibilité a changé depuis {@code computedAtVersion}.
+     */
+    public void put(String key, Collection<Long> hotelIds, LocalDate debut, LocalDate fin,
+                    Map<String, Object> value, long computedAtVersion) {
+        if (debut == null || fin == null || !fin.isAfter(debut)) {
+            return;
+        }
+        if (entries.size() >= maxEntries) {
+            evictExpired();
+            if (entries.size() >= maxEntries) {
+                return;
+            }
+        }
+        CachedResult cached = new CachedResult(value, hotelIds, debut, fin, System.currentTimeMillis() + ttlSeconds * 1000L);
+        // Indexer les nuits avant de publier l'entrée : une invalidation concurrente la trouvera
+        for (Long hotelId : hotelIds) {
+            for (LocalDate night = debut; night.isBefore(fin); night = night.plusDays(1)) {
+                keysByNight.computeIfAbsent(new HotelNight(hotelId, night), n -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+        entries.put(key, cached);
+        if (version.get() != computedAtVersion) {
+            remove(key, cached);
+        }
+    }
+
+    @EventListener
+    public void onAvailabilityChanged(AvailabilityChangedEvent event) {
+        version.incrementAndGet();
+        int invalidated = 0;
+        for (LocalDate night = event.getDebut(); night.isBefore(event.getFin()); night = night.plusDays(1)) {
+            Set<String> keys = keysByNight.get(new HotelNight(event.getHotelId(), night));
+            if (keys == null) continue;
+            for (String key : keys) {
+                CachedResult cached = entries.get(key);
+                if (cached != null && remove(key, cached)) {
+                    invalidated++;
+                }
+            }
+        }
+        if (invalidated > 0) {
+            log.info("[SEARCH-CACHE] {} - {} cached searches invalidated", event, invalidated);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void evictExpired() {
+        long now = System.currentTimeMillis();
+        entries.forEach((key, cached) -> {
+            if (cached.expiresAt <= now) remove(key, cached);
+        });
+        // Les ensembles vides ne sont purgés que pour les nuits passées : plus aucune recherche ne peut s'y rattacher
+        LocalDate today = LocalDate.now();
+        keysByNight.entrySet().removeIf(e -> e.getKey().night.isBefore(today) && e.getValue().isEmpty());
+    }
+
+    private boolean remove(String key, CachedResult cached) {
+        if (!entries.remove(key, cached)) {
+            return false;
+        }
+        unindex(key, cached);
+        return true;
+    }
+
+    private void unindex(String key, CachedResult cached) {
+        // Une entrée plus récente sous la même clé reste indexée sur ses propres nuits
+        if (entries.containsKey(key)) {
+            return;
+        }
+        for (Long hotelId : cached.hotelIds) {
+            for (LocalDate night = cached.debut; night.isBefore(cached.fin); night = night.plusDays(1)) {
+                Set<String> keys = keysByNight.get(new HotelNight(hotelId, night));
+                if (keys != null) {
+                    keys.remove(key);
+                }
+            }
+        }
+    }
+}
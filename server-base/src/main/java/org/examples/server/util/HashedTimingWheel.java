@@ -0,0 +1,158 @@
+package org.examples.server.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Roue temporelle hachée (hashed timing wheel) pour expirer un grand nombre d'échéances.
+ * <p>
+ * Planifier ou annuler une échéance coûte O(1) ; un seul thread avance la roue d'une case
+ * par tick et ne parcourt que la case courante. Les échéances plus lointaines qu'un tour
+ * complet gardent un compteur de tours restants. La précision est celle du tick.
+ */
+public class HashedTimingWheel implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(HashedTimingWheel.class);
+
+    private final long tickNanos;
+    private final int mask;
+    private final Queue<Timeout>[] buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param name      nom du thread de la roue
+     * @param tickMs    durée d'une case en millisecondes
+     * @param wheelSize nombre de cases (arrondi à la puissance de 2 supérieure)
+     */
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, long tickMs, int wheelSize) {
+        if (tickMs <= 0) throw new IllegalArgumentException("tickMs must be > 0");
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(tickMs);
+        this.mask = size - 1;
+        this.buckets = new Queue[size];
+        for (int i = 0; i < size; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Planifie {@code task} après {@code delay}. La tâche s'exécute sur le thread de la roue :
+     * elle doit rester courte.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() - startNanos + unit.toNanos(Math.max(0, delay));
+        Timeout timeout = new Timeout(task, deadline);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    private void run() {
+        while (running) {
+            long target = (tick + 1) * tickNanos;
+            long sleepNanos = target - (System.nanoTime() - startNanos);
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) return;
+                    continue;
+                }
+            }
+            transferPending();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void transferPending() {
+        Timeout t;
+        while ((t = pending.poll()) != null) {
+            if (t.isCancelled()) continue;
+            long calculated = t.deadline / tickNanos;
+            t.remainingRounds = (calculated - tick) / buckets.length;
+            long ticks = Math.max(calculated, tick);
+            buckets[(int) (ticks & mask)].add(t);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        Iterator<Timeout> it = bucket.iterator();
+        while (it.hasNext()) {
+            Timeout t = it.next();
+            if (t.isCancelled()) {
+                it.remove();
+            } else if (t.remainingRounds <= 0) {
+                it.remove();
+                t.expire();
+            } else {
+                t.remainingRounds--;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Échéance planifiée dans la roue.
+     */
+    public static final class Timeout {
+        private static final int ST_INIT = 0, ST_CANCELLED = 1, ST_EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadline;
+        private final AtomicInteger state = new AtomicInteger(ST_INIT);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Annule l'échéance si elle n'a pas encore expiré.
+         *
+         * @return true si l'annulation a eu lieu avant l'expiration
+         */
+        public boolean cancel() {
+            return state.compareAndSet(ST_INIT, ST_CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == ST_CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == ST_EXPIRED;
+        }
+
+        private void expire() {
+            if (!state.compareAndSet(ST_INIT, ST_EXPIRED)) return;
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.warn("[TIMING-WHEEL] Timeout task failed: {}", e.toString());
+            }
+        }
+    }
+}
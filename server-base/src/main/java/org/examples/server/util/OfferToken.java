@@ -0,0 +1,58 @@
+package org.examples.server.util;
+
+import java.time.LocalDate;
+
+/**
+ * Contenu d'un jeton d'offre signé : tout ce qu'il faut pour router et honorer
+ * une réservation (hôtel, chambre, dates, nombre de personnes, prix annoncé)
+ * sans relecture de la base ni découpage de chaîne.
+ *
+ * @see OfferTokenCodec
+ */
+public final class OfferToken {
+
+    private final String hotelId;
+    private final String roomId;
+    private final LocalDate arrivalDate;
+    private final LocalDate departureDate;
+    private final int numPersons;
+    private final long totalPriceCents;
+    private final long expiresAt;
+
+    /**
+     * @param totalPriceCents prix total annoncé en centimes (évite les arrondis de double)
+     * @param expiresAt       expiration de l'offre, en millisecondes epoch
+     */
+    public OfferToken(String hotelId, String roomId, LocalDate arrivalDate, LocalDate departureDate,
+                      int numPersons, long totalPriceCents, long expiresAt) {
+        if (hotelId == null || roomId == null || arrivalDate == null || departureDate == null) {
+            throw new IllegalArgumentException("hotelId, roomId and dates are required in an offer token");
+        }
+        this.hotelId = hotelId;
+        this.roomId = roomId;
+        this.arrivalDate = arrivalDate;
+        this.departureDate = departureDate;
+        this.numPersons = numPersons;
+        this.totalPriceCents = totalPriceCents;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getHotelId() { return hotelId; }
+    public String getRoomId() { return roomId; }
+    public LocalDate getArrivalDate() { return arrivalDate; }
+    public LocalDate getDepartureDate() { return departureDate; }
+    public int getNumPersons() { return numPersons; }
+    public long getTotalPriceCents() { return totalPriceCents; }
+    public double getTotalPrice() { return totalPriceCents / 100.0; }
+    public long getExpiresAt() { return expiresAt; }
+
+    public boolean isExpired(long nowMillis) {
+        return nowMillis >= expiresAt;
+    }
+
+    @Override
+    public String toString() {
+        return "OfferToken{" + hotelId + "/" + roomId + " [" + arrivalDate + ".." + departureDate + ") x"
+            + numPersons + ", " + totalPriceCents + "c, exp=" + expiresAt + "}";
+    }
+}
@@ -0,0 +1,140 @@
+package org.examples.server.util;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Encode et vérifie les jetons d'offre : {@code base64url(payload).base64url(hmac)}.
+ * <p>
+ * Le payload est binaire (version, hôtel, chambre, arrivée en jour epoch, nombre de nuits,
+ * personnes, prix en centimes, expiration) et signé par HMAC-SHA256 tronqué à 128 bits.
+ * La signature est vérifiée en temps constant avant toute lecture du contenu.
+ * Hôtels et agences partagent le même secret ({@code offer.token.secret}).
+ */
+public class OfferTokenCodec {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte VERSION = 1;
+    private static final int SIGNATURE_BYTES = 16;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    // Mac n'est pas thread-safe : une instance par thread
+    private final ThreadLocal<Mac> mac;
+
+    public OfferTokenCodec(String secret) {
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalArgumentException("Offer token secret must not be empty");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+        newMac(); // Échoue immédiatement si l'algorithme est indisponible
+    }
+
+    public String encode(OfferToken token) {
+        byte[] payload = writePayload(token);
+        return ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(sign(payload));
+    }
+
+    /**
+     * Vérifie la signature et l'expiration du jeton.
+     *
+     * @throws IllegalArgumentException si le jeton est mal formé, falsifié ou expiré
+     */
+    public OfferToken decode(String token) {
+        return decode(token, System.currentTimeMillis());
+    }
+
+    public OfferToken decode(String token, long nowMillis) {
+        if (token == null) {
+            throw new IllegalArgumentException("Missing offer token");
+        }
+        int dot = token.indexOf('.');
+        if (dot <= 0 || dot != token.lastIndexOf('.')) {
+            throw new IllegalArgumentException("Malformed offer token");
+        }
+        byte[] payload;
+        byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed offer token");
+        }
+        if (!MessageDigest.isEqual(sign(payload), signature)) {
+            throw new IllegalArgumentException("Invalid offer token signature");
+        }
+        OfferToken offer = readPayload(payload);
+        if (offer.isExpired(nowMillis)) {
+            throw new IllegalArgumentException("Offer expired");
+        }
+        return offer;
+    }
+
+    private byte[] sign(byte[] payload) {
+        return Arrays.copyOf(mac.get().doFinal(payload), SIGNATURE_BYTES);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac m = Mac.getInstance(ALGORITHM);
+            m.init(key);
+            return m;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialise " + ALGORITHM, e);
+        }
+    }
+
+    private static byte[] writePayload(OfferToken token) {
+        long nights = token.getDepartureDate().toEpochDay() - token.getArrivalDate().toEpochDay();
+        if (nights <= 0 || nights > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid stay length in offer token: " + nights);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeUTF(token.getHotelId());
+            out.writeUTF(token.getRoomId());
+            out.writeInt((int) token.getArrivalDate().toEpochDay());
+            out.writeShort((int) nights);
+            out.writeShort(token.getNumPersons());
+            out.writeLong(token.getTotalPriceCents());
+            out.writeLong(token.getExpiresAt());
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static OfferToken readPayload(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported offer token version: " + version);
+            }
+            String hotelId = in.readUTF();
+            String roomId = in.readUTF();
+            LocalDate arrival = LocalDate.ofEpochDay(in.readInt());
+            LocalDate departure = arrival.plusDays(in.readShort());
+            int numPersons = in.readShort();
+            long priceCents = in.readLong();
+            long expiresAt = in.readLong();
+            return new OfferToken(hotelId, roomId, arrival, departure, numPersons, priceCents, expiresAt);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Malformed offer token");
+        }
+    }
+}
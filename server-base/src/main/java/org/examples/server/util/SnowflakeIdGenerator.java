@@ -0,0 +1,107 @@
+package org.examples.server.util;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Générateur d'identifiants uniques, triés par date de création (schéma « Snowflake ») :
+ * <pre>
+ *  0 | 41 bits : millisecondes depuis 2024-01-01 | 10 bits : nœud | 12 bits : séquence
+ * </pre>
+ * Sans verrou ni {@code SecureRandom} : un seul CAS sur l'état (horodatage, séquence).
+ * Si les 4096 valeurs d'une milliseconde sont épuisées, ou si l'horloge recule,
+ * le générateur continue sur l'horodatage logique suivant au lieu d'attendre :
+ * les identifiants restent uniques et croissants sur un nœud donné.
+ */
+public class SnowflakeIdGenerator {
+
+    /** 2024-01-01T00:00:00Z */
+    public static final long EPOCH = 1704067200000L;
+
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int TIMESTAMP_SHIFT = NODE_BITS + SEQUENCE_BITS;
+
+    // Alphabet Crockford base32 : ordre ASCII croissant, sans I/L/O/U
+    private static final char[] BASE32 = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CODE_LENGTH = 13;
+
+    private final long node;
+    private final LongSupplier clock;
+    // (horodatage relatif << SEQUENCE_BITS) | séquence
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    /** Horloge (millisecondes epoch) injectable pour les tests */
+    SnowflakeIdGenerator(int nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be in [0, " + MAX_NODE_ID + "]: " + nodeId);
+        }
+        this.node = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        while (true) {
+            long prev = state.get();
+            long now = clock.getAsLong() - EPOCH;
+            // Nouvelle milliseconde : séquence remise à zéro ; sinon incrément (la retenue avance l'horodatage)
+            long next = now > (prev >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : prev + 1;
+            if (state.compareAndSet(prev, next)) {
+                return ((next >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | node | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * Identifiant encodé en base32 Crockford sur 13 caractères fixes :
+     * l'ordre lexicographique des codes suit l'ordre de création.
+     */
+    public String nextCode() {
+        return encode(nextId());
+    }
+
+    public static String encode(long id) {
+        char[] out = new char[CODE_LENGTH];
+        for (int i = CODE_LENGTH - 1; i >= 0; i--) {
+            out[i] = BASE32[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+
+    /**
+     * Inverse de {@link #encode} ; lève IllegalArgumentException si le code n'est pas valide.
+     */
+    public static long decode(String code) {
+        if (code == null || code.length() != CODE_LENGTH) {
+            throw new IllegalArgumentException("Invalid id code: " + code);
+        }
+        long id = 0;
+        for (int i = 0; i < CODE_LENGTH; i++) {
+            int digit = Arrays.binarySearch(BASE32, code.charAt(i));
+            if (digit < 0) {
+                throw new IllegalArgumentException("Invalid id code: " + code);
+            }
+            id = (id << 5) | digit;
+        }
+        return id;
+    }
+
+    /**
+     * Instant de création (millisecondes epoch) encodé dans l'identifiant.
+     */
+    public static long timestampOf(long id) {
+        return (id >>> TIMESTAMP_SHIFT) + EPOCH;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+}
@@ -0,0 +1,188 @@
+package org.examples.server.service;
+
+import org.examples.server.entity.ChambreEntity;
+import org.examples.server.entity.HotelEntity;
+import org.examples.server.util.HashedTimingWheel;
+import org.examples.server.util.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InventoryHoldStoreTest {
+
+    private static final LocalDate ARRIVAL = LocalDate.of(2026, 7, 1);
+    private static final LocalDate DEPARTURE = LocalDate.of(2026, 7, 4);
+
+    private final List<Object> events = Collections.synchronizedList(new ArrayList<>());
+    private InventoryHoldStore store;
+    private ChambreEntity chambre;
+
+    @BeforeEach
+    void setUp() {
+        store = new InventoryHoldStore();
+        ReflectionTestUtils.setField(store, "defaultTtlSeconds", 600L);
+        ReflectionTestUtils.setField(store, "maxTtlSeconds", 1800L);
+        ReflectionTestUtils.setField(store, "tickMs", 10L);
+        ReflectionTestUtils.setField(store, "wheelSize", 64);
+        ReflectionTestUtils.setField(store, "idGenerator", new SnowflakeIdGenerator(1));
+        ReflectionTestUtils.setField(store, "eventPublisher", (ApplicationEventPublisher) events::add);
+        store.start();
+
+        HotelEntity hotel = new HotelEntity();
+        hotel.setId(7L);
+        chambre = new ChambreEntity(101, 2, 80);
+        chambre.setId(42L);
+        chambre.setHotel(hotel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        store.stop();
+    }
+
+    @Test
+    void overlappingHoldIsRefusedButAdjacentNightsAreFree() {
+        assertThat(place(ARRIVAL, DEPARTURE, null)).isNotNull();
+
+        assertThat(place(ARRIVAL.plusDays(2), DEPARTURE.plusDays(2), null)).isNull();
+        assertThat(place(DEPARTURE, DEPARTURE.plusDays(1), null)).isNotNull();
+        assertThat(store.isHeld(chambre.getId(), ARRIVAL.minusDays(1), ARRIVAL)).isFalse();
+    }
+
+    @Test
+    void holdIsRefusedWhenTheRoomIsReserved() {
+        assertThat(store.place(chambre, ARRIVAL, DEPARTURE, 2, "MegaAgence", null, () -> false)).isNull();
+        assertThat(store.activeHolds()).isZero();
+    }
+
+    @Test
+    void ttlIsCappedAtTheMaximum() {
+        long before = System.currentTimeMillis();
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, 100_000L);
+
+        assertThat(hold.getExpiresAt()).isBetween(before + 1_800_000L, System.currentTimeMillis() + 1_800_000L);
+    }
+
+    @Test
+    void holdExpiresAndFreesTheRoom() throws InterruptedException {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, 1L);
+
+        awaitNoActiveHolds(3_000);
+        assertThat(store.get(hold.getHoldId())).isNull();
+        assertThat(store.isHeld(chambre.getId(), ARRIVAL, DEPARTURE)).isFalse();
+        assertThat(changes()).containsExactly(AvailabilityChangedEvent.Change.HELD,
+                                              AvailabilityChangedEvent.Change.RELEASED);
+    }
+
+    @Test
+    void consumeRemovesTheHoldWithoutReleaseEvent() throws InterruptedException {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, 1L);
+
+        assertThat(store.consume(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE)).isSameAs(hold);
+        assertThat(store.consume(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE)).isNull();
+        Thread.sleep(1_200);
+        // La chambre passe du hold à la réservation : pas de RELEASED, même après l'échéance du TTL
+        assertThat(changes()).containsExactly(AvailabilityChangedEvent.Change.HELD);
+    }
+
+    @Test
+    void consumeRejectsAHoldForOtherDates() {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, null);
+
+        assertThatThrownBy(() -> store.consume(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE.plusDays(1)))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThat(store.get(hold.getHoldId())).isSameAs(hold);
+    }
+
+    @Test
+    void acquiredHoldCannotBeAcquiredTwiceNorReleased() {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, null);
+        store.acquire(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE);
+
+        assertThatThrownBy(() -> store.acquire(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE))
+            .isInstanceOf(IllegalStateException.class);
+        assertThat(store.release(hold.getHoldId())).isFalse();
+
+        store.restore(hold);
+        assertThat(store.acquire(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE)).isSameAs(hold);
+    }
+
+    @Test
+    void acquiredHoldOutlivesItsTtlUntilRestored() throws InterruptedException {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, 1L);
+        store.acquire(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE);
+
+        Thread.sleep(1_200);
+        assertThat(store.get(hold.getHoldId())).isSameAs(hold);
+
+        // Échec de l'enregistrement après l'échéance : le hold expire à la restitution
+        store.restore(hold);
+        assertThat(store.get(hold.getHoldId())).isNull();
+        assertThat(changes()).containsExactly(AvailabilityChangedEvent.Change.HELD,
+                                              AvailabilityChangedEvent.Change.RELEASED);
+    }
+
+    @Test
+    void holdRestoredBeforeItsTtlStillExpires() throws InterruptedException {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, 1L);
+        store.acquire(hold.getHoldId(), chambre.getId(), ARRIVAL, DEPARTURE);
+        // Échéance de la roue pendant l'enregistrement, avant expiresAt (arrondi au tick) : ignorée
+        HashedTimingWheel.Timeout fired = (HashedTimingWheel.Timeout) ReflectionTestUtils.getField(hold, "timeout");
+        fired.cancel();
+        ReflectionTestUtils.invokeMethod(store, "expire", hold.getHoldId());
+        assertThat(store.get(hold.getHoldId())).isSameAs(hold);
+
+        store.restore(hold);
+        assertThat(store.get(hold.getHoldId())).isSameAs(hold);
+
+        awaitNoActiveHolds(3_000);
+        assertThat(store.get(hold.getHoldId())).isNull();
+        assertThat(changes()).containsExactly(AvailabilityChangedEvent.Change.HELD,
+                                              AvailabilityChangedEvent.Change.RELEASED);
+    }
+
+    @Test
+    void releasePublishesTheFreedNights() {
+        InventoryHoldStore.Hold hold = place(ARRIVAL, DEPARTURE, null);
+
+        assertThat(store.release(hold.getHoldId())).isTrue();
+        assertThat(store.release(hold.getHoldId())).isFalse();
+        AvailabilityChangedEvent released = (AvailabilityChangedEvent) events.get(1);
+        assertThat(released.getChange()).isEqualTo(AvailabilityChangedEvent.Change.RELEASED);
+        assertThat(released.getHotelId()).isEqualTo(7L);
+        assertThat(released.getRoomNumero()).isEqualTo(101);
+        assertThat(released.getDebut()).isEqualTo(ARRIVAL);
+        assertThat(released.getFin()).isEqualTo(DEPARTURE);
+    }
+
+    private InventoryHoldStore.Hold place(LocalDate from, LocalDate to, Long ttlSeconds) {
+        return store.place(chambre, from, to, 2, "MegaAgence", ttlSeconds, () -> true);
+    }
+
+    private List<AvailabilityChangedEvent.Change> changes() {
+        List<AvailabilityChangedEvent.Change> changes = new ArrayList<>();
+        synchronized (events) {
+            for (Object event : events) {
+                changes.add(((AvailabilityChangedEvent) event).getChange());
+            }
+        }
+        return changes;
+    }
+
+    private void awaitNoActiveHolds(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (store.activeHolds() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package org.examples.server.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HashedTimingWheelTest {
+
+    private static final long TICK_MS = 10;
+
+    private HashedTimingWheel wheel;
+
+    @AfterEach
+    void closeWheel() {
+        if (wheel != null) wheel.close();
+    }
+
+    @Test
+    void expiresAfterTheDelayNeverBefore() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", TICK_MS, 8);
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        HashedTimingWheel.Timeout timeout = wheel.schedule(fired::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+        assertThat(timeout.isExpired()).isTrue();
+        assertThat(timeout.cancel()).isFalse();
+    }
+
+    @Test
+    void zeroDelayExpiresOnTheNextTick() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", TICK_MS, 8);
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(fired::countDown, 0, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void delayLongerThanOneRotationWaitsForTheRemainingRounds() throws InterruptedException {
+        // 4 cases de 10 ms : un tour fait 40 ms, l'échéance tombe au 3e tour
+        wheel = new HashedTimingWheel("test-wheel", TICK_MS, 4);
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+        wheel.schedule(fired::countDown, 100, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(60, TimeUnit.MILLISECONDS)).isFalse();
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(100);
+    }
+
+    @Test
+    void cancelledTimeoutNeverRuns() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", TICK_MS, 8);
+        AtomicInteger runs = new AtomicInteger();
+        HashedTimingWheel.Timeout cancelled = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+        CountDownLatch later = new CountDownLatch(1);
+        wheel.schedule(later::countDown, 80, TimeUnit.MILLISECONDS);
+
+        assertThat(cancelled.cancel()).isTrue();
+        assertThat(later.await(2, TimeUnit.SECONDS)).isTrue();
+        assertThat(runs.get()).isZero();
+        assertThat(cancelled.isCancelled()).isTrue();
+        assertThat(cancelled.isExpired()).isFalse();
+    }
+
+    @Test
+    void failingTaskDoesNotStopTheWheel() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", TICK_MS, 8);
+        wheel.schedule(() -> { throw new IllegalStateException("boom"); }, 10, TimeUnit.MILLISECONDS);
+        CountDownLatch fired = new CountDownLatch(1);
+        wheel.schedule(fired::countDown, 40, TimeUnit.MILLISECONDS);
+
+        assertThat(fired.await(2, TimeUnit.SECONDS)).isTrue();
+    }
+}
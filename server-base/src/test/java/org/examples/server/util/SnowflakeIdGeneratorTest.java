@@ -0,0 +1,110 @@
+package org.examples.server.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW = SnowflakeIdGenerator.EPOCH + 86_400_000L;
+
+    @Test
+    void idCarriesTimestampAndNode() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(5, () -> NOW);
+
+        long id = generator.nextId();
+
+        assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(NOW);
+        assertThat(SnowflakeIdGenerator.nodeOf(id)).isEqualTo(5);
+    }
+
+    @Test
+    void sequenceOverflowMovesToTheNextMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW);
+        long previous = generator.nextId();
+
+        // 4096 identifiants par milliseconde : le 4097e emprunte la milliseconde suivante
+        for (int i = 1; i < 4096; i++) {
+            long id = generator.nextId();
+            assertThat(id).isGreaterThan(previous);
+            assertThat(SnowflakeIdGenerator.timestampOf(id)).isEqualTo(NOW);
+            previous = id;
+        }
+        long carried = generator.nextId();
+
+        assertThat(carried).isGreaterThan(previous);
+        assertThat(SnowflakeIdGenerator.timestampOf(carried)).isEqualTo(NOW + 1);
+        assertThat(SnowflakeIdGenerator.nodeOf(carried)).isEqualTo(1);
+    }
+
+    @Test
+    void clockStepBackKeepsIdsIncreasing() {
+        AtomicLong clock = new AtomicLong(NOW);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+        long beforeStep = generator.nextId();
+
+        clock.set(NOW - 5_000);
+        long afterStep = generator.nextId();
+
+        assertThat(afterStep).isGreaterThan(beforeStep);
+        assertThat(SnowflakeIdGenerator.timestampOf(afterStep)).isEqualTo(NOW);
+
+        // L'horloge rattrape puis dépasse l'horodatage logique : retour à l'heure réelle
+        clock.set(NOW + 10);
+        long caughtUp = generator.nextId();
+        assertThat(caughtUp).isGreaterThan(afterStep);
+        assertThat(SnowflakeIdGenerator.timestampOf(caughtUp)).isEqualTo(NOW + 10);
+    }
+
+    @Test
+    void concurrentCallersNeverGetTheSameId() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3, () -> NOW);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 2_000;
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    ids.add(generator.nextId());
+                }
+                done.countDown();
+            }).start();
+        }
+        done.await();
+
+        assertThat(ids).hasSize(threads * perThread);
+    }
+
+    @Test
+    void codesSortLikeIdsAndDecodeBack() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(2, () -> NOW);
+        List<String> codes = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            codes.add(generator.nextCode());
+        }
+        List<String> sorted = new ArrayList<>(codes);
+        sorted.sort(null);
+
+        assertThat(codes).doesNotHaveDuplicates();
+        assertThat(sorted).isEqualTo(codes);
+        long id = SnowflakeIdGenerator.decode(codes.get(0));
+        assertThat(SnowflakeIdGenerator.encode(id)).isEqualTo(codes.get(0));
+    }
+
+    @Test
+    void invalidCodesAndNodesAreRejected() {
+        assertThatThrownBy(() -> SnowflakeIdGenerator.decode("TOO-SHORT")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SnowflakeIdGenerator.decode("000000000000U")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
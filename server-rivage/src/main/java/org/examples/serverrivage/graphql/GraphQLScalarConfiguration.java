@@ -1,23 +0,0 @@
-package org.examples.serverrivage.graphql;
-
-import graphql.scalars.ExtendedScalars;
-import graphql.schema.GraphQLScalarType;
-import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
-import org.springframework.graphql.execution.RuntimeWiringConfigurer;
-
-/**
- * Configuration GraphQL - Enregistrement des scalaires personnalisés
- */
-@Configuration
-public class GraphQLScalarConfiguration {
-
-    @Bean
-    public RuntimeWiringConfigurer runtimeWiringConfigurer() {
-        return wiringBuilder -> wiringBuilder
-                .scalar(ExtendedScalars.Date)
-                .scalar(ExtendedScalars.DateTime)
-                .scalar(ExtendedScalars.GraphQLLong);
-    }
-}
-